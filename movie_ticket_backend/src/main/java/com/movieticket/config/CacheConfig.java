@@ -0,0 +1,28 @@
+package com.movieticket.config;
+
+import com.movieticket.service.cache.CacheNames;
+import com.movieticket.service.cache.CatalogCacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CatalogCacheManager cacheManager(
+            @Value("${app.cache.max-entries:1000}") int maxEntries,
+            @Value("${app.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.cache.session-ttl-seconds:30}") long sessionTtlSeconds) {
+        CatalogCacheManager manager = new CatalogCacheManager(maxEntries, ttlSeconds);
+        manager.register(CacheNames.MOVIE_DETAIL, maxEntries, ttlSeconds)
+                .register(CacheNames.MOVIE_LISTS, 64, ttlSeconds)
+                .register(CacheNames.ACTIVE_GENRES, 4, ttlSeconds)
+                .register(CacheNames.TOP_NEWS, 4, ttlSeconds)
+                // 场次列表带剩余座位数，购票不逐次清除，靠较短的过期时间刷新
+                .register(CacheNames.SESSIONS_BY_MOVIE, maxEntries, sessionTtlSeconds);
+        return manager;
+    }
+}
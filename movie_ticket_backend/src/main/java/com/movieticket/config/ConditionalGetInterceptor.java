@@ -0,0 +1,47 @@
+package com.movieticket.config;
+
+import com.movieticket.service.cache.CatalogVersions;
+import com.movieticket.service.cache.CatalogVersions.Catalog;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 公开目录接口的条件请求
+ * 按请求路径对应的数据版本生成 ETag 和 Last-Modified，客户端或 CDN 带着未过时的校验值请求时
+ * 直接返回 304，只按主键读一次版本行，不进入控制器也不序列化响应体。
+ * 只覆盖每条写入路径都会推进版本的接口：电影接口带评论均分、联想排序随购票变化，资讯接口带浏览量，都不参与
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final CatalogVersions catalogVersions;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        Catalog catalog = catalogOf(request.getRequestURI().substring(request.getContextPath().length()));
+        if (catalog == null) {
+            return true;
+        }
+        // 允许缓存，但每次使用前都要回源校验
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        CatalogVersions.Version version = catalogVersions.current(catalog);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        return !webRequest.checkNotModified(version.etag(), version.lastModified());
+    }
+
+    static Catalog catalogOf(String path) {
+        if (path.equals("/api/genres")) {
+            return Catalog.GENRES;
+        }
+        return null;
+    }
+}
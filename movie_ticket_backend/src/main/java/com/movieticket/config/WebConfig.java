@@ -1,14 +1,24 @@
 package com.movieticket.config;
 
+import com.movieticket.security.UserPrincipalArgumentResolver;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+    private final UserPrincipalArgumentResolver userPrincipalArgumentResolver;
+
     @Value("${app.cors.allowed-origins}") //读取yaml中的app.cors.allowed-origins
     private String allowedOrigins;//app.cors.allowed-origins的值注入到allowedOrigins中
 
@@ -27,6 +37,19 @@ public class WebConfig implements WebMvcConfigurer {
 
     }
 
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // 控制器方法的 UserPrincipal 参数
+        resolvers.add(userPrincipalArgumentResolver);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 公开目录接口的 ETag / Last-Modified 校验
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/api/genres/**");
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/uploads/**")
@@ -7,6 +7,7 @@ import com.movieticket.dto.request.auth.ResetPasswordRequest;
 import com.movieticket.dto.response.auth.AuthResponse;
 import com.movieticket.entity.User;
 import com.movieticket.service.AuthService;
+import com.movieticket.util.JwtClaims;
 import com.movieticket.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -45,21 +47,23 @@ public class AuthController {
         }
     }
 
+    // 异步返回：密码校验期间不占用请求线程
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody AuthRequest request) {
-        Optional<User> userOpt = authService.login(request.getUsername(), request.getPassword());
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            String token = jwtUtil.generateToken(
-                    user.getUsername(),
-                    user.getId(),
-                    user.getRole().name());
-
-            AuthResponse response = new AuthResponse(user, token);
-            return ResponseEntity.ok(ApiResponse.success("登录成功", response));
-        } else {
-            return ResponseEntity.badRequest().body(ApiResponse.error("用户名或密码错误"));
-        }
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> login(@Valid @RequestBody AuthRequest request) {
+        return authService.login(request.getUsername(), request.getPassword()).thenApply(userOpt -> {
+            if (userOpt.isPresent()) {
+                User user = userOpt.get();
+                String token = jwtUtil.generateToken(
+                        user.getUsername(),
+                        user.getId(),
+                        user.getRole().name());
+
+                AuthResponse response = new AuthResponse(user, token);
+                return ResponseEntity.ok(ApiResponse.success("登录成功", response));
+            } else {
+                return ResponseEntity.badRequest().body(ApiResponse.error("用户名或密码错误"));
+            }
+        });
     }
 
     @GetMapping("/check-username")
@@ -83,9 +87,10 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(ApiResponse.error("Token无效"));
             }
 
-            String username = jwtUtil.getUsernameFromToken(authToken);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
-            String role = jwtUtil.getRoleFromToken(authToken);
+            JwtClaims claims = jwtUtil.parseToken(authToken);
+            String username = claims.username();
+            Long userId = claims.userId();
+            String role = claims.role();
 
             // 生成新token
             String newToken = jwtUtil.generateToken(username, userId, role);
@@ -1,6 +1,7 @@
 package com.movieticket.controller;
 
 import com.movieticket.dto.ApiResponse;
+import com.movieticket.dto.CursorPage;
 import com.movieticket.dto.request.comment.CommentCreateRequest;
 import com.movieticket.dto.request.comment.CommentUpdateRequest;
 import com.movieticket.dto.response.comment.CommentResponse;
@@ -8,10 +9,10 @@ import com.movieticket.dto.response.comment.CommentStatsResponse;
 import com.movieticket.entity.Comment;
 import com.movieticket.entity.Movie;
 import com.movieticket.entity.User;
+import com.movieticket.security.UserPrincipal;
 import com.movieticket.service.CommentService;
 import com.movieticket.service.MovieService;
 import com.movieticket.service.UserService;
-import com.movieticket.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -21,6 +22,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -32,16 +34,14 @@ public class CommentController {
     private final CommentService commentService;
     private final UserService userService;
     private final MovieService movieService;
-    private final JwtUtil jwtUtil;
 
     // 创建评论
     @PostMapping("/create")
     public ResponseEntity<ApiResponse<CommentResponse>> createComment(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @Valid @RequestBody CommentCreateRequest request) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<User> userOpt = userService.getUserById(userId);
             Optional<Movie> movieOpt = movieService.getMovieById(request.getMovieId());
@@ -93,12 +93,11 @@ public class CommentController {
     // 更新评论
     @PutMapping("/{id}/update")
     public ResponseEntity<ApiResponse<CommentResponse>> updateComment(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long id,
             @Valid @RequestBody CommentUpdateRequest request) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<Comment> commentOpt = commentService.getCommentById(id);
             if (commentOpt.isPresent()) {
@@ -118,8 +117,6 @@ public class CommentController {
             } else {
                 return ResponseEntity.badRequest().body(ApiResponse.error("评论不存在"));
             }
-        } catch (io.jsonwebtoken.JwtException | IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error("Token无效"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
@@ -141,15 +138,27 @@ public class CommentController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    // 获取电影评论（键集分页），after 为上一页返回的 nextCursor
+    @GetMapping("/movie/{movieId}/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<CommentResponse>>> scrollMovieComments(
+            @PathVariable Long movieId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPage<CommentResponse> response = commentService.scrollCommentsByMovie(movieId, after, size)
+                .map(this::convertToCommentResponse);
+
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     // 获取用户评论
     @GetMapping("/user")
     public ResponseEntity<ApiResponse<Page<CommentResponse>>> getUserComments(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Pageable pageable = PageRequest.of(page, size);
             Page<Comment> comments = commentService.getCommentsByUser(userId, pageable);
@@ -164,11 +173,10 @@ public class CommentController {
     // 删除评论
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<Void>> deleteComment(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long id) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<Comment> commentOpt = commentService.getCommentById(id);
             if (commentOpt.isPresent()) {
@@ -191,10 +199,12 @@ public class CommentController {
     // 点赞评论
     @PostMapping("/{id}/like")
     public ResponseEntity<ApiResponse<Void>> likeComment(
-            @RequestHeader(value = "Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long id) {
         try {
-            commentService.likeComment(id);
+            if (!commentService.likeComment(id, principal.getUserId())) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("您已经点过赞了"));
+            }
             return ResponseEntity.ok(ApiResponse.success("点赞成功", null));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -206,21 +216,12 @@ public class CommentController {
     // 取消点赞评论
     @PostMapping("/{id}/unlike")
     public ResponseEntity<ApiResponse<Void>> unlikeComment(
-            @RequestHeader(value = "Authorization", required = false) String token,
+            UserPrincipal principal,
             @PathVariable Long id) {
         try {
-            // 简化处理，直接减少点赞数
-            Optional<Comment> commentOpt = commentService.getCommentById(id);
-            if (commentOpt.isPresent()) {
-                Comment comment = commentOpt.get();
-                if (comment.getLikeCount() > 0) {
-                    comment.setLikeCount(comment.getLikeCount() - 1);
-                    commentService.updateComment(comment); // 通过service更新评论
-                }
-                return ResponseEntity.ok(ApiResponse.success("取消点赞成功", null));
-            } else {
-                return ResponseEntity.badRequest().body(ApiResponse.error("评论不存在"));
-            }
+            // 未点过赞时不改变点赞数，同样返回成功
+            commentService.unlikeComment(id, principal.getUserId());
+            return ResponseEntity.ok(ApiResponse.success("取消点赞成功", null));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("取消点赞失败"));
         }
@@ -237,6 +238,17 @@ public class CommentController {
         }
     }
 
+    // 批量获取评论统计（电影列表页），movieIds 以逗号分隔
+    @GetMapping("/movie/stats")
+    public ResponseEntity<ApiResponse<Map<Long, CommentStatsResponse>>> getCommentStatsBatch(
+            @RequestParam List<Long> movieIds) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(commentService.getCommentStatsByMovies(movieIds)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("获取评论统计失败"));
+        }
+    }
+
     // 获取热门评论
     @GetMapping("/movie/{movieId}/hot")
     public ResponseEntity<ApiResponse<List<CommentResponse>>> getHotComments(
@@ -5,10 +5,10 @@ import com.movieticket.dto.response.movie.MovieResponse;
 import com.movieticket.entity.Favorite;
 import com.movieticket.entity.Movie;
 import com.movieticket.entity.User;
+import com.movieticket.security.UserPrincipal;
 import com.movieticket.service.FavoriteService;
 import com.movieticket.service.MovieService;
 import com.movieticket.service.UserService;
-import com.movieticket.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -28,16 +28,14 @@ public class FavoriteController {
     private final FavoriteService favoriteService;
     private final UserService userService;
     private final MovieService movieService;
-    private final JwtUtil jwtUtil;
 
     // 添加收藏
     @PostMapping("/movie/{movieId}")
     public ResponseEntity<ApiResponse<Void>> addFavorite(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long movieId) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
             
             Optional<User> userOpt = userService.getUserById(userId);
             Optional<Movie> movieOpt = movieService.getMovieById(movieId);
@@ -68,11 +66,10 @@ public class FavoriteController {
     // 取消收藏
     @DeleteMapping("/movie/{movieId}")
     public ResponseEntity<ApiResponse<Void>> removeFavorite(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long movieId) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
             
             // 检查电影是否存在
             Optional<Movie> movieOpt = movieService.getMovieById(movieId);
@@ -96,12 +93,11 @@ public class FavoriteController {
     // 获取用户收藏列表
     @GetMapping
     public ResponseEntity<ApiResponse<Page<MovieResponse>>> getFavorites(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
             
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
             Page<Favorite> favorites = favoriteService.getFavoritesByUser(userId, pageable);
@@ -116,11 +112,10 @@ public class FavoriteController {
     // 检查收藏状态
     @GetMapping("/check/movie/{movieId}")
     public ResponseEntity<ApiResponse<Boolean>> checkFavorite(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long movieId) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
             
             // 检查电影是否存在
             Optional<Movie> movieOpt = movieService.getMovieById(movieId);
@@ -155,10 +150,9 @@ public class FavoriteController {
     // 获取用户收藏数量
     @GetMapping("/count/user")
     public ResponseEntity<ApiResponse<Long>> getUserFavoriteCount(
-            @RequestHeader("Authorization") String token) {
+            UserPrincipal principal) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
             
             Long count = favoriteService.getFavoriteCountByUser(userId);
             return ResponseEntity.ok(ApiResponse.success(count));
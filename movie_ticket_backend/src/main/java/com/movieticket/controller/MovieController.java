@@ -3,6 +3,7 @@ package com.movieticket.controller;
 import com.movieticket.dto.ApiResponse;
 import com.movieticket.dto.request.movie.MovieQueryRequest;
 import com.movieticket.dto.response.movie.MovieResponse;
+import com.movieticket.dto.response.movie.MovieSuggestionResponse;
 import com.movieticket.entity.Genre;
 import com.movieticket.service.GenreService;
 import com.movieticket.service.MovieService;
@@ -86,6 +87,19 @@ public class MovieController {
         }
     }
 
+    // 搜索框输入联想
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<MovieSuggestionResponse>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            List<MovieSuggestionResponse> suggestions = movieService.suggest(prefix, limit);
+            return ResponseEntity.ok(ApiResponse.success(suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("获取搜索联想失败"));
+        }
+    }
+
     // 获取电影类型下的电影
     @GetMapping("/by-genre/{genreId}")
     public ResponseEntity<ApiResponse<Page<MovieResponse>>> getMoviesByGenre(
@@ -1,16 +1,18 @@
 package com.movieticket.controller;
 
 import com.movieticket.dto.ApiResponse;
+import com.movieticket.dto.CursorPage;
 import com.movieticket.dto.UserStatsResponse;
 import com.movieticket.dto.request.order.OrderCreateRequest;
 import com.movieticket.dto.response.order.OrderResponse;
 import com.movieticket.entity.Order;
 import com.movieticket.entity.Session;
 import com.movieticket.entity.User;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.security.UserPrincipal;
 import com.movieticket.service.OrderService;
 import com.movieticket.service.SessionService;
 import com.movieticket.service.UserService;
-import com.movieticket.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -31,16 +33,14 @@ public class OrderController {
     private final OrderService orderService;
     private final UserService userService;
     private final SessionService sessionService;
-    private final JwtUtil jwtUtil;
     private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @Valid @RequestBody OrderCreateRequest request) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<User> userOpt = userService.getUserById(userId);
             Optional<Session> sessionOpt = sessionService.getSessionById(request.getSessionId());
@@ -87,10 +87,9 @@ public class OrderController {
 
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<UserStatsResponse>> getOrderStats(
-            @RequestHeader("Authorization") String token) {
+            UserPrincipal principal) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             // 获取用户订单统计
             UserStatsResponse stats = userService.getUserStats(userId);
@@ -103,13 +102,12 @@ public class OrderController {
 
     @GetMapping("/user")
     public ResponseEntity<ApiResponse<Page<OrderResponse>>> getUserOrders(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Pageable pageable = PageRequest.of(page, size);// PageRequest是Pageable的实现类
             Page<Order> orders;
@@ -131,13 +129,31 @@ public class OrderController {
         }
     }
 
+    // 键集分页：after 为上一页返回的 nextCursor，不统计总数
+    @GetMapping("/user/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> scrollUserOrders(
+            UserPrincipal principal,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            Long userId = principal.getUserId();
+
+            CursorPage<OrderResponse> response = orderService.scrollOrdersByUser(userId, after, size)
+                    .map(this::convertToOrderResponse);
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (BusinessException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("获取订单失败"));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrder(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long id) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<Order> orderOpt = orderService.getOrderById(id);
             if (orderOpt.isPresent()) {
@@ -160,11 +176,10 @@ public class OrderController {
 
     @PostMapping("/{id}/pay")
     public ResponseEntity<ApiResponse<Void>> payOrder(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long id) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<Order> orderOpt = orderService.getOrderById(id);
             if (orderOpt.isPresent()) {
@@ -188,11 +203,10 @@ public class OrderController {
 
     @PostMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<Void>> cancelOrder(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @PathVariable Long id) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<Order> orderOpt = orderService.getOrderById(id);
             if (orderOpt.isPresent()) {
@@ -5,8 +5,8 @@ import com.movieticket.dto.request.user.PasswordChangeRequest;
 import com.movieticket.dto.request.user.UserUpdateRequest;
 import com.movieticket.dto.response.user.UserProfileResponse;
 import com.movieticket.entity.User;
+import com.movieticket.security.UserPrincipal;
 import com.movieticket.service.UserService;
-import com.movieticket.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -36,22 +36,16 @@ public class UserController {
 
     private final PasswordEncoder passwordEncoder;
     private final UserService userService;
-    private final JwtUtil jwtUtil;
     // 添加新的服务依赖
     private final OrderService orderService;
     private final FavoriteService favoriteService;
     private final CommentService commentService;
 
     @GetMapping("/profile")
-    public ResponseEntity<ApiResponse<UserProfileResponse>> getProfile(@RequestHeader("Authorization") String token) {// 获取用户信息
-        // @RequestHeader("Authorization")从 HTTP 请求头中获取名为 Authorization 的值，并自动绑定到方法的参数
-        // token 上
-        // token格式为：Bearer <TOKEN>，机制为JWT
-
-        // Authorization: Bearer <TOKEN>
+    public ResponseEntity<ApiResponse<UserProfileResponse>> getProfile(UserPrincipal principal) {// 获取用户信息
+        // principal 由 UserPrincipalArgumentResolver 从认证信息中注入，过滤器已验证过 Authorization 请求头中的令牌
         try {
-            String authToken = token.substring(7); // 去掉 "Bearer " 前缀
-            Long userId = jwtUtil.getUserIdFromToken(authToken);// 获取用户ID
+            Long userId = principal.getUserId();
 
             Optional<User> userOpt = userService.getUserById(userId);// 根据ID获取用户
             if (userOpt.isPresent()) {
@@ -67,11 +61,10 @@ public class UserController {
 
     @PutMapping("/profile")
     public ResponseEntity<ApiResponse<UserProfileResponse>> updateProfile(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @Valid @RequestBody UserUpdateRequest request) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<User> userOpt = userService.getUserById(userId);
             if (userOpt.isPresent()) {
@@ -96,11 +89,10 @@ public class UserController {
 
     @PostMapping("/change-password")
     public ResponseEntity<ApiResponse<Void>> changePassword(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @Valid @RequestBody PasswordChangeRequest request) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Optional<User> userOpt = userService.getUserById(userId);
             if (userOpt.isPresent()) {
@@ -129,13 +121,12 @@ public class UserController {
      */
     @GetMapping("/orders")
     public ResponseEntity<ApiResponse<Page<OrderResponse>>> getOrders(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Pageable pageable = PageRequest.of(page, size);
             Page<Order> orders;
@@ -162,12 +153,11 @@ public class UserController {
      */
     @GetMapping("/favorites")
     public ResponseEntity<ApiResponse<Page<MovieResponse>>> getFavorites(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Pageable pageable = PageRequest.of(page, size);
             Page<Favorite> favorites = favoriteService.getFavoritesByUser(userId, pageable);
@@ -184,12 +174,11 @@ public class UserController {
      */
     @GetMapping("/comments")
     public ResponseEntity<ApiResponse<Page<CommentResponse>>> getComments(
-            @RequestHeader("Authorization") String token,
+            UserPrincipal principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            String authToken = token.substring(7);
-            Long userId = jwtUtil.getUserIdFromToken(authToken);
+            Long userId = principal.getUserId();
 
             Pageable pageable = PageRequest.of(page, size);
             Page<Comment> comments = commentService.getCommentsByUser(userId, pageable);
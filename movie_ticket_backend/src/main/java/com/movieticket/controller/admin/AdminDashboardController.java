@@ -11,17 +11,26 @@ import com.movieticket.dto.response.order.OrderResponse;
 import com.movieticket.entity.Movie;
 import com.movieticket.entity.Order;
 import com.movieticket.service.*;
+import com.movieticket.service.auth.PasswordVerifier;
+import com.movieticket.service.cache.BoundedCache;
+import com.movieticket.service.cache.CatalogCacheManager;
+import com.movieticket.service.order.OrderExpiryScheduler;
+import com.movieticket.service.stats.SectionFanOut;
+import com.movieticket.service.stats.TimeBucket;
+import com.movieticket.service.writebehind.WriteBehindBuffer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,49 +41,45 @@ public class AdminDashboardController {
     private final UserService userService;
     private final MovieService movieService;
     private final OrderService orderService;
-    private final NewsService newsService;
-    private final SessionService sessionService;
     private final DashboardService dashboardService;
+    private final CatalogCacheManager cacheManager;
+    private final PasswordVerifier passwordVerifier;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final OrderExpiryScheduler orderExpiryScheduler;
 
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<DashboardStatsResponse>> getDashboardStats() {
-        DashboardStatsResponse stats = new DashboardStatsResponse();
-
-        // 用户统计
-        stats.setTotalUsers(userService.getTotalUserCount());
-        stats.setActiveUsers(userService.getActiveUserCount());
-
-        // 电影统计
-        stats.setTotalMovies(movieService.getTotalMovieCount());
-        stats.setActiveMovies(movieService.getActiveMovieCount());
-
-        // 订单统计
-        stats.setTotalOrders(orderService.getOrderCountByStatus(null));
-        stats.setPendingOrders(orderService.getOrderCountByStatus(com.movieticket.entity.Order.OrderStatus.PENDING));
-        stats.setPaidOrders(orderService.getOrderCountByStatus(com.movieticket.entity.Order.OrderStatus.PAID));
-        stats.setCancelledOrders(
-                orderService.getOrderCountByStatus(com.movieticket.entity.Order.OrderStatus.CANCELLED));
-        // stats.setCancelledOrders(orderService.getOrderCountByStatus(Order.OrderStatus.CANCELLED));
-        // 场次统计
-        stats.setUpcomingSessions(sessionService.getUpcomingSessionCount());
+        // 各统计项由 DashboardService 并行查询，单项超时时以默认值返回
+        return ResponseEntity.ok(ApiResponse.success(dashboardService.getDashboardStats()));
+    }
 
-        // 资讯统计
-        stats.setTotalNews(newsService.getActiveNewsCount());
+    @GetMapping("/stats/metrics")
+    public ResponseEntity<ApiResponse<Map<String, SectionFanOut.SectionStats>>> getDashboardMetrics() {
+        return ResponseEntity.ok(ApiResponse.success(dashboardService.getSectionStats()));
+    }
 
-        // 营收统计
-        // 获取当天的开始时间（00:00:00）
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        // 获取当天的结束时间（23:59:59）
-        LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
+    // 目录缓存的命中率、淘汰和过期次数，用于调整容量和过期时间
+    @GetMapping("/stats/cache")
+    public ResponseEntity<ApiResponse<Map<String, BoundedCache.CacheStats>>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(cacheManager.getCacheStats()));
+    }
 
-        stats.setTodayRevenue(orderService.getRevenueBetween(startOfDay, endOfDay));
+    // 登录密码校验线程池的排队、拒绝和耗时，用于调整线程数和队列容量
+    @GetMapping("/stats/login")
+    public ResponseEntity<ApiResponse<PasswordVerifier.Stats>> getLoginStats() {
+        return ResponseEntity.ok(ApiResponse.success(passwordVerifier.stats()));
+    }
 
-        // 获取当前月份的第一天凌晨时间作为月度统计的起始时间
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        // 查询从月初到今日结束的收入数据，并设置到月度收入统计中
-        stats.setMonthlyRevenue(orderService.getRevenueBetween(startOfMonth, endOfDay));
+    // 待支付订单超时调度：时间轮中的订单数、累计取消的订单和释放的座位
+    @GetMapping("/stats/order-expiry")
+    public ResponseEntity<ApiResponse<OrderExpiryScheduler.Stats>> getOrderExpiryStats() {
+        return ResponseEntity.ok(ApiResponse.success(orderExpiryScheduler.stats()));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(stats));
+    // 浏览次数、最后登录时间等延迟写入的待写条目和刷写情况
+    @GetMapping("/stats/write-behind")
+    public ResponseEntity<ApiResponse<WriteBehindBuffer.Stats>> getWriteBehindStats() {
+        return ResponseEntity.ok(ApiResponse.success(writeBehindBuffer.stats()));
     }
 
     @GetMapping("/revenue")
@@ -98,6 +103,40 @@ public class AdminDashboardController {
         }
     }
 
+    // 时间序列统计：bucket 为 hour/day/week，start/end 为空时默认今日（按小时）、近 30 天（按天）或近 12 周（按周）
+    @GetMapping("/trends/revenue")
+    public ResponseEntity<ApiResponse<List<RevenueDataResponse>>> getRevenueTrends(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        TimeBucket timeBucket = TimeBucket.of(bucket);
+        LocalDateTime to = end != null ? end : LocalDateTime.now();
+        return ResponseEntity.ok(ApiResponse.success(
+                dashboardService.getRevenueData(timeBucket, rangeStart(timeBucket, start, to), to)));
+    }
+
+    @GetMapping("/trends/orders")
+    public ResponseEntity<ApiResponse<List<OrderStatsResponse>>> getOrderTrends(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        TimeBucket timeBucket = TimeBucket.of(bucket);
+        LocalDateTime to = end != null ? end : LocalDateTime.now();
+        return ResponseEntity.ok(ApiResponse.success(
+                dashboardService.getOrderTrends(timeBucket, rangeStart(timeBucket, start, to), to)));
+    }
+
+    @GetMapping("/trends/registrations")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getRegistrationTrends(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        TimeBucket timeBucket = TimeBucket.of(bucket);
+        LocalDateTime to = end != null ? end : LocalDateTime.now();
+        return ResponseEntity.ok(ApiResponse.success(
+                dashboardService.getUserRegistrationsData(timeBucket, rangeStart(timeBucket, start, to), to)));
+    }
+
     @GetMapping("/hot-movies")
     public ResponseEntity<ApiResponse<List<MovieResponse>>> getHotMovies(
             @RequestParam(defaultValue = "10") int limit) {
@@ -174,6 +213,18 @@ public class AdminDashboardController {
         }
     }
 
+    // 未指定起始时间时按粒度取默认范围
+    private LocalDateTime rangeStart(TimeBucket bucket, LocalDateTime start, LocalDateTime end) {
+        if (start != null) {
+            return start;
+        }
+        return switch (bucket) {
+            case HOUR -> end.toLocalDate().atStartOfDay();
+            case DAY -> end.minusDays(29);
+            case WEEK -> end.minusWeeks(11);
+        };
+    }
+
     // 辅助方法用于转换Movie到MovieResponse
     private MovieResponse convertToMovieResponse(Movie movie) {
         return new MovieResponse(movie);
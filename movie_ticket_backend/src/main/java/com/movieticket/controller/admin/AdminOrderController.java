@@ -1,8 +1,12 @@
 package com.movieticket.controller.admin;
 
 import com.movieticket.dto.ApiResponse;
+import com.movieticket.dto.CursorPage;
 import com.movieticket.entity.Order;
 import com.movieticket.service.OrderService;
+import com.movieticket.service.stats.TimeBucket;
+import com.movieticket.service.stats.TimeSeriesPoint;
+import com.movieticket.service.stats.TimeSeriesQuery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -12,6 +16,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,6 +28,7 @@ import java.util.Optional;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final TimeSeriesQuery timeSeriesQuery;
 
     @GetMapping
     public ResponseEntity<ApiResponse<Page<Order>>> getOrders(
@@ -60,6 +66,15 @@ public class AdminOrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    // 键集分页，按创建时间倒序，可按状态过滤；after 为上一页返回的 nextCursor，不统计总数
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<Order>>> scrollOrders(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Order.OrderStatus status) {
+        return ResponseEntity.ok(ApiResponse.success(orderService.scrollOrders(status, after, size)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Order>> getOrder(@PathVariable Long id) {
         Optional<Order> orderOpt = orderService.getOrderById(id);
@@ -121,28 +136,28 @@ public class AdminOrderController {
         try {
             OrderStatsResponse stats = new OrderStatsResponse();
 
-            LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
-            LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
-
-            // 获取订单统计信息
-            if (startDateTime != null && endDateTime != null) {
-                stats.setTotalOrders(orderService.getOrderCountByDateRange(startDateTime, endDateTime));
-                stats.setPendingOrders(orderService.getOrderCountByStatusAndDateRange(Order.OrderStatus.PENDING, startDateTime, endDateTime));
-                stats.setPaidOrders(orderService.getOrderCountByStatusAndDateRange(Order.OrderStatus.PAID, startDateTime, endDateTime));
-                stats.setCancelledOrders(orderService.getOrderCountByStatusAndDateRange(Order.OrderStatus.CANCELLED, startDateTime, endDateTime));
-                stats.setRefundedOrders(orderService.getOrderCountByStatusAndDateRange(Order.OrderStatus.REFUNDED, startDateTime, endDateTime));
-            } else {
-                stats.setTotalOrders(orderService.getOrderCountByStatus(null));
-                stats.setPendingOrders(orderService.getOrderCountByStatus(Order.OrderStatus.PENDING));
-                stats.setPaidOrders(orderService.getOrderCountByStatus(Order.OrderStatus.PAID));
-                stats.setCancelledOrders(orderService.getOrderCountByStatus(Order.OrderStatus.CANCELLED));
-                stats.setRefundedOrders(orderService.getOrderCountByStatus(Order.OrderStatus.REFUNDED));
+            // 获取订单统计信息：一次按状态分组，未指定日期时统计全部订单
+            boolean ranged = startDate != null && endDate != null;
+            LocalDateTime startDateTime = ranged ? startDate.atStartOfDay() : null;
+            LocalDateTime endDateTime = ranged ? endDate.plusDays(1).atStartOfDay() : null;
+            TimeSeriesPoint summary = timeSeriesQuery.summarize(startDateTime, endDateTime);
+            stats.setTotalOrders(summary.getTotalOrders());
+            stats.setPendingOrders(summary.getOrders(Order.OrderStatus.PENDING));
+            stats.setPaidOrders(summary.getOrders(Order.OrderStatus.PAID));
+            stats.setCancelledOrders(summary.getOrders(Order.OrderStatus.CANCELLED));
+            stats.setRefundedOrders(summary.getOrders(Order.OrderStatus.REFUNDED));
+            stats.setTotalRevenue(summary.getRevenue().doubleValue());
+
+            // 获取收入统计：本月按天分组，最后一天即今日
+            LocalDateTime now = LocalDateTime.now();
+            List<TimeSeriesPoint> month = timeSeriesQuery.query(TimeBucket.DAY,
+                    now.toLocalDate().withDayOfMonth(1).atStartOfDay(), now);
+            BigDecimal monthlyRevenue = BigDecimal.ZERO;
+            for (TimeSeriesPoint day : month) {
+                monthlyRevenue = monthlyRevenue.add(day.getRevenue());
             }
-
-            // 获取收入统计
-            stats.setTotalRevenue(orderService.getTotalRevenue(startDateTime, endDateTime));
-            stats.setTodayRevenue(orderService.getTodayRevenue());
-            stats.setMonthlyRevenue(orderService.getMonthlyRevenue());
+            stats.setTodayRevenue(month.get(month.size() - 1).getRevenue().doubleValue());
+            stats.setMonthlyRevenue(monthlyRevenue.doubleValue());
 
             return ResponseEntity.ok(ApiResponse.success(stats));
         } catch (Exception e) {
@@ -1,6 +1,7 @@
 package com.movieticket.controller.admin;
 
 import com.movieticket.dto.ApiResponse;
+import com.movieticket.dto.CursorPage;
 import com.movieticket.dto.request.admin.BatchOperationRequest;
 import com.movieticket.dto.response.user.UserProfileResponse;
 import com.movieticket.entity.User;
@@ -104,6 +105,17 @@ public class AdminUserController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    // 键集分页，按注册时间倒序，after 为上一页返回的 nextCursor
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<UserProfileResponse>>> scrollUsers(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<UserProfileResponse> response = userService.scrollUsers(after, size).map(UserProfileResponse::new);
+
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<Page<UserProfileResponse>>> searchUsers(
             @RequestParam String keyword,
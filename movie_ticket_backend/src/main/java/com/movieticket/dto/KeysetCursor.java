@@ -0,0 +1,46 @@
+package com.movieticket.dto;
+
+import com.movieticket.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页的游标：上一页最后一条记录的创建时间和ID
+ * 对外是不透明的字符串，列表按 (createTime, id) 倒序，下一页从该记录之后开始，
+ * 不用 OFFSET 也不统计总数，翻到多深都只扫描一页的索引范围
+ */
+public record KeysetCursor(LocalDateTime createTime, Long id) {
+
+    public String encode() {
+        String raw = createTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析请求中的游标，为空表示第一页
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
+    public static LocalDateTime timeOf(KeysetCursor cursor) {
+        return cursor == null ? null : cursor.createTime();
+    }
+
+    public static Long idOf(KeysetCursor cursor) {
+        return cursor == null ? null : cursor.id();
+    }
+}
@@ -13,6 +13,7 @@ public class OrderStatsResponse {
     
     // 新增字段，用于趋势统计
     private LocalDate date;
+    private String label; // 时间桶标签，按小时统计时包含小时
     private Integer paidOrders;
     private Integer pendingOrders;
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ public class RevenueDataResponse {
     private List<String> labels;
     private List<BigDecimal> data;
     private LocalDate date;
+    private String label; // 时间桶标签，按小时统计时包含小时
     private BigDecimal revenue;
     private Integer orderCount;
     private Integer userCount;
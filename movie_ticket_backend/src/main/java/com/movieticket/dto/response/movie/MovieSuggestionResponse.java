@@ -0,0 +1,17 @@
+package com.movieticket.dto.response.movie;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索框输入联想的一条结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSuggestionResponse {
+    private String text;
+    private String type; // MOVIE 电影标题，PERSON 导演或演员
+    private Long movieId; // 电影标题联想对应的电影，人名联想为空
+}
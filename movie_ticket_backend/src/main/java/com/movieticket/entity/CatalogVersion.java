@@ -0,0 +1,28 @@
+package com.movieticket.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 公开目录的数据版本，后台修改目录数据时在同一事务内加一，各实例按它生成 ETag / Last-Modified
+ */
+@Entity
+@Table(name = "catalog_versions")
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class CatalogVersion extends BaseEntity {
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    public CatalogVersion(String name) {
+        this.name = name;
+    }
+}
@@ -9,7 +9,9 @@ import lombok.EqualsAndHashCode;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_movie_status_time", columnList = "movie_id, status, create_time")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Comment extends BaseEntity {
@@ -0,0 +1,42 @@
+package com.movieticket.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 评论点赞记录，(评论, 用户) 为主键，同一用户对同一评论只有一行；是否点过赞以此表为准
+ */
+@Entity
+@Table(name = "comment_likes")
+@IdClass(CommentLike.Key.class)
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class CommentLike extends BaseEntity {
+
+    @Id
+    @Column(name = "comment_id")
+    private Long commentId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    public CommentLike(Long commentId, Long userId) {
+        this.commentId = commentId;
+        this.userId = userId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long commentId;
+        private Long userId;
+    }
+}
@@ -0,0 +1,50 @@
+package com.movieticket.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 每日统计汇总，订单按创建日期归档，随订单状态变化和用户注册增量维护
+ */
+@Entity
+@Table(name = "daily_stats")
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class DailyStats extends BaseEntity {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "pending_orders", nullable = false)
+    private Long pendingOrders = 0L;
+
+    @Column(name = "paid_orders", nullable = false)
+    private Long paidOrders = 0L;
+
+    @Column(name = "cancelled_orders", nullable = false)
+    private Long cancelledOrders = 0L;
+
+    @Column(name = "refunded_orders", nullable = false)
+    private Long refundedOrders = 0L;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "new_users", nullable = false)
+    private Long newUsers = 0L;
+
+    public DailyStats(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    public long getTotalOrders() {
+        return pendingOrders + paidOrders + cancelledOrders + refundedOrders;
+    }
+}
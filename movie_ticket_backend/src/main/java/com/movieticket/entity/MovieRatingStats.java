@@ -0,0 +1,55 @@
+package com.movieticket.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 电影评分汇总，只统计正常状态的评论，随评论的新增、修改、删除增量维护
+ */
+@Entity
+@Table(name = "movie_rating_stats")
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class MovieRatingStats extends BaseEntity {
+
+    @Id
+    @Column(name = "movie_id")
+    private Long movieId;
+
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount = 0L;
+
+    @Column(name = "rating_sum", nullable = false, precision = 12, scale = 1)
+    private BigDecimal ratingSum = BigDecimal.ZERO;
+
+    @Column(name = "five_star_count", nullable = false)
+    private Long fiveStarCount = 0L; // [4.5, 5.0]
+
+    @Column(name = "four_star_count", nullable = false)
+    private Long fourStarCount = 0L; // [4.0, 4.5)
+
+    @Column(name = "three_star_count", nullable = false)
+    private Long threeStarCount = 0L; // [3.0, 4.0)
+
+    @Column(name = "two_star_count", nullable = false)
+    private Long twoStarCount = 0L; // [2.0, 3.0)
+
+    @Column(name = "one_star_count", nullable = false)
+    private Long oneStarCount = 0L; // [1.0, 2.0)
+
+    public MovieRatingStats(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    /**
+     * 评论平均分，没有评论时为 null
+     */
+    public Double getAverageRating() {
+        return commentCount > 0 ? ratingSum.doubleValue() / commentCount : null;
+    }
+}
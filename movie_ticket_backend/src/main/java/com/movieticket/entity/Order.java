@@ -10,7 +10,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_session_status_time", columnList = "session_id, status, create_time"),
+        @Index(name = "idx_orders_status_time", columnList = "status, create_time"),
+        @Index(name = "idx_orders_user_time", columnList = "user_id, create_time"),
+        @Index(name = "idx_orders_create_time", columnList = "create_time")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Order extends BaseEntity {
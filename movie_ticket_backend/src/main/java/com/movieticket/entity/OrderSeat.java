@@ -0,0 +1,53 @@
+package com.movieticket.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+@Entity
+@Table(name = "order_seats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_seats_session_seat_active",
+                columnNames = {"session_id", "seat_no", "active"}),
+        indexes = {
+                @Index(name = "idx_order_seats_session_state", columnList = "session_id, state, create_time, seat_no, order_id"),
+                @Index(name = "idx_order_seats_order", columnList = "order_id")
+        })
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = {"order", "session"})
+public class OrderSeat extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "订单不能为空")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @NotNull(message = "场次不能为空")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private Session session;
+
+    @NotBlank(message = "座位号不能为空")
+    @Column(name = "seat_no", nullable = false, length = 20)
+    private String seatNo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SeatState state = SeatState.LOCKED;
+
+    // 占用中的座位为 true，释放后置为 NULL。
+    // 唯一索引 (session_id, seat_no, active) 中 NULL 互不冲突，因此只约束仍被占用的座位
+    @Column
+    private Boolean active = true;
+
+    public enum SeatState {
+        LOCKED, BOOKED, RELEASED
+    }
+}
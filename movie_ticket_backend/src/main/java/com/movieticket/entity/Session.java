@@ -9,7 +9,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sessions")
+@Table(name = "sessions", indexes = {
+        @Index(name = "idx_sessions_hall_start", columnList = "hall_id, start_time"),
+        @Index(name = "idx_sessions_movie_status_start", columnList = "movie_id, status, start_time")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Session extends BaseEntity {
@@ -49,4 +52,9 @@ public class Session extends BaseEntity {
 
     @Column(nullable = false)
     private Boolean status = true;
+
+    // 乐观锁版本号，座位计数的批量更新语句也会递增，防止整实体保存覆盖并发的计数变化
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
 }
\ No newline at end of file
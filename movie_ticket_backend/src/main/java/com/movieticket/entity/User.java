@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_create_time", columnList = "create_time")
+})
 @EqualsAndHashCode(callSuper = true)
 //自动生成 equals() 和 hashCode() 方法
 //equals()比较对象的相等性（基于字段值）
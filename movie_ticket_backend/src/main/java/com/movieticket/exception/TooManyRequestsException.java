@@ -0,0 +1,19 @@
+package com.movieticket.exception;
+
+import lombok.Getter;
+
+/**
+ * 服务繁忙，请求被拒绝（HTTP 429），客户端应稍后重试
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final String code;
+    private final int retryAfterSeconds;
+
+    public TooManyRequestsException(String message, int retryAfterSeconds) {
+        super(message);
+        this.code = "TOO_MANY_REQUESTS";
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, String> {
+
+    // 版本加一并更新修改时间，在调用方事务内执行；返回 0 表示版本行还不存在
+    @Modifying
+    @Query("UPDATE CatalogVersion v SET v.version = v.version + 1, v.updateTime = CURRENT_TIMESTAMP WHERE v.name = :name")
+    int bump(@Param("name") String name);
+}
@@ -0,0 +1,24 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.CommentLike;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CommentLikeRepository extends JpaRepository<CommentLike, CommentLike.Key> {
+
+    boolean existsByCommentIdAndUserId(Long commentId, Long userId);
+
+    // 取消点赞，返回删除的行数（0 表示未点过赞）
+    @Modifying
+    @Query("DELETE FROM CommentLike l WHERE l.commentId = :commentId AND l.userId = :userId")
+    int deleteLike(@Param("commentId") Long commentId, @Param("userId") Long userId);
+
+    // 评论删除时一并删除其点赞记录
+    @Modifying
+    @Query("DELETE FROM CommentLike l WHERE l.commentId = :commentId")
+    int deleteByComment(@Param("commentId") Long commentId);
+}
@@ -6,10 +6,13 @@ import com.movieticket.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,11 +23,33 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Page<Comment> findByUserOrderByCreateTimeDesc(User user, Pageable pageable);
 
+    // 键集分页：按 (创建时间, ID) 倒序取游标之后的评论，afterTime 为空时从第一条开始，不统计总数
+    @Query("SELECT c FROM Comment c WHERE c.movie.id = :movieId AND c.status = true AND " +
+            "(:afterTime IS NULL OR c.createTime < :afterTime OR (c.createTime = :afterTime AND c.id < :afterId)) " +
+            "ORDER BY c.createTime DESC, c.id DESC")
+    List<Comment> findByMovieAfter(@Param("movieId") Long movieId,
+                                   @Param("afterTime") LocalDateTime afterTime,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
     Optional<Comment> findByUserAndMovie(User user, Movie movie);
 
     @Query("SELECT c FROM Comment c WHERE c.movie.id = :movieId AND c.status = true ORDER BY c.likeCount DESC, c.createTime DESC")
     List<Comment> findTopCommentsByMovie(@Param("movieId") Long movieId, Pageable pageable);
 
+    @Query("SELECT c.movie.id FROM Comment c WHERE c.id = :id")
+    Optional<Long> findMovieIdById(@Param("id") Long id);
+
+    // 尚有未写库点赞增量的评论中属于该电影的，用于修正热门评论排序
+    @Query("SELECT c FROM Comment c WHERE c.id IN :ids AND c.movie.id = :movieId AND c.status = true")
+    List<Comment> findActiveByMovieAndIdIn(@Param("movieId") Long movieId, @Param("ids") Collection<Long> ids);
+
+    // 点赞数原子增减，不会低于 0
+    @Modifying
+    @Query("UPDATE Comment c SET c.likeCount = CASE WHEN COALESCE(c.likeCount, 0) + :delta < 0 THEN 0 " +
+            "ELSE COALESCE(c.likeCount, 0) + :delta END WHERE c.id IN :ids")
+    int addLikeCount(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
     @Query("SELECT AVG(c.rating) FROM Comment c WHERE c.movie.id = :movieId AND c.status = true")
     Double getAverageRatingByMovie(@Param("movieId") Long movieId);
 
@@ -41,20 +66,28 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     
     @Query("SELECT COUNT(c) FROM Comment c WHERE c.movie.id = :movieId AND c.status = true")
     long countByMovieId(@Param("movieId") Long movieId);
-    
-    // 统计各星级评论数量 (按评分范围)
-    @Query("SELECT COUNT(c) FROM Comment c WHERE c.movie.id = :movieId AND c.rating >= 4.5 AND c.rating <= 5.0 AND c.status = true")
-    long countByMovieIdAndFiveStar(@Param("movieId") Long movieId);
-    
-    @Query("SELECT COUNT(c) FROM Comment c WHERE c.movie.id = :movieId AND c.rating >= 4.0 AND c.rating < 4.5 AND c.status = true")
-    long countByMovieIdAndFourStar(@Param("movieId") Long movieId);
-    
-    @Query("SELECT COUNT(c) FROM Comment c WHERE c.movie.id = :movieId AND c.rating >= 3.0 AND c.rating < 4.0 AND c.status = true")
-    long countByMovieIdAndThreeStar(@Param("movieId") Long movieId);
-    
-    @Query("SELECT COUNT(c) FROM Comment c WHERE c.movie.id = :movieId AND c.rating >= 2.0 AND c.rating < 3.0 AND c.status = true")
-    long countByMovieIdAndTwoStar(@Param("movieId") Long movieId);
-    
-    @Query("SELECT COUNT(c) FROM Comment c WHERE c.movie.id = :movieId AND c.rating >= 1.0 AND c.rating < 2.0 AND c.status = true")
-    long countByMovieIdAndOneStar(@Param("movieId") Long movieId);
-}
\ No newline at end of file
+
+    // 评分分布的条件聚合：电影ID、评论数、评分和、五星到一星的数量，一次扫描得到全部星级
+    String RATING_HISTOGRAM = "SELECT new com.movieticket.repository.RatingHistogram(c.movie.id, COUNT(c), " +
+            "COALESCE(SUM(c.rating), 0), " +
+            "SUM(CASE WHEN c.rating >= 4.5 AND c.rating <= 5.0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.rating >= 4.0 AND c.rating < 4.5 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.rating >= 3.0 AND c.rating < 4.0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.rating >= 2.0 AND c.rating < 3.0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.rating >= 1.0 AND c.rating < 2.0 THEN 1 ELSE 0 END)) " +
+            "FROM Comment c WHERE c.status = true ";
+
+    @Query(RATING_HISTOGRAM + "AND c.movie.id = :movieId GROUP BY c.movie.id")
+    Optional<RatingHistogram> findRatingHistogram(@Param("movieId") Long movieId);
+
+    // 列表页批量统计，一条语句返回多部电影的评分分布（没有评论的电影不返回）
+    @Query(RATING_HISTOGRAM + "AND c.movie.id IN :movieIds GROUP BY c.movie.id")
+    List<RatingHistogram> findRatingHistograms(@Param("movieIds") Collection<Long> movieIds);
+
+    @Query(RATING_HISTOGRAM + "GROUP BY c.movie.id")
+    List<RatingHistogram> findAllRatingHistograms();
+
+    // 用户评论过的电影ID
+    @Query("SELECT DISTINCT c.movie.id FROM Comment c WHERE c.user.id = :userId")
+    List<Long> findMovieIdsByUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,49 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.DailyStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyStatsRepository extends JpaRepository<DailyStats, LocalDate> {
+
+    List<DailyStats> findByStatDateBetweenOrderByStatDate(LocalDate start, LocalDate end);
+
+    // 锁定区间内的汇总行，对账期间的刷写等待对账提交后再执行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM DailyStats d WHERE d.statDate BETWEEN :start AND :end ORDER BY d.statDate")
+    List<DailyStats> findForUpdate(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // 全部日期的累计值：待支付、已支付、已取消、已退款订单数，营收，新增用户数
+    @Query("SELECT COALESCE(SUM(d.pendingOrders), 0), COALESCE(SUM(d.paidOrders), 0), " +
+            "COALESCE(SUM(d.cancelledOrders), 0), COALESCE(SUM(d.refundedOrders), 0), " +
+            "COALESCE(SUM(d.revenue), 0), COALESCE(SUM(d.newUsers), 0) FROM DailyStats d")
+    List<Object[]> sumTotals();
+
+    // 累加订单计数，返回受影响行数（0 表示当天的汇总行还不存在）
+    @Modifying
+    @Query("UPDATE DailyStats d SET d.pendingOrders = d.pendingOrders + :pending, " +
+            "d.paidOrders = d.paidOrders + :paid, d.cancelledOrders = d.cancelledOrders + :cancelled, " +
+            "d.refundedOrders = d.refundedOrders + :refunded, d.revenue = d.revenue + :revenue, " +
+            "d.updateTime = CURRENT_TIMESTAMP WHERE d.statDate = :date")
+    int addOrders(@Param("date") LocalDate date,
+                  @Param("pending") long pending,
+                  @Param("paid") long paid,
+                  @Param("cancelled") long cancelled,
+                  @Param("refunded") long refunded,
+                  @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query("UPDATE DailyStats d SET d.newUsers = d.newUsers + :count, d.updateTime = CURRENT_TIMESTAMP " +
+            "WHERE d.statDate = :date")
+    int addNewUsers(@Param("date") LocalDate date, @Param("count") long count);
+}
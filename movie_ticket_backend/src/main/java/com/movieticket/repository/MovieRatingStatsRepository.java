@@ -0,0 +1,44 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.MovieRatingStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MovieRatingStatsRepository extends JpaRepository<MovieRatingStats, Long> {
+
+    // 累加评论数、评分和与星级计数，返回受影响行数（0 表示该电影的汇总行还不存在）
+    @Modifying
+    @Query("UPDATE MovieRatingStats s SET s.commentCount = s.commentCount + :count, " +
+            "s.ratingSum = s.ratingSum + :sum, s.fiveStarCount = s.fiveStarCount + :five, " +
+            "s.fourStarCount = s.fourStarCount + :four, s.threeStarCount = s.threeStarCount + :three, " +
+            "s.twoStarCount = s.twoStarCount + :two, s.oneStarCount = s.oneStarCount + :one, " +
+            "s.updateTime = CURRENT_TIMESTAMP WHERE s.movieId = :movieId")
+    int addRatings(@Param("movieId") Long movieId,
+                   @Param("count") long count,
+                   @Param("sum") BigDecimal sum,
+                   @Param("five") long five,
+                   @Param("four") long four,
+                   @Param("three") long three,
+                   @Param("two") long two,
+                   @Param("one") long one);
+
+    // 锁定全部汇总行，对账期间评论写入的累加等待对账提交后再执行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM MovieRatingStats s ORDER BY s.movieId")
+    List<MovieRatingStats> findAllForUpdate();
+
+    // 锁定指定电影的汇总行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM MovieRatingStats s WHERE s.movieId IN :movieIds ORDER BY s.movieId")
+    List<MovieRatingStats> findAllByIdForUpdate(@Param("movieIds") Collection<Long> movieIds);
+}
@@ -4,6 +4,8 @@ import com.movieticket.entity.Movie;
 import com.movieticket.entity.Genre;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -19,6 +21,11 @@ public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecific
 
     Page<Movie> findByStatusTrue(Pageable pageable);
 
+    // 列表查询同时取出类型，避免逐条加载 genre
+    @Override
+    @EntityGraph(attributePaths = "genre")
+    Page<Movie> findAll(Specification<Movie> spec, Pageable pageable);
+
     Page<Movie> findByGenreAndStatusTrue(Genre genre, Pageable pageable);
 
     List<Movie> findByIsHotTrueAndStatusTrue();
@@ -52,6 +59,7 @@ public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecific
 
 
     // 热门电影
+    @EntityGraph(attributePaths = "genre")
     List<Movie> findByIsHotAndStatusOrderByRatingDesc(Boolean isHot, Boolean status, Pageable pageable);
 
     // 最新上映电影
@@ -59,21 +67,35 @@ public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecific
 
     // 最新电影且非Hot
 
+    @EntityGraph(attributePaths = "genre")
     List<Movie> findByReleaseDateAfterAndStatusAndIsHotOrderByReleaseDateDesc(LocalDate date, boolean status, boolean isHot, Pageable pageable);
 
 
     // 高分电影
+    @EntityGraph(attributePaths = "genre")
     List<Movie> findByStatusAndRatingGreaterThanEqualOrderByRatingDesc(Boolean status, BigDecimal minRating, Pageable pageable);
 
     // 根据类型查询
+    @EntityGraph(attributePaths = "genre")
     Page<Movie> findByGenreIdAndStatus(Long genreId, Boolean status, Pageable pageable);
 
     // 搜索电影（标题、导演、演员）
     @Query("SELECT m FROM Movie m WHERE " +
             "(m.title LIKE %:keyword% OR m.director LIKE %:keyword% OR m.actors LIKE %:keyword%) " +
             "AND m.status = true")
+    @EntityGraph(attributePaths = "genre")
     Page<Movie> searchMovies(@Param("keyword") String keyword, Pageable pageable);
 
+    // 搜索索引按主键回表，同时取出类型
+    @Override
+    @EntityGraph(attributePaths = "genre")
+    List<Movie> findAllById(Iterable<Long> ids);
+
+    // 构建搜索索引和输入联想用的上架电影字段
+    @Query("SELECT new com.movieticket.repository.MovieSearchText(m.id, m.title, m.originalTitle, m.director, m.actors, " +
+            "m.isHot, m.rating) FROM Movie m WHERE m.status = true")
+    List<MovieSearchText> findSearchTexts();
+
     // 获取所有电影类型（去重）
     @Query("SELECT DISTINCT m.genre.id, m.genre.name FROM Movie m WHERE m.status = true")
     List<Object[]> findDistinctGenres();
@@ -0,0 +1,17 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.Movie;
+
+import java.math.BigDecimal;
+
+/**
+ * 电影中参与搜索和联想的字段，由 MovieRepository 一次投影查询得到，不加载整个实体
+ */
+public record MovieSearchText(Long id, String title, String originalTitle, String director, String actors,
+                              Boolean isHot, BigDecimal rating) {
+
+    public static MovieSearchText of(Movie movie) {
+        return new MovieSearchText(movie.getId(), movie.getTitle(), movie.getOriginalTitle(),
+                movie.getDirector(), movie.getActors(), movie.getIsHot(), movie.getRating());
+    }
+}
@@ -8,12 +8,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +55,24 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 
         Page<Order> findByUserOrderByCreateTimeDesc(User user, Pageable pageable);
 
+        // 键集分页：按 (创建时间, ID) 倒序取游标之后的订单，afterTime 为空时从第一条开始，不统计总数
+        @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND " +
+                        "(:afterTime IS NULL OR o.createTime < :afterTime OR (o.createTime = :afterTime AND o.id < :afterId)) " +
+                        "ORDER BY o.createTime DESC, o.id DESC")
+        List<Order> findByUserAfter(@Param("userId") Long userId,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
+        // 管理端键集分页，status 为空时不按状态过滤
+        @Query("SELECT o FROM Order o WHERE (:status IS NULL OR o.status = :status) AND " +
+                        "(:afterTime IS NULL OR o.createTime < :afterTime OR (o.createTime = :afterTime AND o.id < :afterId)) " +
+                        "ORDER BY o.createTime DESC, o.id DESC")
+        List<Order> findAllAfter(@Param("status") Order.OrderStatus status,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") Long afterId,
+                        Pageable pageable);
+
         @Query("SELECT o FROM Order o WHERE o.user.username LIKE %:keyword% OR o.orderNo LIKE %:keyword%")
         Page<Order> searchOrders(String keyword, Pageable pageable);
 
@@ -78,6 +98,10 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
         @Query("SELECT COUNT(o) FROM Order o WHERE o.session.movie.id = :movieId")
         long countByMovieId(@Param("movieId") Long movieId);
 
+        // 各电影已支付订单数（购票量），返回 {movieId, count}
+        @Query("SELECT o.session.movie.id, COUNT(o) FROM Order o WHERE o.status = 'PAID' GROUP BY o.session.movie.id")
+        List<Object[]> countPaidOrdersByMovie();
+
         // 管理端查询方法
         Page<Order> findByOrderNoContainingIgnoreCase(String orderNo, Pageable pageable);
 
@@ -108,4 +132,59 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
                         LocalDateTime fifteenMinutesAgo);
 
         List<Order> findByStatusAndCreateTimeBefore(Order.OrderStatus orderStatus, LocalDateTime fifteenMinutesAgo);
-}
\ No newline at end of file
+
+        // 待支付订单的ID和创建时间，用于重建超时时间轮
+        @Query("SELECT o.id, o.createTime FROM Order o WHERE o.status = 'PENDING'")
+        List<Object[]> findPendingOrderCreateTimes();
+
+        // 指定订单中仍待支付的ID和创建时间，用于重新登记尚未真正到期的订单
+        @Query("SELECT o.id, o.createTime FROM Order o WHERE o.id IN :ids AND o.status = 'PENDING'")
+        List<Object[]> findPendingOrderCreateTimes(@Param("ids") Collection<Long> ids);
+
+        // 锁定指定订单中已超时的待支付订单：订单ID、场次ID、座位数、座位号、创建时间
+        @Query(value = "SELECT id, session_id, seat_count, seat_numbers, create_time FROM orders " +
+                        "WHERE id IN (:ids) AND status = 'PENDING' AND create_time <= :expireTime ORDER BY id FOR UPDATE",
+                        nativeQuery = true)
+        List<Object[]> lockExpiredOrders(@Param("ids") Collection<Long> ids,
+                        @Param("expireTime") LocalDateTime expireTime);
+
+        // 锁定全部已超时的待支付订单
+        @Query(value = "SELECT id, session_id, seat_count, seat_numbers, create_time FROM orders " +
+                        "WHERE status = 'PENDING' AND create_time <= :expireTime ORDER BY id FOR UPDATE",
+                        nativeQuery = true)
+        List<Object[]> lockAllExpiredOrders(@Param("expireTime") LocalDateTime expireTime);
+
+        // 批量取消待支付订单，返回实际取消的数量
+        @Modifying
+        @Query("UPDATE Order o SET o.status = 'CANCELLED', o.cancelTime = :now, o.updateTime = :now " +
+                        "WHERE o.id IN :ids AND o.status = 'PENDING'")
+        int cancelPendingOrders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+        // 按创建日期和状态统计订单：日期、状态、数量、金额
+        @Query("SELECT CAST(o.createTime AS LocalDate), o.status, COUNT(o), COALESCE(SUM(o.totalPrice), 0) " +
+                        "FROM Order o WHERE o.createTime IS NOT NULL " +
+                        "GROUP BY CAST(o.createTime AS LocalDate), o.status")
+        List<Object[]> countDailyOrdersByStatus();
+
+        // 按天和状态统计区间 [start, end) 内的订单：日期、状态、数量、金额
+        @Query("SELECT CAST(o.createTime AS LocalDate), o.status, COUNT(o), COALESCE(SUM(o.totalPrice), 0) " +
+                        "FROM Order o WHERE o.createTime >= :start AND o.createTime < :end " +
+                        "GROUP BY CAST(o.createTime AS LocalDate), o.status")
+        List<Object[]> countOrdersByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        // 按小时和状态统计区间 [start, end) 内的订单：日期、小时、状态、数量、金额
+        @Query("SELECT CAST(o.createTime AS LocalDate), EXTRACT(HOUR FROM o.createTime), o.status, COUNT(o), " +
+                        "COALESCE(SUM(o.totalPrice), 0) " +
+                        "FROM Order o WHERE o.createTime >= :start AND o.createTime < :end " +
+                        "GROUP BY CAST(o.createTime AS LocalDate), EXTRACT(HOUR FROM o.createTime), o.status")
+        List<Object[]> countOrdersByHour(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        // 按状态统计区间 [start, end) 内的订单：状态、数量、金额
+        @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalPrice), 0) FROM Order o " +
+                        "WHERE o.createTime >= :start AND o.createTime < :end GROUP BY o.status")
+        List<Object[]> countOrdersByStatus(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        // 按状态统计全部订单：状态、数量、金额
+        @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalPrice), 0) FROM Order o GROUP BY o.status")
+        List<Object[]> countOrdersByStatus();
+}
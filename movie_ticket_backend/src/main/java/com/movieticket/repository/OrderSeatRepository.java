@@ -0,0 +1,67 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.OrderSeat;
+import com.movieticket.entity.OrderSeat.SeatState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderSeatRepository extends JpaRepository<OrderSeat, Long> {
+
+    // 场次已售座位号（走 idx_order_seats_session_state 覆盖索引）
+    @Query("SELECT s.seatNo FROM OrderSeat s WHERE s.session.id = :sessionId AND s.state = 'BOOKED'")
+    List<String> findBookedSeatNos(@Param("sessionId") Long sessionId);
+
+    // 场次在指定时间之后锁定、仍未支付的座位号
+    @Query("SELECT s.seatNo FROM OrderSeat s WHERE s.session.id = :sessionId AND s.state = 'LOCKED' " +
+            "AND s.createTime > :since")
+    List<String> findLockedSeatNos(@Param("sessionId") Long sessionId, @Param("since") LocalDateTime since);
+
+    // 场次仍被占用的座位：座位号、订单ID、状态、锁定时间，用于构建内存座位表
+    @Query("SELECT s.seatNo, s.order.id, s.state, s.createTime FROM OrderSeat s " +
+            "WHERE s.session.id = :sessionId AND s.state IN ('LOCKED', 'BOOKED')")
+    List<Object[]> findActiveSeats(@Param("sessionId") Long sessionId);
+
+    @Query("SELECT s.seatNo FROM OrderSeat s WHERE s.order.id = :orderId AND s.active = true")
+    List<String> findActiveSeatNosByOrderId(@Param("orderId") Long orderId);
+
+    // 订单座位状态流转，返回实际变更的座位数
+    @Modifying
+    @Query("UPDATE OrderSeat s SET s.state = :to, s.updateTime = CURRENT_TIMESTAMP " +
+            "WHERE s.order.id = :orderId AND s.state = :from")
+    int updateStateByOrderId(@Param("orderId") Long orderId,
+                             @Param("from") SeatState from,
+                             @Param("to") SeatState to);
+
+    // 释放订单占用的全部座位
+    @Modifying
+    @Query("UPDATE OrderSeat s SET s.state = 'RELEASED', s.active = null, s.updateTime = CURRENT_TIMESTAMP " +
+            "WHERE s.order.id = :orderId AND s.active = true")
+    int releaseByOrderId(@Param("orderId") Long orderId);
+
+    // 批量释放多个订单占用的座位
+    @Modifying
+    @Query("UPDATE OrderSeat s SET s.state = 'RELEASED', s.active = null, s.updateTime = CURRENT_TIMESTAMP " +
+            "WHERE s.order.id IN :orderIds AND s.active = true")
+    int releaseByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // 释放指定座位上已超时的锁定，使新订单可以占用
+    @Modifying
+    @Query("UPDATE OrderSeat s SET s.state = 'RELEASED', s.active = null, s.updateTime = CURRENT_TIMESTAMP " +
+            "WHERE s.session.id = :sessionId AND s.seatNo IN :seatNos AND s.state = 'LOCKED' " +
+            "AND s.createTime <= :expireTime")
+    int releaseExpiredLocks(@Param("sessionId") Long sessionId,
+                            @Param("seatNos") Collection<String> seatNos,
+                            @Param("expireTime") LocalDateTime expireTime);
+
+    @Modifying
+    @Query("DELETE FROM OrderSeat s WHERE s.order.id = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+}
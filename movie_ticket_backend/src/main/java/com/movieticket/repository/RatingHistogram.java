@@ -0,0 +1,18 @@
+package com.movieticket.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * 单部电影正常评论的评分分布，由 CommentRepository 一次条件聚合查询得到
+ * 星级区间：五星 [4.5, 5.0]、四星 [4.0, 4.5)、三星 [3.0, 4.0)、二星 [2.0, 3.0)、一星 [1.0, 2.0)
+ */
+public record RatingHistogram(Long movieId, long count, BigDecimal ratingSum,
+                              long fiveStar, long fourStar, long threeStar, long twoStar, long oneStar) {
+
+    /**
+     * 评论平均分，没有评论时为 null
+     */
+    public Double average() {
+        return count > 0 ? ratingSum.doubleValue() / count : null;
+    }
+}
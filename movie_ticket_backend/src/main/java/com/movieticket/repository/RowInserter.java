@@ -0,0 +1,59 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.BaseEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 汇总行、版本行这类按主键累加的行，第一次累加前先补齐
+ * 用一条 INSERT ... ON CONFLICT DO NOTHING 在调用方事务内插入（MySQL 上为 ON DUPLICATE KEY），
+ * 行已存在时什么也不做；并发插入同一主键时后到的语句等待先到的事务结束，不会报主键冲突，也不占用第二个连接
+ */
+@Repository
+@RequiredArgsConstructor
+public class RowInserter {
+
+    private final EntityManager entityManager;
+    private final Map<Class<?>, Statement> statements = new ConcurrentHashMap<>();
+
+    /**
+     * 主键对应的行不存在时插入 row，返回插入的行数；须在事务中调用
+     */
+    public int insertIfAbsent(BaseEntity row) {
+        LocalDateTime now = LocalDateTime.now();
+        row.setCreateTime(now);
+        row.setUpdateTime(now);
+        Statement statement = statements.computeIfAbsent(row.getClass(), this::prepare);
+        BeanWrapper values = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        Query query = entityManager.createQuery(statement.hql());
+        for (String attribute : statement.attributes()) {
+            query.setParameter(attribute, values.getPropertyValue(attribute));
+        }
+        return query.executeUpdate();
+    }
+
+    // 实体的全部单值属性（含 BaseEntity 的创建、修改时间）都写入，非空列不依赖数据库默认值
+    private Statement prepare(Class<?> entityClass) {
+        EntityType<?> type = entityManager.getMetamodel().entity(entityClass);
+        List<String> attributes = type.getSingularAttributes().stream().map(Attribute::getName).sorted().toList();
+        String hql = "INSERT INTO " + type.getName() + " (" + String.join(", ", attributes) + ") VALUES ("
+                + attributes.stream().map(name -> ":" + name).collect(Collectors.joining(", "))
+                + ") ON CONFLICT DO NOTHING";
+        return new Statement(hql, attributes);
+    }
+
+    private record Statement(String hql, List<String> attributes) {
+    }
+}
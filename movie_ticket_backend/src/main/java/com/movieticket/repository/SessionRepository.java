@@ -5,7 +5,9 @@ import com.movieticket.entity.Movie;
 import com.movieticket.entity.Hall;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,6 +18,8 @@ import java.util.List;
 @Repository
 public interface SessionRepository extends JpaRepository<Session, Long> {
 
+    // 场次列表会被缓存，电影和放映厅一并取出，离开会话后仍可读取
+    @EntityGraph(attributePaths = {"movie", "hall"})
     List<Session> findByMovieAndStatusTrueOrderByStartTime(Movie movie);
 
     List<Session> findByStartTimeBetweenAndStatusTrue(LocalDateTime start, LocalDateTime end);
@@ -74,4 +78,18 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     Page<Session> findPopularSessions(@Param("now") LocalDateTime now, Pageable pageable);
 
     Long countByStartTimeAfterAndStatus(LocalDateTime now, boolean b);
+
+    // 占用场次座位，剩余座位不足时不更新，返回受影响行数
+    @Modifying
+    @Query("UPDATE Session s SET s.bookedSeats = s.bookedSeats + :count, " +
+            "s.availableSeats = s.availableSeats - :count, s.version = s.version + 1 " +
+            "WHERE s.id = :sessionId AND s.availableSeats >= :count")
+    int reserveSeats(@Param("sessionId") Long sessionId, @Param("count") int count);
+
+    // 归还场次座位（订单取消时按场次合并后一次更新），已售数不足时不更新
+    @Modifying
+    @Query("UPDATE Session s SET s.bookedSeats = s.bookedSeats - :count, " +
+            "s.availableSeats = s.availableSeats + :count, s.version = s.version + 1 " +
+            "WHERE s.id = :sessionId AND s.bookedSeats >= :count")
+    int releaseSeats(@Param("sessionId") Long sessionId, @Param("count") int count);
 }
\ No newline at end of file
@@ -42,6 +42,30 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     Page<User> findByStatus(Boolean status, Pageable pageable);
 
+    // 键集分页：按 (注册时间, ID) 倒序取游标之后的用户，afterTime 为空时从第一条开始，不统计总数
+    @Query("SELECT u FROM User u WHERE " +
+            "(:afterTime IS NULL OR u.createTime < :afterTime OR (u.createTime = :afterTime AND u.id < :afterId)) " +
+            "ORDER BY u.createTime DESC, u.id DESC")
+    List<User> findAllAfter(@Param("afterTime") LocalDateTime afterTime,
+                            @Param("afterId") Long afterId,
+                            Pageable pageable);
+
     @Query("SELECT u FROM User u WHERE u.username LIKE %:keyword% OR u.email LIKE %:keyword")
     Page<User> searchUsers(String keyword, Pageable pageable);
-}
\ No newline at end of file
+
+    // 按注册日期统计用户数：日期、数量
+    @Query("SELECT CAST(u.createTime AS LocalDate), COUNT(u) FROM User u " +
+            "WHERE u.createTime IS NOT NULL GROUP BY CAST(u.createTime AS LocalDate)")
+    List<Object[]> countDailyRegistrations();
+
+    // 按天统计区间 [start, end) 内的注册用户：日期、数量
+    @Query("SELECT CAST(u.createTime AS LocalDate), COUNT(u) FROM User u " +
+            "WHERE u.createTime >= :start AND u.createTime < :end GROUP BY CAST(u.createTime AS LocalDate)")
+    List<Object[]> countUsersByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // 按小时统计区间 [start, end) 内的注册用户：日期、小时、数量
+    @Query("SELECT CAST(u.createTime AS LocalDate), EXTRACT(HOUR FROM u.createTime), COUNT(u) FROM User u " +
+            "WHERE u.createTime >= :start AND u.createTime < :end " +
+            "GROUP BY CAST(u.createTime AS LocalDate), EXTRACT(HOUR FROM u.createTime)")
+    List<Object[]> countUsersByHour(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -1,6 +1,8 @@
 package com.movieticket.security;
 
+import com.movieticket.util.JwtClaims;
 import com.movieticket.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -29,26 +31,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = getTokenFromRequest(request);
             
-            if (token != null && jwtUtil.validateToken(token)) {
-                String username = jwtUtil.getUsernameFromToken(token);
-                Long userId = jwtUtil.getUserIdFromToken(token);
-                String role = jwtUtil.getRoleFromToken(token);
+            if (token != null) {
+                // 只解析一次，控制器通过认证主体取用，不必再解析请求头
+                JwtClaims claims = jwtUtil.parseToken(token);
+                String username = claims.username();
+                Long userId = claims.userId();
+                String role = claims.role();
                 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    // 认证主体为 UserPrincipal，控制器通过参数解析器直接取得用户ID
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(
-                            username, 
+                            new UserPrincipal(userId, username, role),
                             null, 
                             Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
                         );
-                    
-                    // 将用户ID存储到认证信息中，便于后续使用
-                    authentication.setDetails(new UserPrincipal(userId, username, role));
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
+        } catch (JwtException | IllegalArgumentException e) {
+            // 令牌无效或已过期，按未登录处理
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
         }
@@ -63,29 +67,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
-
-    // 用户主体信息类
-    public static class UserPrincipal {
-        private final Long userId;
-        private final String username;
-        private final String role;
-
-        public UserPrincipal(Long userId, String username, String role) {
-            this.userId = userId;
-            this.username = username;
-            this.role = role;
-        }
-
-        public Long getUserId() {
-            return userId;
-        }
-
-        public String getUsername() {
-            return username;
-        }
-
-        public String getRole() {
-            return role;
-        }
-    }
-}
\ No newline at end of file
+}
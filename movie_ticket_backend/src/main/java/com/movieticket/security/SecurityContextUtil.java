@@ -7,25 +7,28 @@ import org.springframework.stereotype.Component;
 @Component
 public class SecurityContextUtil {
 
-    public Long getCurrentUserId() {
+    /**
+     * 当前登录用户，未登录时返回 null
+     */
+    public UserPrincipal getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof Long) {
-            return (Long) authentication.getPrincipal();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
         }
         return null;
     }
 
+    public Long getCurrentUserId() {
+        UserPrincipal principal = getCurrentUser();
+        return principal == null ? null : principal.getUserId();
+    }
+
     public String getCurrentUsername() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.User) {
-            return ((org.springframework.security.core.userdetails.User) authentication.getPrincipal()).getUsername();
-        }
-        return null;
+        UserPrincipal principal = getCurrentUser();
+        return principal == null ? null : principal.getUsername();
     }
 
     public boolean isAuthenticated() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication != null && authentication.isAuthenticated() &&
-                !(authentication.getPrincipal() instanceof String && "anonymousUser".equals(authentication.getPrincipal()));
+        return getCurrentUser() != null;
     }
-}
\ No newline at end of file
+}
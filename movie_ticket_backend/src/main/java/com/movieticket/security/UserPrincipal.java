@@ -0,0 +1,43 @@
+package com.movieticket.security;
+
+import java.security.Principal;
+
+/**
+ * 当前登录用户，由 JwtAuthenticationFilter 从令牌中解析后作为认证主体保存
+ * 控制器方法直接声明 UserPrincipal 参数即可取得，不必再解析 Authorization 请求头
+ */
+public class UserPrincipal implements Principal {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+
+    public UserPrincipal(Long userId, String username, String role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    // Authentication.getName() 返回用户名
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
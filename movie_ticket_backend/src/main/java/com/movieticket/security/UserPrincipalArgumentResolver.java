@@ -0,0 +1,35 @@
+package com.movieticket.security;
+
+import com.movieticket.exception.AuthException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 为控制器方法的 UserPrincipal 参数注入当前登录用户，未登录时抛出 AuthException（401）
+ */
+@Component
+@RequiredArgsConstructor
+public class UserPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final SecurityContextUtil securityContextUtil;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return UserPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        UserPrincipal principal = securityContextUtil.getCurrentUser();
+        if (principal == null) {
+            throw new AuthException("未登录或登录已过期");
+        }
+        return principal;
+    }
+}
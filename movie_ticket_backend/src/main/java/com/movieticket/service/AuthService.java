@@ -2,6 +2,8 @@ package com.movieticket.service;
 
 import com.movieticket.entity.User;
 import com.movieticket.repository.UserRepository;
+import com.movieticket.service.auth.PasswordVerifier;
+import com.movieticket.service.stats.DailyStatsRecorder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -9,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +19,9 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final DailyStatsRecorder dailyStatsRecorder;
+    private final PasswordVerifier passwordVerifier;
+    private final UserService userService;
 
     @Transactional
     public User register(User user) {
@@ -37,28 +43,36 @@ public class AuthService {
         user.setStatus(true);
         // createTime 和 updateTime 由 JPA Auditing 自动设置，无需手动设置
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        dailyStatsRecorder.userRegistered(savedUser);
+        return savedUser;
     }
 
-    @Transactional
-    public Optional<User> login(String username, String password) {
+    /**
+     * 登录校验：查询用户在调用线程完成，BCrypt 校验交给 PasswordVerifier 线程池，
+     * 最后登录时间经 UserService 记录（合并后批量写库）
+     */
+    public CompletableFuture<Optional<User>> login(String username, String password) {
         Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            // 检查用户状态
-            if (!user.getStatus()) {
-                throw new RuntimeException("账号已被禁用");
-            }
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        User user = userOpt.get();
+        // 检查用户状态
+        if (!user.getStatus()) {
+            throw new RuntimeException("账号已被禁用");
+        }
 
-            // 验证密码
-            if (passwordEncoder.matches(password, user.getPassword())) {
-                // 更新最后登录时间
-                user.setLastLoginTime(LocalDateTime.now());
-                userRepository.save(user);
-                return Optional.of(user);
+        // 验证密码
+        return passwordVerifier.matches(password, user.getPassword()).thenApply(matched -> {
+            if (!matched) {
+                return Optional.empty();
             }
-        }
-        return Optional.empty();
+            // 更新最后登录时间，返回的用户带上本次登录时间
+            user.setLastLoginTime(LocalDateTime.now());
+            userService.updateLastLoginTime(user.getId());
+            return Optional.of(user);
+        });
     }
 
     public boolean checkUsernameExists(String username) {
@@ -1,26 +1,35 @@
 package com.movieticket.service;
 
+import com.movieticket.dto.CursorPage;
 import com.movieticket.dto.response.comment.CommentStatsResponse;
 import com.movieticket.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CommentService {
     Comment createComment(Comment comment);
     Comment updateComment(Comment comment);
-    void deleteComment(Long id);
+    // 返回被删除评论所属电影的ID
+    Long deleteComment(Long id);
     Optional<Comment> getCommentById(Long id);
     Page<Comment> getCommentsByMovie(Long movieId, Pageable pageable);
+    CursorPage<Comment> scrollCommentsByMovie(Long movieId, String after, int size);
     Page<Comment> getCommentsByUser(Long userId, Pageable pageable);
     List<Comment> getTopCommentsByMovie(Long movieId, int limit);
     Optional<Comment> getCommentByUserAndMovie(Long userId, Long movieId);
-    void likeComment(Long commentId);
+    // 点赞、取消点赞，重复点赞或未点赞时返回 false
+    boolean likeComment(Long commentId, Long userId);
+    boolean unlikeComment(Long commentId, Long userId);
     Double getAverageRatingByMovie(Long movieId);
     long getCommentCountByMovie(Long movieId);
     // 评论统计相关方法
     CommentStatsResponse getCommentStatsByMovie(Long movieId);
+    // 批量获取多部电影的评论统计（列表页使用），按电影ID返回
+    Map<Long, CommentStatsResponse> getCommentStatsByMovies(Collection<Long> movieIds);
     
     // 获取最新评论
     List<Comment> getLatestCommentsByMovie(Long movieId, int limit);
@@ -1,13 +1,19 @@
 package com.movieticket.service;
 
 import com.movieticket.dto.response.admin.*;
+import com.movieticket.service.stats.SectionFanOut;
+import com.movieticket.service.stats.TimeBucket;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 
 public interface DashboardService {
     DashboardStatsResponse getDashboardStats();
 
+    // 仪表盘各统计项的耗时指标
+    Map<String, SectionFanOut.SectionStats> getSectionStats();
+
     // 获取今日新增用户
     Long getNewUsersToday();
 
@@ -38,6 +44,15 @@ public interface DashboardService {
     // 获取用户注册数据
     Map<String, Long> getUserRegistrationsData();
 
+    // 按时间粒度获取营收数据
+    List<RevenueDataResponse> getRevenueData(TimeBucket bucket, LocalDateTime start, LocalDateTime end);
+
+    // 按时间粒度获取订单趋势
+    List<OrderStatsResponse> getOrderTrends(TimeBucket bucket, LocalDateTime start, LocalDateTime end);
+
+    // 按时间粒度获取用户注册数据
+    Map<String, Long> getUserRegistrationsData(TimeBucket bucket, LocalDateTime start, LocalDateTime end);
+
     // 获取活跃场次数量（模拟）
     Integer getActiveSessionsCount();
 
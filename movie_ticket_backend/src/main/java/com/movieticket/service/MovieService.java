@@ -3,6 +3,7 @@ package com.movieticket.service;
 import com.movieticket.dto.request.movie.MovieQueryRequest;
 import com.movieticket.dto.response.admin.MovieStatsResponse;
 import com.movieticket.dto.response.movie.MovieResponse;
+import com.movieticket.dto.response.movie.MovieSuggestionResponse;
 import com.movieticket.entity.Movie;
 import org.apache.poi.sl.draw.geom.GuideIf;
 import org.springframework.data.domain.Page;
@@ -38,6 +39,9 @@ public interface MovieService {
 
     Page<MovieResponse> searchMovies(String keyword, Pageable pageable);
 
+    // 搜索框输入联想
+    List<MovieSuggestionResponse> suggest(String prefix, int limit);
+
     Page<MovieResponse> getMoviesByGenre(Long genreId, Pageable pageable);
 
 
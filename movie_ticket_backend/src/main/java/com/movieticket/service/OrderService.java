@@ -1,12 +1,15 @@
 package com.movieticket.service;
 
+import com.movieticket.dto.CursorPage;
 import com.movieticket.entity.Order;
+import com.movieticket.service.order.ExpiryResult;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +35,11 @@ public interface OrderService {
 
     Page<Order> getOrdersByUserAndStatus(Long userId, Order.OrderStatus status, Pageable pageable);
 
+    // 键集分页，after 为上一页返回的游标，为空时取第一页
+    CursorPage<Order> scrollOrdersByUser(Long userId, String after, int size);
+
+    CursorPage<Order> scrollOrders(Order.OrderStatus status, String after, int size);
+
     List<Order> getPendingOrdersByUser(Long userId);
 
     Page<Order> getAllOrders(Pageable pageable);
@@ -76,5 +84,8 @@ public interface OrderService {
 
     // 超时取消订单（定时任务调用）
     @Transactional
-    void cancelExpiredOrders();
+    ExpiryResult cancelExpiredOrders();
+
+    // 取消指定的超时订单（超时时间轮批量调用）
+    ExpiryResult cancelExpiredOrders(Collection<Long> orderIds);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.movieticket.service;
 
+import com.movieticket.dto.CursorPage;
 import com.movieticket.dto.UserActivityResponse;
 import com.movieticket.dto.UserStatsResponse;
 import com.movieticket.entity.User;
@@ -18,6 +19,7 @@ public interface UserService {
     Optional<User> getUserById(Long id);
     Optional<User> getUserByUsername(String username);
     Page<User> getAllUsers(Pageable pageable);
+    CursorPage<User> scrollUsers(String after, int size);
     Page<User> searchUsers(String keyword, Pageable pageable);
     User  changeUserStatus(Long id,Boolean status);//Boolean允许接收null可能会出问题
     long getTotalUserCount();
@@ -0,0 +1,101 @@
+package com.movieticket.service.auth;
+
+import com.movieticket.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录密码校验线程池
+ * BCrypt 校验刻意很慢，放在独立的有界线程池中执行，不占用 Tomcat 请求线程；
+ * 排队数达到上限时立即拒绝（429），登录高峰不会拖垮选座、下单等其他请求
+ */
+@Slf4j
+@Component
+public class PasswordVerifier {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder(); // 校验耗时合计
+    private final LongAdder waitNanos = new LongAdder(); // 排队耗时合计
+    private final LongAccumulator maxVerifyNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder,
+                            @Value("${app.auth.verify-threads:0}") int threads,
+                            @Value("${app.auth.verify-queue-capacity:100}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 异步校验密码；线程池排队已满时抛出 TooManyRequestsException
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        long submittedAt = System.nanoTime();
+        try {
+            CompletableFuture<Boolean> result = CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                waitNanos.add(startedAt - submittedAt);
+                try {
+                    return passwordEncoder.matches(rawPassword, encodedPassword);
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    verified.increment();
+                    verifyNanos.add(elapsed);
+                    maxVerifyNanos.accumulate(elapsed);
+                }
+            }, executor);
+            maxQueueDepth.accumulate(executor.getQueue().size());
+            return result;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("登录人数过多，请稍后重试", 1);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Stats stats() {
+        long count = verified.sum();
+        return new Stats(executor.getMaximumPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                queueCapacity, maxQueueDepth.get(), count, rejected.sum(),
+                count == 0 ? 0.0 : verifyNanos.sum() / 1_000_000.0 / count,
+                maxVerifyNanos.get() / 1_000_000.0,
+                count == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / count);
+    }
+
+    /**
+     * 线程池指标快照，耗时单位为毫秒
+     */
+    public record Stats(int threads, int active, int queued, int queueCapacity, long maxQueued,
+                        long verified, long rejected, double averageVerifyMillis, double maxVerifyMillis,
+                        double averageWaitMillis) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.movieticket.service.cache;
+
+import com.movieticket.service.seat.TransactionHooks;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 有容量上限和过期时间的本地缓存
+ * 条目按访问顺序排列，超出容量时淘汰最久未访问的条目；写入超过 ttl 的条目在读取时视为未命中并移除。
+ * 清除操作在当前事务提交后才执行，避免提交前被并发读取重新缓存旧数据。
+ * 只缓存目录类的小数据，读写都在同一把锁内完成。
+ * 写入时保存一份副本、每次命中再返回一份副本（见 CatalogCopies），不同调用方不会拿到同一个可变对象
+ */
+public class BoundedCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder(); // 超出容量被淘汰
+    private final LongAdder expirations = new LongAdder(); // 过期被移除
+    private final LongAdder invalidations = new LongAdder(); // 数据变更时主动清除
+
+    public BoundedCache(String name, int maxEntries, long ttlSeconds) {
+        this(name, maxEntries, ttlSeconds, System::nanoTime);
+    }
+
+    BoundedCache(String name, int maxEntries, long ttlSeconds, LongSupplier clock) {
+        super(false);
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        long now = clock.getAsLong();
+        Object value;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.writtenAt >= ttlNanos) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            value = entry.value;
+        }
+        return CatalogCopies.copy(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        // 加载在锁外进行，并发未命中时可能重复加载，结果相同，后写入的覆盖先写入的
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Entry entry = new Entry(toStoreValue(CatalogCopies.copy(value)), clock.getAsLong());
+        synchronized (entries) {
+            entries.put(key, entry);
+            Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (entries) {
+                if (entries.remove(key) != null) {
+                    invalidations.increment();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (entries) {
+                invalidations.add(entries.size());
+                entries.clear();
+            }
+        });
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(size(), maxEntries, ttlNanos / 1_000_000_000L, hits.sum(), misses.sum(),
+                evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    /**
+     * 缓存指标快照，hitRate 为命中次数占读取次数的比例
+     */
+    public record CacheStats(int size, int maxEntries, long ttlSeconds, long hits, long misses,
+                             long evictions, long expirations, long invalidations) {
+
+        public double getHitRate() {
+            long reads = hits + misses;
+            return reads == 0 ? 0.0 : (double) hits / reads;
+        }
+    }
+
+    private record Entry(Object value, long writtenAt) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.movieticket.service.cache;
+
+/**
+ * 公开目录接口使用的缓存名称
+ */
+public final class CacheNames {
+
+    public static final String MOVIE_DETAIL = "movieDetail"; // 电影详情，键为电影ID
+    public static final String MOVIE_LISTS = "movieLists"; // 热门/最新/高分电影列表，键为 "列表:条数"
+    public static final String ACTIVE_GENRES = "activeGenres"; // 启用的电影类型
+    public static final String TOP_NEWS = "topNews"; // 置顶新闻
+    public static final String SESSIONS_BY_MOVIE = "sessionsByMovie"; // 电影的场次列表，键为电影ID
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,52 @@
+package com.movieticket.service.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 目录缓存的管理器，每个缓存都是 BoundedCache；未预先声明的缓存按默认容量和过期时间创建
+ */
+public class CatalogCacheManager implements CacheManager {
+
+    private final int defaultMaxEntries;
+    private final long defaultTtlSeconds;
+    private final Map<String, BoundedCache> caches = new ConcurrentHashMap<>();
+
+    public CatalogCacheManager(int defaultMaxEntries, long defaultTtlSeconds) {
+        this.defaultMaxEntries = defaultMaxEntries;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+    }
+
+    /**
+     * 预先声明容量或过期时间与默认值不同的缓存
+     */
+    public CatalogCacheManager register(String name, int maxEntries, long ttlSeconds) {
+        caches.put(name, new BoundedCache(name, maxEntries, ttlSeconds));
+        return this;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, key -> new BoundedCache(key, defaultMaxEntries, defaultTtlSeconds));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 各缓存的命中、淘汰等指标，按名称排序
+     */
+    public Map<String, BoundedCache.CacheStats> getCacheStats() {
+        Map<String, BoundedCache.CacheStats> stats = new TreeMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.stats()));
+        return stats;
+    }
+}
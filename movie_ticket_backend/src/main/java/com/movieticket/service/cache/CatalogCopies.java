@@ -0,0 +1,72 @@
+package com.movieticket.service.cache;
+
+import com.movieticket.entity.BaseEntity;
+import org.hibernate.Hibernate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.beans.PropertyDescriptor;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 目录缓存值的复制
+ * 缓存中的实体和 DTO 都是可变对象，写入和读取时各复制一份，调用方修改拿到的列表或对象不会影响缓存和其他调用方。
+ * 列表复制为新列表；实体和 DTO 按属性复制，已加载的关联实体一并复制，未加载的延迟代理保持原样（脱离会话后不可读取）
+ */
+final class CatalogCopies {
+
+    private CatalogCopies() {
+    }
+
+    static Object copy(Object value) {
+        return copy(value, new IdentityHashMap<>());
+    }
+
+    private static Object copy(Object value, Map<Object, Object> copied) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.map(item -> copy(item, copied));
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                list.add(copy(item, copied));
+            }
+            return list;
+        }
+        if (!Hibernate.isInitialized(value)) {
+            return value;
+        }
+        Object source = Hibernate.unproxy(value);
+        Object existing = copied.get(source);
+        if (existing != null) {
+            return existing;
+        }
+        Object target = BeanUtils.instantiateClass(source.getClass());
+        copied.put(source, target);
+        BeanWrapper from = PropertyAccessorFactory.forBeanPropertyAccess(source);
+        BeanWrapper to = PropertyAccessorFactory.forBeanPropertyAccess(target);
+        for (PropertyDescriptor property : from.getPropertyDescriptors()) {
+            String name = property.getName();
+            if (from.isReadableProperty(name) && to.isWritableProperty(name)) {
+                Object propertyValue = from.getPropertyValue(name);
+                to.setPropertyValue(name, propertyValue instanceof BaseEntity ? copy(propertyValue, copied) : propertyValue);
+            }
+        }
+        return target;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?> || value instanceof Temporal;
+    }
+}
@@ -0,0 +1,78 @@
+package com.movieticket.service.cache;
+
+import com.movieticket.entity.CatalogVersion;
+import com.movieticket.repository.CatalogVersionRepository;
+import com.movieticket.repository.RowInserter;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * 公开目录的版本号，用于条件请求（ETag / Last-Modified）
+ * 版本保存在 catalog_versions 表中，后台修改目录数据时在同一事务内加一，各实例读取同一行：
+ * 任一实例提交的修改对所有实例立即可见，修改回滚时版本也一起回滚。
+ * 只有每条写入路径都会推进版本的数据才能作为条件请求的依据
+ */
+@Component
+public class CatalogVersions implements ApplicationRunner {
+
+    public enum Catalog {
+        GENRES // 启用的电影类型，只由后台的类型管理修改
+    }
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final RowInserter rowInserter;
+    private final PlatformTransactionManager transactionManager;
+
+    public CatalogVersions(CatalogVersionRepository catalogVersionRepository,
+                           RowInserter rowInserter,
+                           PlatformTransactionManager transactionManager) {
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.rowInserter = rowInserter;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * 启动时补齐缺少的版本行
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Catalog catalog : Catalog.values()) {
+                rowInserter.insertIfAbsent(new CatalogVersion(catalog.name()));
+            }
+        });
+    }
+
+    /**
+     * 该类数据已修改，在调用方事务内执行
+     */
+    public void changed(Catalog catalog) {
+        if (catalogVersionRepository.bump(catalog.name()) == 0) {
+            rowInserter.insertIfAbsent(new CatalogVersion(catalog.name()));
+            catalogVersionRepository.bump(catalog.name());
+        }
+    }
+
+    /**
+     * 当前版本；版本行不存在时为 0，修改时间未知
+     */
+    public Version current(Catalog catalog) {
+        CatalogVersion row = catalogVersionRepository.findById(catalog.name()).orElse(null);
+        long version = row != null ? row.getVersion() : 0L;
+        long lastModified = row != null && row.getUpdateTime() != null
+                ? row.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1L;
+        return new Version("W/\"" + catalog.name().toLowerCase(Locale.ROOT) + "-" + version + "\"", lastModified);
+    }
+
+    /**
+     * 弱 ETag 和最近修改时间（毫秒，未知时为 -1）
+     */
+    public record Version(String etag, long lastModified) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.movieticket.service.comment;
+
+import com.movieticket.entity.CommentLike;
+import com.movieticket.repository.CommentLikeRepository;
+import com.movieticket.repository.RowInserter;
+import com.movieticket.service.seat.TransactionHooks;
+import com.movieticket.service.writebehind.WriteBehindBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 评论点赞
+ * 点赞记录保存在 comment_likes 表，(评论, 用户) 为主键：点赞用一条 INSERT ... ON CONFLICT DO NOTHING，
+ * 取消点赞删除该行，由影响行数判断是否重复点赞或未点过赞，重启后、其他实例上同样有效。
+ * 点赞数的增减在事务提交后交给 WriteBehindBuffer，按评论在内存中累加后批量执行 like_count = like_count + 增量，
+ * 不再逐次加载和保存评论；另按电影记下点赞数有变化的评论，热门评论只需补查本电影尚未写库的评论。
+ * 查询是否点过赞时先查本实例缓存的点赞用户（UserIdSet），按评论数上限淘汰最久未访问的评论；
+ * 缓存只记已确认的点赞，其他实例上的取消点赞要等条目被淘汰后才能看到
+ */
+@Component
+public class CommentLikes {
+
+    private static final int MAX_CACHED_USERS = 10_000; // 一条评论最多缓存的点赞用户数，超出后只查表
+
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final RowInserter rowInserter;
+    private final CommentLikeRepository commentLikeRepository;
+    private final Map<Long, UserIdSet> likedUsers; // 评论ID -> 已点赞的用户
+    // 按电影记下点赞数有变化、可能尚未写库的评论，查询时移出已写库的；电影条目不回收，数量以电影数为上限
+    private final ConcurrentHashMap<Long, Set<Long>> changedByMovie = new ConcurrentHashMap<>();
+
+    public CommentLikes(WriteBehindBuffer writeBehindBuffer,
+                        RowInserter rowInserter,
+                        CommentLikeRepository commentLikeRepository,
+                        @Value("${app.comment.liked-cache-comments:1024}") int cachedComments) {
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.rowInserter = rowInserter;
+        this.commentLikeRepository = commentLikeRepository;
+        this.likedUsers = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserIdSet> eldest) {
+                return size() > cachedComments;
+            }
+        });
+    }
+
+    /**
+     * 点赞，已点过赞时返回 false；须在事务中调用，提交后才计入点赞数
+     */
+    public boolean like(Long movieId, Long commentId, Long userId) {
+        if (rowInserter.insertIfAbsent(new CommentLike(commentId, userId)) == 0) {
+            remember(commentId, userId);
+            return false;
+        }
+        TransactionHooks.afterCommit(() -> {
+            remember(commentId, userId);
+            addLikes(movieId, commentId, 1);
+        });
+        return true;
+    }
+
+    /**
+     * 取消点赞，未点过赞时返回 false；须在事务中调用，提交后才计入点赞数
+     */
+    public boolean unlike(Long movieId, Long commentId, Long userId) {
+        if (commentLikeRepository.deleteLike(commentId, userId) == 0) {
+            forgetUser(commentId, userId);
+            return false;
+        }
+        TransactionHooks.afterCommit(() -> {
+            forgetUser(commentId, userId);
+            addLikes(movieId, commentId, -1);
+        });
+        return true;
+    }
+
+    public boolean hasLiked(Long commentId, Long userId) {
+        UserIdSet users = likedUsers.get(commentId);
+        if (users != null && users.contains(userId)) {
+            return true;
+        }
+        boolean liked = commentLikeRepository.existsByCommentIdAndUserId(commentId, userId);
+        if (liked) {
+            remember(commentId, userId);
+        }
+        return liked;
+    }
+
+    /**
+     * 该电影下有尚未写库点赞增量的评论
+     */
+    public Set<Long> pendingCommentIds(Long movieId) {
+        Set<Long> changed = changedByMovie.get(movieId);
+        if (changed == null) {
+            return Set.of();
+        }
+        Set<Long> pending = new HashSet<>();
+        for (Long commentId : changed) {
+            if (writeBehindBuffer.pendingCommentLikes(commentId) != 0) {
+                pending.add(commentId);
+                continue;
+            }
+            // 已写库，移出后再查一次：这期间的新点赞先累加再登记，不会被漏掉
+            changed.remove(commentId);
+            if (writeBehindBuffer.pendingCommentLikes(commentId) != 0) {
+                changed.add(commentId);
+                pending.add(commentId);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 评论删除时在同一事务中删除其点赞记录
+     */
+    public void forget(Long movieId, Long commentId) {
+        commentLikeRepository.deleteByComment(commentId);
+        likedUsers.remove(commentId);
+        Set<Long> changed = changedByMovie.get(movieId);
+        if (changed != null) {
+            changed.remove(commentId);
+        }
+    }
+
+    /**
+     * 缓存中的评论数
+     */
+    int cachedComments() {
+        return likedUsers.size();
+    }
+
+    private void remember(Long commentId, Long userId) {
+        UserIdSet users = likedUsers.computeIfAbsent(commentId, key -> new UserIdSet());
+        if (users.size() < MAX_CACHED_USERS) {
+            users.add(userId);
+        }
+    }
+
+    private void forgetUser(Long commentId, Long userId) {
+        UserIdSet users = likedUsers.get(commentId);
+        if (users != null) {
+            users.remove(userId);
+        }
+    }
+
+    private void addLikes(Long movieId, Long commentId, long delta) {
+        writeBehindBuffer.addCommentLikes(commentId, delta);
+        changedByMovie.computeIfAbsent(movieId, key -> ConcurrentHashMap.newKeySet()).add(commentId);
+    }
+}
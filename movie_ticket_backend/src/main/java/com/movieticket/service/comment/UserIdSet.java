@@ -0,0 +1,98 @@
+package com.movieticket.service.comment;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 紧凑的用户ID集合：按ID分成 16 段，每段是升序 long 数组 + 二分查找，每个ID只占 8 字节，不装箱也没有哈希桶。
+ * 各段分别加锁，同一条评论上不同用户的点赞大多落在不同段，互不阻塞，插入和删除也只移动本段的数组。
+ * 段在第一次写入时创建，点赞少的评论只占用很少的内存
+ */
+class UserIdSet {
+
+    private static final int STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * 加入用户，已存在时返回 false
+     */
+    boolean add(long userId) {
+        int index = indexOf(userId);
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new Stripe());
+            stripe = stripes.get(index);
+        }
+        return stripe.add(userId);
+    }
+
+    /**
+     * 移除用户，不存在时返回 false
+     */
+    boolean remove(long userId) {
+        Stripe stripe = stripes.get(indexOf(userId));
+        return stripe != null && stripe.remove(userId);
+    }
+
+    boolean contains(long userId) {
+        Stripe stripe = stripes.get(indexOf(userId));
+        return stripe != null && stripe.contains(userId);
+    }
+
+    int size() {
+        int size = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    // 连续的用户ID轮流落在各段
+    private static int indexOf(long userId) {
+        return Long.hashCode(userId) & (STRIPES - 1);
+    }
+
+    private static final class Stripe {
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized boolean add(long userId) {
+            int index = Arrays.binarySearch(ids, 0, size, userId);
+            if (index >= 0) {
+                return false;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = userId;
+            size++;
+            return true;
+        }
+
+        synchronized boolean remove(long userId) {
+            int index = Arrays.binarySearch(ids, 0, size, userId);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        synchronized boolean contains(long userId) {
+            return Arrays.binarySearch(ids, 0, size, userId) >= 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
@@ -1,22 +1,40 @@
 package com.movieticket.service.impl;
 
+import com.movieticket.dto.CursorPage;
+import com.movieticket.dto.KeysetCursor;
 import com.movieticket.dto.response.comment.CommentStatsResponse;
 import com.movieticket.entity.Comment;
 import com.movieticket.entity.Movie;
+import com.movieticket.entity.MovieRatingStats;
 import com.movieticket.entity.User;
 import com.movieticket.repository.CommentRepository;
+import com.movieticket.repository.MovieRatingStatsRepository;
 import com.movieticket.service.CommentService;
 import com.movieticket.service.MovieService;
 import com.movieticket.service.UserService;
+import com.movieticket.service.cache.CacheNames;
+import com.movieticket.service.comment.CommentLikes;
+import com.movieticket.service.stats.MovieRatingRecorder;
+import com.movieticket.service.writebehind.WriteBehindBuffer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.math.BigDecimal;
 
 @Service
@@ -27,7 +45,15 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final UserService userService;
     private final MovieService movieService;
+    private final MovieRatingStatsRepository movieRatingStatsRepository;
+    private final MovieRatingRecorder movieRatingRecorder;
+    private final CommentLikes commentLikes;
+    private final WriteBehindBuffer writeBehindBuffer;
 
+    // 评论改变电影详情和电影列表中的评论平均分
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#result.movie.id"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public Comment createComment(Comment comment) {
         // 验证用户和电影存在
@@ -47,6 +73,7 @@ public class CommentServiceImpl implements CommentService {
         comment.setStatus(true);
 
         Comment savedComment = commentRepository.save(comment);
+        movieRatingRecorder.commentAdded(savedComment);
 
         // NOTE: 不再在创建评论时自动修改 Movie 实体的评分。
         // 后端原先会调用 movieService.updateMovieRating(movie.getId())
@@ -56,29 +83,40 @@ public class CommentServiceImpl implements CommentService {
         return savedComment;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#result.movie.id"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public Comment updateComment(Comment comment) {
         Comment existingComment = commentRepository.findById(comment.getId())
                 .orElseThrow(() -> new RuntimeException("评论不存在"));
 
+        BigDecimal oldRating = existingComment.getRating();
         existingComment.setContent(comment.getContent());
         existingComment.setRating(comment.getRating());
 
         Comment savedComment = commentRepository.save(existingComment);
+        movieRatingRecorder.ratingChanged(savedComment, oldRating);
 
         // NOTE: 不在更新评论时更改电影评分（保持 movie 表不被自动修改）。
         return savedComment;
     }
 
+    // 返回评论所属电影的ID，只清除这部电影的详情缓存
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#result"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
-    public void deleteComment(Long id) {
+    public Long deleteComment(Long id) {
         Comment comment = commentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("评论不存在"));
 
-        Long movieId = comment.getMovie().getId();
         commentRepository.delete(comment);
+        movieRatingRecorder.commentRemoved(comment);
+        commentLikes.forget(comment.getMovie().getId(), id);
 
         // NOTE: 不在删除评论时更新电影评分，以避免修改 movie 表。
+        return comment.getMovie().getId();
     }
 
     @Override
@@ -95,6 +133,18 @@ public class CommentServiceImpl implements CommentService {
         return commentRepository.findByMovieAndStatusTrueOrderByCreateTimeDesc(movie, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Comment> scrollCommentsByMovie(Long movieId, String after, int size) {
+        Movie movie = movieService.getMovieById(movieId)
+                .orElseThrow(() -> new RuntimeException("电影不存在"));
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        int limit = CursorPage.clampSize(size);
+        List<Comment> rows = commentRepository.findByMovieAfter(movie.getId(), KeysetCursor.timeOf(cursor),
+                KeysetCursor.idOf(cursor), CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, comment -> new KeysetCursor(comment.getCreateTime(), comment.getId()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<Comment> getCommentsByUser(Long userId, Pageable pageable) {
@@ -107,7 +157,27 @@ public class CommentServiceImpl implements CommentService {
     @Transactional(readOnly = true)
     public List<Comment> getTopCommentsByMovie(Long movieId, int limit) {
         Pageable pageable = PageRequest.of(0, limit);// 获取前limit条数据，从0页开始
-        return commentRepository.findTopCommentsByMovie(movieId, pageable);
+        List<Comment> top = commentRepository.findTopCommentsByMovie(movieId, pageable);
+        Set<Long> pendingIds = commentLikes.pendingCommentIds(movieId);
+        if (pendingIds.isEmpty()) {
+            return top;
+        }
+        // 点赞增量尚未写库：补上有增量的评论，在副本上加上增量后重新排序，不改动受管实体
+        Map<Long, Comment> candidates = new LinkedHashMap<>();
+        top.forEach(comment -> candidates.put(comment.getId(), comment));
+        commentRepository.findActiveByMovieAndIdIn(movieId, pendingIds)
+                .forEach(comment -> candidates.putIfAbsent(comment.getId(), comment));
+        List<Comment> merged = new ArrayList<>(candidates.size());
+        for (Comment comment : candidates.values()) {
+            Comment copy = new Comment();
+            BeanUtils.copyProperties(comment, copy);
+            long stored = comment.getLikeCount() == null ? 0 : comment.getLikeCount();
+            copy.setLikeCount((int) Math.max(0, stored + writeBehindBuffer.pendingCommentLikes(comment.getId())));
+            merged.add(copy);
+        }
+        merged.sort(Comparator.comparing(Comment::getLikeCount, Comparator.reverseOrder())
+                .thenComparing(Comment::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged.subList(0, Math.min(limit, merged.size()));
     }
 
     @Override
@@ -121,40 +191,70 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    public void likeComment(Long commentId) {
-        Comment comment = commentRepository.findById(commentId)
+    public boolean likeComment(Long commentId, Long userId) {
+        Long movieId = commentRepository.findMovieIdById(commentId)
                 .orElseThrow(() -> new RuntimeException("评论不存在"));
-        comment.setLikeCount(comment.getLikeCount() + 1);
-        commentRepository.save(comment);
+        // 点赞记录在本事务中写入，点赞数由 WriteBehindBuffer 批量写库
+        return commentLikes.like(movieId, commentId, userId);
+    }
+
+    @Override
+    public boolean unlikeComment(Long commentId, Long userId) {
+        Long movieId = commentRepository.findMovieIdById(commentId)
+                .orElseThrow(() -> new RuntimeException("评论不存在"));
+        return commentLikes.unlike(movieId, commentId, userId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Double getAverageRatingByMovie(Long movieId) {
-        return commentRepository.getAverageRatingByMovie(movieId);
+        return movieRatingStatsRepository.findById(movieId).map(MovieRatingStats::getAverageRating).orElse(null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public long getCommentCountByMovie(Long movieId) {
-        return commentRepository.countByMovie(movieId);
+        return movieRatingStatsRepository.findById(movieId).map(MovieRatingStats::getCommentCount).orElse(0L);
     }
 
     @Override
     @Transactional(readOnly = true)
     public CommentStatsResponse getCommentStatsByMovie(Long movieId) {
+        // 评分汇总表按主键读取，没有评论的电影没有汇总行
+        return toStatsResponse(movieRatingStatsRepository.findById(movieId)
+                .orElseGet(() -> new MovieRatingStats(movieId)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, CommentStatsResponse> getCommentStatsByMovies(Collection<Long> movieIds) {
+        Map<Long, CommentStatsResponse> result = new LinkedHashMap<>();
+        if (movieIds == null || movieIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, MovieRatingStats> rows = new HashMap<>();
+        for (MovieRatingStats ratings : movieRatingStatsRepository.findAllById(movieIds)) {
+            rows.put(ratings.getMovieId(), ratings);
+        }
+        for (Long movieId : movieIds) {
+            result.put(movieId, toStatsResponse(rows.getOrDefault(movieId, new MovieRatingStats(movieId))));
+        }
+        return result;
+    }
+
+    private CommentStatsResponse toStatsResponse(MovieRatingStats ratings) {
         CommentStatsResponse stats = new CommentStatsResponse();
-        stats.setMovieId(movieId);
-        stats.setTotalComments(commentRepository.countByMovie(movieId));
-        Double averageRating = commentRepository.getAverageRatingByMovie(movieId);
+        stats.setMovieId(ratings.getMovieId());
+        stats.setTotalComments(ratings.getCommentCount());
+        Double averageRating = ratings.getAverageRating();
         stats.setAverageRating(averageRating != null ? BigDecimal.valueOf(averageRating) : null);
 
-        // 实现星级统计功能 (按评分范围统计)
-        stats.setFiveStarCount(commentRepository.countByMovieIdAndFiveStar(movieId));
-        stats.setFourStarCount(commentRepository.countByMovieIdAndFourStar(movieId));
-        stats.setThreeStarCount(commentRepository.countByMovieIdAndThreeStar(movieId));
-        stats.setTwoStarCount(commentRepository.countByMovieIdAndTwoStar(movieId));
-        stats.setOneStarCount(commentRepository.countByMovieIdAndOneStar(movieId));
+        // 星级统计 (按评分范围统计)
+        stats.setFiveStarCount(ratings.getFiveStarCount());
+        stats.setFourStarCount(ratings.getFourStarCount());
+        stats.setThreeStarCount(ratings.getThreeStarCount());
+        stats.setTwoStarCount(ratings.getTwoStarCount());
+        stats.setOneStarCount(ratings.getOneStarCount());
 
         return stats;
     }
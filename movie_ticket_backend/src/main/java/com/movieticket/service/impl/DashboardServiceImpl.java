@@ -1,8 +1,15 @@
 package com.movieticket.service.impl;
 
 import com.movieticket.dto.response.admin.*;
+import com.movieticket.entity.DailyStats;
+import com.movieticket.entity.Order;
 import com.movieticket.repository.*;
 import com.movieticket.service.DashboardService;
+import com.movieticket.service.stats.DailyStatsRecorder;
+import com.movieticket.service.stats.SectionFanOut;
+import com.movieticket.service.stats.TimeBucket;
+import com.movieticket.service.stats.TimeSeriesPoint;
+import com.movieticket.service.stats.TimeSeriesQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,7 +17,6 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,62 +32,102 @@ public class DashboardServiceImpl implements DashboardService {
     private final NewsRepository newsRepository;
     private final CommentRepository commentRepository;
     private final FavoriteRepository favoriteRepository;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final DailyStatsRecorder dailyStatsRecorder;
+    private final TimeSeriesQuery timeSeriesQuery;
+    private final SectionFanOut sectionFanOut;
+
+    private static final int TREND_DAYS = 30;
+    private static final int WEEK_DAYS = 7;
+    private static final int YEAR_WEEKS = 52;
 
     // 获取仪表盘统计数据
     @Override
     public DashboardStatsResponse getDashboardStats() {
         DashboardStatsResponse stats = new DashboardStatsResponse();
-        
-        // 用户统计
-        stats.setTotalUsers(userRepository.count());
-        stats.setActiveUsers(userRepository.countByStatus(true));
-        stats.setNewUsersToday(getNewUsersToday());
-        
-        // 电影统计
-        stats.setTotalMovies(movieRepository.count());
-        stats.setActiveMovies(movieRepository.countByStatus(true));
-        
-        // 订单统计
-        stats.setTotalOrders(orderRepository.count());
-        stats.setPendingOrders(orderRepository.countByStatus(com.movieticket.entity.Order.OrderStatus.PENDING));
-        stats.setPaidOrders(orderRepository.countByStatus(com.movieticket.entity.Order.OrderStatus.PAID));
-        stats.setCancelledOrders(orderRepository.countByStatus(com.movieticket.entity.Order.OrderStatus.CANCELLED));
-        
-        // 场次统计
-        stats.setTotalSessions(sessionRepository.count());
-        stats.setUpcomingSessions(getUpcomingSessionsCount());
-        
-        // 资讯统计
-        stats.setTotalNews(newsRepository.count());
-        stats.setActiveNews(newsRepository.countByStatus(true));
-        
-        // 营收统计
-        stats.setTodayRevenue(getTodayRevenue());
-        stats.setWeeklyRevenue(getWeeklyRevenue());
-        stats.setMonthlyRevenue(getMonthlyRevenue());
-        stats.setTotalRevenue(getTotalRevenue());
-        
-        // 图表数据
-        stats.setWeeklyRevenueData(getWeeklyRevenueData());
-        stats.setPopularMovies(getPopularMoviesStats());
-        stats.setOrderTrends(getOrderTrends());
-        stats.setUserRegistrations(getUserRegistrationsData());
-        
-        // 系统信息
-        stats.setTotalComments(commentRepository.count());
-        stats.setTotalFavorites(favoriteRepository.count());
-        stats.setActiveSessions(getActiveSessionsCount());
-        stats.setSystemLoad(getSystemLoad());
-        
+
+        // 订单、营收、注册数据都来自每日汇总表：一次读取近 30 天（覆盖本月），一次读取累计值
+        LocalDate today = LocalDate.now();
+        LocalDate rangeFrom = today.minusDays(TREND_DAYS - 1);
+        LocalDate from = today.withDayOfMonth(1).isBefore(rangeFrom) ? today.withDayOfMonth(1) : rangeFrom;
+
+        // 各统计项相互独立，并行查询；超时或失败的项取默认值
+        try (SectionFanOut.Scope scope = sectionFanOut.open()) {
+            SectionFanOut.Section<Map<LocalDate, DailyStats>> daysSection =
+                    scope.fork("dailyStats", () -> loadDays(from, today));
+            SectionFanOut.Section<Totals> totalsSection = scope.fork("totals", this::loadTotals);
+            SectionFanOut.Section<Long> totalUsers = scope.fork("totalUsers", userRepository::count);
+            SectionFanOut.Section<Long> activeUsers = scope.fork("activeUsers", () -> userRepository.countByStatus(true));
+            SectionFanOut.Section<Long> totalMovies = scope.fork("totalMovies", movieRepository::count);
+            SectionFanOut.Section<Long> activeMovies = scope.fork("activeMovies", () -> movieRepository.countByStatus(true));
+            SectionFanOut.Section<Long> totalSessions = scope.fork("totalSessions", sessionRepository::count);
+            SectionFanOut.Section<Long> upcomingSessions = scope.fork("upcomingSessions", this::getUpcomingSessionsCount);
+            SectionFanOut.Section<Long> totalNews = scope.fork("totalNews", newsRepository::count);
+            SectionFanOut.Section<Long> activeNews = scope.fork("activeNews", () -> newsRepository.countByStatus(true));
+            SectionFanOut.Section<List<MovieStatsResponse>> popularMovies =
+                    scope.fork("popularMovies", this::getPopularMoviesStats);
+            SectionFanOut.Section<Long> totalComments = scope.fork("totalComments", commentRepository::count);
+            SectionFanOut.Section<Long> totalFavorites = scope.fork("totalFavorites", favoriteRepository::count);
+
+            Map<LocalDate, DailyStats> days = daysSection.get(fillDays(new HashMap<>(), from, today));
+            Totals totals = totalsSection.get(Totals.EMPTY);
+
+            // 用户统计
+            stats.setTotalUsers(totalUsers.get(0L));
+            stats.setActiveUsers(activeUsers.get(0L));
+            stats.setNewUsersToday(days.get(today).getNewUsers());
+
+            // 电影统计
+            stats.setTotalMovies(totalMovies.get(0L));
+            stats.setActiveMovies(activeMovies.get(0L));
+
+            // 订单统计
+            stats.setTotalOrders(totals.pending + totals.paid + totals.cancelled + totals.refunded);
+            stats.setPendingOrders(totals.pending);
+            stats.setPaidOrders(totals.paid);
+            stats.setCancelledOrders(totals.cancelled);
+
+            // 场次统计
+            stats.setTotalSessions(totalSessions.get(0L));
+            stats.setUpcomingSessions(upcomingSessions.get(0L));
+
+            // 资讯统计
+            stats.setTotalNews(totalNews.get(0L));
+            stats.setActiveNews(activeNews.get(0L));
+
+            // 营收统计
+            stats.setTodayRevenue(days.get(today).getRevenue());
+            stats.setWeeklyRevenue(sumRevenue(days, today.minusDays(WEEK_DAYS - 1), today));
+            stats.setMonthlyRevenue(sumRevenue(days, today.withDayOfMonth(1), today));
+            stats.setTotalRevenue(totals.revenue);
+
+            // 图表数据
+            stats.setWeeklyRevenueData(toRevenueData(points(days, today.minusDays(WEEK_DAYS - 1), today), TimeBucket.DAY));
+            stats.setPopularMovies(popularMovies.get(Collections.emptyList()));
+            stats.setOrderTrends(toOrderTrends(points(days, rangeFrom, today), TimeBucket.DAY));
+            stats.setUserRegistrations(toRegistrations(points(days, today.minusDays(WEEK_DAYS - 1), today), TimeBucket.DAY));
+
+            // 系统信息
+            stats.setTotalComments(totalComments.get(0L));
+            stats.setTotalFavorites(totalFavorites.get(0L));
+            stats.setActiveSessions(getActiveSessionsCount());
+            stats.setSystemLoad(getSystemLoad());
+        }
+
         return stats;
     }
 
+    // 仪表盘各统计项的耗时指标
+    @Override
+    public Map<String, SectionFanOut.SectionStats> getSectionStats() {
+        return sectionFanOut.getSectionStats();
+    }
+
     // 获取今日新增用户
     @Override
     public Long getNewUsersToday() {
-        LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        return userRepository.countByCreateTimeBetween(startOfDay, endOfDay);
+        LocalDate today = LocalDate.now();
+        return loadDays(today, today).get(today).getNewUsers();
     }
 
     // 获取即将开始的场次数量
@@ -93,71 +139,37 @@ public class DashboardServiceImpl implements DashboardService {
     // 获取今日营收
     @Override
     public BigDecimal getTodayRevenue() {
-        LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        return orderRepository.sumRevenueByStatusAndTimeRange(
-            com.movieticket.entity.Order.OrderStatus.PAID, startOfDay, endOfDay
-        ).orElse(BigDecimal.ZERO);
+        LocalDate today = LocalDate.now();
+        return loadDays(today, today).get(today).getRevenue();
     }
 
     // 获取本周营收
     @Override
     public BigDecimal getWeeklyRevenue() {
-        LocalDateTime startOfWeek = LocalDateTime.now().minusDays(7);
-        LocalDateTime endOfWeek = LocalDateTime.now();
-        return orderRepository.sumRevenueByStatusAndTimeRange(
-            com.movieticket.entity.Order.OrderStatus.PAID, startOfWeek, endOfWeek
-        ).orElse(BigDecimal.ZERO);
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(WEEK_DAYS - 1);
+        return sumRevenue(loadDays(from, today), from, today);
     }
 
     // 获取本月营收
     @Override
     public BigDecimal getMonthlyRevenue() {
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).with(LocalTime.MIN);
-        LocalDateTime endOfMonth = LocalDateTime.now();
-        return orderRepository.sumRevenueByStatusAndTimeRange(
-            com.movieticket.entity.Order.OrderStatus.PAID, startOfMonth, endOfMonth
-        ).orElse(BigDecimal.ZERO);
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.withDayOfMonth(1);
+        return sumRevenue(loadDays(from, today), from, today);
     }
 
     // 获取总营收
     @Override
     public BigDecimal getTotalRevenue() {
-        return orderRepository.sumRevenueByStatus(com.movieticket.entity.Order.OrderStatus.PAID)
-                .orElse(BigDecimal.ZERO);
+        return loadTotals().revenue;
     }
 
     // 获取周营收数据
     @Override
     public List<RevenueDataResponse> getWeeklyRevenueData() {
-        List<RevenueDataResponse> revenueData = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-        
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = today.minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-            
-            BigDecimal revenue = orderRepository.sumRevenueByStatusAndTimeRange(
-                com.movieticket.entity.Order.OrderStatus.PAID, startOfDay, endOfDay
-            ).orElse(BigDecimal.ZERO);
-            
-            Long orderCount = orderRepository.countByStatusAndCreateTimeBetween(
-                com.movieticket.entity.Order.OrderStatus.PAID, startOfDay, endOfDay
-            );
-            
-            Long userCount = userRepository.countByCreateTimeBetween(startOfDay, endOfDay);
-            
-            RevenueDataResponse data = new RevenueDataResponse();
-            data.setDate(date);
-            data.setRevenue(revenue);
-            data.setOrderCount(orderCount.intValue());
-            data.setUserCount(userCount.intValue());
-            
-            revenueData.add(data);
-        }
-        
-        return revenueData;
+        LocalDateTime now = LocalDateTime.now();
+        return getRevenueData(TimeBucket.DAY, now.minusDays(WEEK_DAYS - 1), now);
     }
 
     // 获取热门电影统计
@@ -170,49 +182,33 @@ public class DashboardServiceImpl implements DashboardService {
     // 获取订单趋势
     @Override
     public List<OrderStatsResponse> getOrderTrends() {
-        List<OrderStatsResponse> trends = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-        
-        for (int i = 29; i >= 0; i--) {
-            LocalDate date = today.minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-            
-            Long paidOrders = orderRepository.countByStatusAndCreateTimeBetween(
-                com.movieticket.entity.Order.OrderStatus.PAID, startOfDay, endOfDay
-            );
-            
-            Long pendingOrders = orderRepository.countByStatusAndCreateTimeBetween(
-                com.movieticket.entity.Order.OrderStatus.PENDING, startOfDay, endOfDay
-            );
-            
-            OrderStatsResponse trend = new OrderStatsResponse();
-            trend.setDate(date);
-            trend.setPaidOrders(paidOrders.intValue());
-            trend.setPendingOrders(pendingOrders.intValue());
-            
-            trends.add(trend);
-        }
-        
-        return trends;
+        LocalDateTime now = LocalDateTime.now();
+        return getOrderTrends(TimeBucket.DAY, now.minusDays(TREND_DAYS - 1), now);
     }
 
     // 获取用户注册数据
     @Override
     public Map<String, Long> getUserRegistrationsData() {
-        Map<String, Long> registrations = new LinkedHashMap<>();
-        LocalDate today = LocalDate.now();
-        
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = today.minusDays(i);
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-            
-            Long count = userRepository.countByCreateTimeBetween(startOfDay, endOfDay);
-            registrations.put(date.toString(), count);
-        }
-        
-        return registrations;
+        LocalDateTime now = LocalDateTime.now();
+        return getUserRegistrationsData(TimeBucket.DAY, now.minusDays(WEEK_DAYS - 1), now);
+    }
+
+    // 按时间粒度获取营收数据
+    @Override
+    public List<RevenueDataResponse> getRevenueData(TimeBucket bucket, LocalDateTime start, LocalDateTime end) {
+        return toRevenueData(timeSeriesQuery.query(bucket, start, end), bucket);
+    }
+
+    // 按时间粒度获取订单趋势
+    @Override
+    public List<OrderStatsResponse> getOrderTrends(TimeBucket bucket, LocalDateTime start, LocalDateTime end) {
+        return toOrderTrends(timeSeriesQuery.query(bucket, start, end), bucket);
+    }
+
+    // 按时间粒度获取用户注册数据
+    @Override
+    public Map<String, Long> getUserRegistrationsData(TimeBucket bucket, LocalDateTime start, LocalDateTime end) {
+        return toRegistrations(timeSeriesQuery.query(bucket, start, end), bucket);
     }
 
     // 获取活跃场次数量（模拟）
@@ -245,8 +241,48 @@ public class DashboardServiceImpl implements DashboardService {
     // 保留原有方法实现，以防其他地方还在使用
     @Override
     public RevenueDataResponse getRevenueData(String range) {
-        // 空实现或可以根据需要保留原始实现
-        return new RevenueDataResponse();
+        // day 为今日按小时，week/month 为近 7/30 天按天，year 为近 52 周按周
+        LocalDateTime now = LocalDateTime.now();
+        List<TimeSeriesPoint> points;
+        TimeBucket bucket;
+        switch (range == null ? "week" : range.toLowerCase()) {
+            case "day" -> {
+                bucket = TimeBucket.HOUR;
+                points = timeSeriesQuery.query(bucket, now.toLocalDate().atStartOfDay(), now);
+            }
+            case "month" -> {
+                bucket = TimeBucket.DAY;
+                points = timeSeriesQuery.query(bucket, now.minusDays(TREND_DAYS - 1), now);
+            }
+            case "year" -> {
+                bucket = TimeBucket.WEEK;
+                points = timeSeriesQuery.query(bucket, now.minusWeeks(YEAR_WEEKS - 1), now);
+            }
+            default -> {
+                bucket = TimeBucket.DAY;
+                points = timeSeriesQuery.query(bucket, now.minusDays(WEEK_DAYS - 1), now);
+            }
+        }
+
+        RevenueDataResponse data = new RevenueDataResponse();
+        List<String> labels = new ArrayList<>();
+        List<BigDecimal> values = new ArrayList<>();
+        BigDecimal revenue = BigDecimal.ZERO;
+        long orders = 0;
+        long users = 0;
+        for (TimeSeriesPoint point : points) {
+            labels.add(bucket.label(point.getStart()));
+            values.add(point.getRevenue());
+            revenue = revenue.add(point.getRevenue());
+            orders += point.getOrders(Order.OrderStatus.PAID);
+            users += point.getNewUsers();
+        }
+        data.setLabels(labels);
+        data.setData(values);
+        data.setRevenue(revenue);
+        data.setOrderCount((int) orders);
+        data.setUserCount((int) users);
+        return data;
     }
     
     @Override
@@ -254,4 +290,103 @@ public class DashboardServiceImpl implements DashboardService {
         // 空实现或可以根据需要保留原始实现
         return new OrderStatsResponse();
     }
-}
\ No newline at end of file
+
+    // 读取日期范围内的汇总行，没有数据的日期补零
+    // 汇总表加上尚未写库的增量（主要是今天的）
+    private Map<LocalDate, DailyStats> loadDays(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyStats> days = new HashMap<>();
+        for (DailyStats day : dailyStatsRepository.findByStatDateBetweenOrderByStatDate(from, to)) {
+            days.put(day.getStatDate(), day);
+        }
+        fillDays(days, from, to);
+        dailyStatsRecorder.pending().forEach((date, delta) -> days.computeIfPresent(date, (key, day) -> plus(day, delta)));
+        return days;
+    }
+
+    private static DailyStats plus(DailyStats day, DailyStats delta) {
+        DailyStats sum = new DailyStats(day.getStatDate());
+        sum.setPendingOrders(day.getPendingOrders() + delta.getPendingOrders());
+        sum.setPaidOrders(day.getPaidOrders() + delta.getPaidOrders());
+        sum.setCancelledOrders(day.getCancelledOrders() + delta.getCancelledOrders());
+        sum.setRefundedOrders(day.getRefundedOrders() + delta.getRefundedOrders());
+        sum.setRevenue(day.getRevenue().add(delta.getRevenue()));
+        sum.setNewUsers(day.getNewUsers() + delta.getNewUsers());
+        return sum;
+    }
+
+    private static Map<LocalDate, DailyStats> fillDays(Map<LocalDate, DailyStats> days, LocalDate from, LocalDate to) {
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            days.computeIfAbsent(date, DailyStats::new);
+        }
+        return days;
+    }
+
+    private Totals loadTotals() {
+        Object[] row = dailyStatsRepository.sumTotals().get(0);
+        Totals totals = new Totals(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), (BigDecimal) row[4]);
+        for (DailyStats delta : dailyStatsRecorder.pending().values()) {
+            totals = new Totals(totals.pending + delta.getPendingOrders(), totals.paid + delta.getPaidOrders(),
+                    totals.cancelled + delta.getCancelledOrders(), totals.refunded + delta.getRefundedOrders(),
+                    totals.revenue.add(delta.getRevenue()));
+        }
+        return totals;
+    }
+
+    private static BigDecimal sumRevenue(Map<LocalDate, DailyStats> days, LocalDate from, LocalDate to) {
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            revenue = revenue.add(days.get(date).getRevenue());
+        }
+        return revenue;
+    }
+
+    // 汇总行按日期转换为连续的按天序列
+    private static List<TimeSeriesPoint> points(Map<LocalDate, DailyStats> days, LocalDate from, LocalDate to) {
+        List<TimeSeriesPoint> points = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            points.add(TimeSeriesPoint.of(days.get(date)));
+        }
+        return points;
+    }
+
+    private static List<RevenueDataResponse> toRevenueData(List<TimeSeriesPoint> points, TimeBucket bucket) {
+        List<RevenueDataResponse> revenueData = new ArrayList<>();
+        for (TimeSeriesPoint point : points) {
+            RevenueDataResponse data = new RevenueDataResponse();
+            data.setDate(point.getStart().toLocalDate());
+            data.setLabel(bucket.label(point.getStart()));
+            data.setRevenue(point.getRevenue());
+            data.setOrderCount((int) point.getOrders(Order.OrderStatus.PAID));
+            data.setUserCount((int) point.getNewUsers());
+            revenueData.add(data);
+        }
+        return revenueData;
+    }
+
+    private static List<OrderStatsResponse> toOrderTrends(List<TimeSeriesPoint> points, TimeBucket bucket) {
+        List<OrderStatsResponse> trends = new ArrayList<>();
+        for (TimeSeriesPoint point : points) {
+            OrderStatsResponse trend = new OrderStatsResponse();
+            trend.setDate(point.getStart().toLocalDate());
+            trend.setLabel(bucket.label(point.getStart()));
+            trend.setPaidOrders((int) point.getOrders(Order.OrderStatus.PAID));
+            trend.setPendingOrders((int) point.getOrders(Order.OrderStatus.PENDING));
+            trends.add(trend);
+        }
+        return trends;
+    }
+
+    private static Map<String, Long> toRegistrations(List<TimeSeriesPoint> points, TimeBucket bucket) {
+        Map<String, Long> registrations = new LinkedHashMap<>();
+        for (TimeSeriesPoint point : points) {
+            registrations.put(bucket.label(point.getStart()), point.getNewUsers());
+        }
+        return registrations;
+    }
+
+    // 汇总表累计值
+    private record Totals(long pending, long paid, long cancelled, long refunded, BigDecimal revenue) {
+        static final Totals EMPTY = new Totals(0, 0, 0, 0, BigDecimal.ZERO);
+    }
+}
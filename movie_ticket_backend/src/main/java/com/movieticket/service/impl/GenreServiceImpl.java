@@ -3,7 +3,13 @@ package com.movieticket.service.impl;
 import com.movieticket.entity.Genre;
 import com.movieticket.repository.GenreRepository;
 import com.movieticket.service.GenreService;
+import com.movieticket.service.cache.CacheNames;
+import com.movieticket.service.cache.CatalogVersions;
+import com.movieticket.service.cache.CatalogVersions.Catalog;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,16 +25,23 @@ import java.util.Optional;
 public class GenreServiceImpl implements GenreService {
 
     private final GenreRepository genreRepository;
+    private final CatalogVersions catalogVersions;
 
+    @CacheEvict(cacheNames = CacheNames.ACTIVE_GENRES, allEntries = true)
     @Override
     public Genre createGenre(Genre genre) {
         if (genreRepository.existsByName(genre.getName())) {
             throw new RuntimeException("电影类型名称已存在");
         }
         genre.setStatus(true);
+        catalogVersions.changed(Catalog.GENRES);
         return genreRepository.save(genre);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.ACTIVE_GENRES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public Genre updateGenre(Genre genre) {
         Genre existingGenre = genreRepository.findById(genre.getId())
@@ -43,9 +56,14 @@ public class GenreServiceImpl implements GenreService {
         existingGenre.setDescription(genre.getDescription());
         existingGenre.setSortOrder(genre.getSortOrder());
 
+        catalogVersions.changed(Catalog.GENRES);
         return genreRepository.save(existingGenre);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.ACTIVE_GENRES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void deleteGenre(Long id) {
         Genre genre = genreRepository.findById(id)
@@ -57,6 +75,7 @@ public class GenreServiceImpl implements GenreService {
 //        }
 
         genreRepository.delete(genre);
+        catalogVersions.changed(Catalog.GENRES);
     }
 
     @Override
@@ -65,6 +84,7 @@ public class GenreServiceImpl implements GenreService {
         return genreRepository.findById(id);
     }
 
+    @Cacheable(cacheNames = CacheNames.ACTIVE_GENRES, key = "'all'")
     @Override
     @Transactional(readOnly = true)
     public List<Genre> getAllActiveGenres() {
@@ -83,11 +103,13 @@ public class GenreServiceImpl implements GenreService {
         return genreRepository.searchGenres(keyword, pageable);
     }
 
+    @CacheEvict(cacheNames = CacheNames.ACTIVE_GENRES, allEntries = true)
     @Override
     public Genre changeGenreStatus(Long id, Boolean status) {
         Genre genre = genreRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("电影类型不存在"));
         genre.setStatus(status);
+        catalogVersions.changed(Catalog.GENRES);
         return genreRepository.save(genre);
     }
 
@@ -104,6 +126,10 @@ public class GenreServiceImpl implements GenreService {
         return genreRepository.findByStatus(status, pageable);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.ACTIVE_GENRES, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void batchDeleteGenres(List<Long> genreIds) {
         for (Long id : genreIds) {
@@ -111,6 +137,7 @@ public class GenreServiceImpl implements GenreService {
         }
     }
 
+    @CacheEvict(cacheNames = CacheNames.ACTIVE_GENRES, allEntries = true)
     @Override
     public void batchChangeGenreStatus(List<Long> genreIds, Boolean status) {
         List<Genre> genres = genreRepository.findAllById(genreIds);
@@ -119,6 +146,7 @@ public class GenreServiceImpl implements GenreService {
             genre.setUpdateTime(LocalDateTime.now());
         }
         genreRepository.saveAll(genres);
+        catalogVersions.changed(Catalog.GENRES);
     }
 
     @Override
@@ -3,6 +3,8 @@ package com.movieticket.service.impl;
 import com.movieticket.entity.Hall;
 import com.movieticket.repository.HallRepository;
 import com.movieticket.service.HallService;
+import com.movieticket.service.seat.SeatLayoutCache;
+import com.movieticket.service.seat.SeatStateIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +20,8 @@ import java.util.Optional;
 public class HallServiceImpl implements HallService {
 
     private final HallRepository hallRepository;
+    private final SeatLayoutCache seatLayoutCache;
+    private final SeatStateIndex seatStateIndex;
 
     @Override
     public Hall createHall(Hall hall) {
@@ -42,6 +46,10 @@ public class HallServiceImpl implements HallService {
         existingHall.setCapacity(hall.getCapacity());
         existingHall.setSeatLayout(hall.getSeatLayout());
 
+        // 布局可能变化，丢弃缓存的布局和该厅场次的座位表
+        seatLayoutCache.evict(existingHall.getId());
+        seatStateIndex.evictHall(existingHall.getId());
+
         return hallRepository.save(existingHall);
     }
 
@@ -56,6 +64,8 @@ public class HallServiceImpl implements HallService {
 //        }
 
         hallRepository.delete(hall);
+        seatLayoutCache.evict(id);
+        seatStateIndex.evictHall(id);
     }
 
     @Override
@@ -3,11 +3,20 @@ package com.movieticket.service.impl;
 import com.movieticket.dto.request.movie.MovieQueryRequest;
 import com.movieticket.dto.response.admin.MovieStatsResponse;
 import com.movieticket.dto.response.movie.MovieResponse;
+import com.movieticket.dto.response.movie.MovieSuggestionResponse;
 import com.movieticket.entity.Movie;
+import com.movieticket.entity.MovieRatingStats;
 import com.movieticket.repository.*;
 import com.movieticket.service.MovieService;
+import com.movieticket.service.cache.CacheNames;
+import com.movieticket.service.search.MovieSearchIndex;
+import com.movieticket.service.search.MovieSuggester;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -20,7 +29,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -33,6 +46,9 @@ public class MovieServiceImpl implements MovieService {
     private final FavoriteRepository favoriteRepository;
     private final OrderRepository orderRepository;
     private final SessionRepository sessionRepository;
+    private final MovieRatingStatsRepository movieRatingStatsRepository;
+    private final MovieSearchIndex movieSearchIndex;
+    private final MovieSuggester movieSuggester;
 
     // 获取电影列表（带筛选和分页）
     @Transactional(readOnly = true)
@@ -42,7 +58,7 @@ public class MovieServiceImpl implements MovieService {
         Pageable pageable = buildPageable(request);
 
         Page<Movie> movies = movieRepository.findAll(spec, pageable);
-        return movies.map(this::convertToResponse);
+        return convertToResponses(movies);
     }
 
     @Override
@@ -128,16 +144,16 @@ public class MovieServiceImpl implements MovieService {
         return PageRequest.of(request.getPage(), request.getSize(), sort);
     }
 
+    @Cacheable(cacheNames = CacheNames.MOVIE_LISTS, key = "'hot:' + #limit")
     @Transactional(readOnly = true)
     @Override
     public List<MovieResponse> getHotMovies(int limit) {
         List<Movie> movies = movieRepository.findByIsHotAndStatusOrderByRatingDesc(true, true,
                 PageRequest.of(0, limit));
-        return movies.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(movies);
     }
 
+    @Cacheable(cacheNames = CacheNames.MOVIE_LISTS, key = "'new:' + #limit")
     @Transactional(readOnly = true)
     @Override
     public List<MovieResponse> getNewMovies(int limit) { // 2022-07-01后的电影
@@ -146,35 +162,57 @@ public class MovieServiceImpl implements MovieService {
                 false,
                 PageRequest.of(0, limit));
         // 返回2022年7月1日之后的电影
-        return movies.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(movies);
     }
 
+    @Cacheable(cacheNames = CacheNames.MOVIE_LISTS, key = "'top:' + #limit")
     @Transactional(readOnly = true)
     @Override
     public List<MovieResponse> getTopRatedMovies(int limit) {
         List<Movie> movies = movieRepository.findByStatusAndRatingGreaterThanEqualOrderByRatingDesc(true,
                 new BigDecimal("8.0"), PageRequest.of(0, limit));
-        return movies.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(movies);
     }
 
     @Transactional(readOnly = true)
     @Override
     public Page<MovieResponse> searchMovies(String keyword, Pageable pageable) {
-        Page<Movie> movies = movieRepository.searchMovies(keyword, pageable);
-        return movies.map(this::convertToResponse);
+        if (!movieSearchIndex.isReady()) {
+            // 索引尚未构建完成（启动阶段），退回数据库模糊查询
+            return convertToResponses(movieRepository.searchMovies(keyword, pageable));
+        }
+        // 索引给出按相关度排序的电影ID，只对当前页按主键回表
+        List<Long> ids = movieSearchIndex.search(keyword);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+        Map<Long, Movie> loaded = new HashMap<>();
+        if (!pageIds.isEmpty()) {
+            movieRepository.findAllById(pageIds).forEach(movie -> loaded.put(movie.getId(), movie));
+        }
+        List<Movie> movies = pageIds.stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(convertToResponses(movies), pageable, ids.size());
+    }
+
+    @Override
+    public List<MovieSuggestionResponse> suggest(String prefix, int limit) {
+        int size = Math.max(1, Math.min(limit, MovieSuggester.MAX_SUGGESTIONS));
+        return movieSuggester.suggest(prefix, size).stream()
+                .map(s -> new MovieSuggestionResponse(s.text(), s.type().name(), s.movieId()))
+                .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     @Override
     public Page<MovieResponse> getMoviesByGenre(Long genreId, Pageable pageable) {
         Page<Movie> movies = movieRepository.findByGenreIdAndStatus(genreId, true, pageable);
-        return movies.map(this::convertToResponse);
+        return convertToResponses(movies);
     }
 
+    @Cacheable(cacheNames = CacheNames.MOVIE_DETAIL, key = "#id", unless = "#result == null")
     @Transactional(readOnly = true)
     @Override
     public Optional<MovieResponse> getMovieDetail(Long id) {
@@ -184,6 +222,52 @@ public class MovieServiceImpl implements MovieService {
 
     @Override
     public MovieResponse convertToResponse(Movie movie) {
+        // 填充基于评论的平均分（只用于展示，不持久化到 movie 实体）
+        Double avg;
+        try {
+            avg = movieRatingStatsRepository.findById(movie.getId())
+                    .map(MovieRatingStats::getAverageRating).orElse(null);
+        } catch (Exception e) {
+            // 获取评论平均分为非关键路径，若失败则保持为空
+            avg = null;
+        }
+        return convertToResponse(movie, avg);
+    }
+
+    // 列表转换：整页电影的评论平均分从评分汇总表按主键批量读取
+    private List<MovieResponse> convertToResponses(List<Movie> movies) {
+        Map<Long, Double> averages = getCommentAverages(movies);
+        return movies.stream()
+                .map(movie -> convertToResponse(movie, averages.get(movie.getId())))
+                .collect(Collectors.toList());
+    }
+
+    private Page<MovieResponse> convertToResponses(Page<Movie> movies) {
+        Map<Long, Double> averages = getCommentAverages(movies.getContent());
+        return movies.map(movie -> convertToResponse(movie, averages.get(movie.getId())));
+    }
+
+    private Map<Long, Double> getCommentAverages(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<Long> movieIds = movies.stream().map(Movie::getId).collect(Collectors.toList());
+            Map<Long, Double> averages = new HashMap<>();
+            for (MovieRatingStats stats : movieRatingStatsRepository.findAllById(movieIds)) {
+                Double average = stats.getAverageRating();
+                if (average != null) {
+                    averages.put(stats.getMovieId(), average);
+                }
+            }
+            return averages;
+        } catch (Exception e) {
+            // 获取评论平均分为非关键路径，若失败则保持为空
+            return Collections.emptyMap();
+        }
+    }
+
+    private MovieResponse convertToResponse(Movie movie, Double commentAverage) {
         MovieResponse response = new MovieResponse();
         response.setId(movie.getId());
         response.setTitle(movie.getTitle());
@@ -212,14 +296,7 @@ public class MovieServiceImpl implements MovieService {
         response.setFormattedRating(formatRating(movie.getRating()));
         response.setIsNew(isNewMovie(movie.getReleaseDate()));
 
-        // 填充基于评论的平均分（只用于展示，不持久化到 movie 实体）
-        try {
-            Double avg = commentRepository.getAverageRatingByMovie(movie.getId());
-            response.setCommentAverageRating(avg != null ? java.math.BigDecimal.valueOf(avg) : null);
-        } catch (Exception e) {
-            // 获取评论平均分为非关键路径，若失败则保持为空
-            response.setCommentAverageRating(null);
-        }
+        response.setCommentAverageRating(commentAverage != null ? BigDecimal.valueOf(commentAverage) : null);
 
         return response;
     }
@@ -261,6 +338,9 @@ public class MovieServiceImpl implements MovieService {
     }
     // ---------- 实体级/管理端需要的方法 (Controller/Service 依赖) ----------
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#movieId"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void updateMovieRating(Long movieId) {
         Double avg = commentRepository.getAverageRatingByMovie(movieId);
@@ -289,55 +369,99 @@ public class MovieServiceImpl implements MovieService {
         return movieRepository.countActiveMovies();
     }
 
+    @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)
     @Override
     public com.movieticket.entity.Movie createMovie(com.movieticket.entity.Movie movie) {
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        movieSearchIndex.index(saved);
+        movieSuggester.index(saved);
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#movie.id"),
+            @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, key = "#movie.id"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public com.movieticket.entity.Movie updateMovie(com.movieticket.entity.Movie movie) {
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        movieSearchIndex.index(saved);
+        movieSuggester.index(saved);
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public com.movieticket.entity.Movie changeMovieStatus(Long id, Boolean status) {
         com.movieticket.entity.Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("电影不存在"));
         movie.setStatus(status);
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        movieSearchIndex.index(saved);
+        movieSuggester.index(saved);
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public com.movieticket.entity.Movie setMovieHot(Long id, Boolean isHot) {
         com.movieticket.entity.Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("电影不存在"));
         movie.setIsHot(isHot);
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        movieSuggester.index(saved);
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, key = "#id"),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void deleteMovie(Long id) {
         movieRepository.deleteById(id);
+        movieRatingStatsRepository.deleteById(id);
+        movieSearchIndex.remove(List.of(id));
+        movieSuggester.remove(List.of(id));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void batchDeleteMovies(java.util.List<Long> movieIds) {
         movieRepository.deleteAllById(movieIds);
+        movieRatingStatsRepository.deleteAllById(movieIds);
+        movieSearchIndex.remove(movieIds);
+        movieSuggester.remove(movieIds);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void batchChangeMovieStatus(java.util.List<Long> movieIds, boolean status) {
         movieIds.forEach(id -> movieRepository.findById(id).ifPresent(m -> {
             m.setStatus(status);
-            movieRepository.save(m);
+            Movie saved = movieRepository.save(m);
+            movieSearchIndex.index(saved);
+            movieSuggester.index(saved);
         }));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.MOVIE_DETAIL, allEntries = true),
+            @CacheEvict(cacheNames = CacheNames.MOVIE_LISTS, allEntries = true)})
     @Override
     public void batchSetMoviesHot(java.util.List<Long> movieIds, Boolean isHot) {
         movieIds.forEach(id -> movieRepository.findById(id).ifPresent(m -> {
             m.setIsHot(isHot);
-            movieRepository.save(m);
+            movieSuggester.index(movieRepository.save(m));
         }));
     }
 
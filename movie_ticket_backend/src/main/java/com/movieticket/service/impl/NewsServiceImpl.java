@@ -3,7 +3,12 @@ package com.movieticket.service.impl;
 import com.movieticket.entity.News;
 import com.movieticket.repository.NewsRepository;
 import com.movieticket.service.NewsService;
+import com.movieticket.service.cache.CacheNames;
+import com.movieticket.service.writebehind.WriteBehindBuffer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,7 +24,9 @@ import java.util.Optional;
 public class NewsServiceImpl implements NewsService {
 
     private final NewsRepository newsRepository;
+    private final WriteBehindBuffer writeBehindBuffer;
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News createNews(News news) {
         if (news.getPublishTime() == null) {
@@ -29,6 +36,7 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.save(news);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News updateNews(News news) {
         News existingNews = newsRepository.findById(news.getId())
@@ -43,6 +51,7 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.save(existingNews);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public void deleteNews(Long id) {
         News news = newsRepository.findById(id)
@@ -53,14 +62,18 @@ public class NewsServiceImpl implements NewsService {
     @Override
     @Transactional(readOnly = true)
     public Optional<News> getNewsById(Long id) {
-        Optional<News> news = newsRepository.findById(id);
-        if (news.isPresent()) {
-            // 增加浏览次数
+        return newsRepository.findById(id).map(item -> {
+            // 增加浏览次数；返回副本并带上尚未写库的次数，不改动受管实体
             incrementViewCount(id);
-        }
-        return news;
+            News copy = new News();
+            BeanUtils.copyProperties(item, copy);
+            int stored = item.getViewCount() == null ? 0 : item.getViewCount();
+            copy.setViewCount((int) (stored + writeBehindBuffer.pendingNewsViews(id)));
+            return copy;
+        });
     }
 
+    @Cacheable(cacheNames = CacheNames.TOP_NEWS, key = "'all'")
     @Override
     @Transactional(readOnly = true)
     public List<News> getTopNews() {
@@ -85,6 +98,7 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.searchNews(keyword, pageable);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News changeNewsStatus(Long id, Boolean status) {
         News news = newsRepository.findById(id)
@@ -93,6 +107,7 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.save(news);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News toggleTopNews(Long id, Boolean isTop) {
         News news = newsRepository.findById(id)
@@ -103,10 +118,8 @@ public class NewsServiceImpl implements NewsService {
 
     @Override
     public void incrementViewCount(Long id) {
-        News news = newsRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("资讯不存在"));
-        news.setViewCount(news.getViewCount() + 1);
-        newsRepository.save(news);
+        // 先在内存中累加，由 WriteBehindBuffer 定时批量写库
+        writeBehindBuffer.incrementNewsView(id);
     }
 
     @Override
@@ -147,6 +160,7 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.findByCreateTimeBetween(start, end, pageable);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News setNewsTop(Long id, Boolean isTop) {
         Optional<News> newsOpt = newsRepository.findById(id);
@@ -161,11 +175,13 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.save(news);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public void batchDeleteNews(List<Long> newsIds) {
         newsRepository.deleteAllById(newsIds);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public void batchPublishNews(List<Long> newsIds) {
         List<News> newsList = newsRepository.findAllById(newsIds);
@@ -179,6 +195,7 @@ public class NewsServiceImpl implements NewsService {
         newsRepository.saveAll(newsList);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public void batchSetNewsTop(List<Long> newsIds, Boolean isTop) {
         List<News> newsList = newsRepository.findAllById(newsIds);
@@ -189,6 +206,7 @@ public class NewsServiceImpl implements NewsService {
         newsRepository.saveAll(newsList);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News publishNews(Long id) {
         Optional<News> newsOpt = newsRepository.findById(id);
@@ -204,6 +222,7 @@ public class NewsServiceImpl implements NewsService {
         return newsRepository.save(news);
     }
 
+    @CacheEvict(cacheNames = CacheNames.TOP_NEWS, allEntries = true)
     @Override
     public News unpublishNews(Long id) {
         Optional<News> newsOpt = newsRepository.findById(id);
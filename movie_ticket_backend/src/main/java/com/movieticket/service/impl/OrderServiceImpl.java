@@ -1,25 +1,45 @@
 package com.movieticket.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticket.dto.CursorPage;
+import com.movieticket.dto.KeysetCursor;
 import com.movieticket.entity.Order;
+import com.movieticket.entity.OrderSeat;
 import com.movieticket.entity.User;
 import com.movieticket.entity.Session;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.exception.ErrorCode;
 import com.movieticket.repository.OrderRepository;
+import com.movieticket.repository.OrderSeatRepository;
 import com.movieticket.repository.SessionRepository;
 import com.movieticket.repository.UserRepository;
 import com.movieticket.service.OrderService;
 import com.movieticket.service.UserService;
 import com.movieticket.service.SessionService;
+import com.movieticket.service.order.ExpiryResult;
+import com.movieticket.service.order.OrderExpiryScheduler;
+import com.movieticket.service.seat.SeatHold;
+import com.movieticket.service.seat.SeatStateIndex;
+import com.movieticket.service.stats.DailyStatsRecorder;
 import com.movieticket.util.OrderNoGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.Optional;
 
 @Service
@@ -34,6 +54,13 @@ public class OrderServiceImpl implements OrderService {
     private final SessionRepository sessionRepository;
     private final ObjectMapper objectMapper;
     private final OrderNoGenerator orderNoGenerator;
+    private final SeatStateIndex seatStateIndex;
+    private final OrderSeatRepository orderSeatRepository;
+    private final OrderExpiryScheduler orderExpiryScheduler;
+    private final DailyStatsRecorder dailyStatsRecorder;
+
+    @Value("${app.order.timeout-minutes:15}")
+    private long timeoutMinutes;
 
     @Override
     public Order createOrder(Order order) {
@@ -49,17 +76,31 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 检查座位是否可用
-        if (session.getBookedSeats() + order.getSeatCount() > session.getAvailableSeats()) {
+        if (order.getSeatCount() > session.getAvailableSeats()) {
             throw new RuntimeException("座位数量不足");
         }
 
+        // 原子预占座位，防止并发下单重复售出
+        SeatHold seatHold = seatStateIndex.hold(session.getId(),
+                seatStateIndex.parseSeatNumbers(order.getSeatNumbers()));
+        List<String> seatNumbers = seatHold.getSeats();
+        try {
+            order.setSeatNumbers(objectMapper.writeValueAsString(seatNumbers));
+        } catch (Exception e) {
+            throw new RuntimeException("座位信息格式错误");
+        }
+
         // 生成订单号
-        order.setOrderNo(OrderNoGenerator.generate());
+        order.setOrderNo(orderNoGenerator.generate());
         order.setUser(user);
         order.setSession(session);
         order.setStatus(Order.OrderStatus.PENDING);
 
         Order savedOrder = orderRepository.save(order);
+        saveOrderSeats(savedOrder, seatNumbers);
+        seatStateIndex.confirm(seatHold, savedOrder);
+        orderExpiryScheduler.schedule(savedOrder);
+        dailyStatsRecorder.orderChanged(savedOrder, null, Order.OrderStatus.PENDING);
 
         sessionService.updateBookedSeats(session.getId(), order.getSeatCount());
         // 更新场次的可用座位数（相加）
@@ -72,10 +113,17 @@ public class OrderServiceImpl implements OrderService {
         Order existingOrder = orderRepository.findById(order.getId())
                 .orElseThrow(() -> new RuntimeException("订单不存在"));
 
-        // 只能更新特定字段
-        existingOrder.setSeatNumbers(order.getSeatNumbers());
-        existingOrder.setSeatCount(order.getSeatCount());
+        // 只能更新价格；座位由 order_seats 和座位索引共同持有，改座位需取消后重新下单
+        boolean seatsChanged = order.getSeatNumbers() != null
+                && !seatStateIndex.parseSeatNumbers(order.getSeatNumbers())
+                .equals(seatStateIndex.parseSeatNumbers(existingOrder.getSeatNumbers()));
+        boolean countChanged = order.getSeatCount() != null && !order.getSeatCount().equals(existingOrder.getSeatCount());
+        if (seatsChanged || countChanged) {
+            throw new RuntimeException("订单座位不能修改，请取消订单后重新选座");
+        }
+        BigDecimal oldPrice = existingOrder.getTotalPrice();
         existingOrder.setTotalPrice(order.getTotalPrice());
+        dailyStatsRecorder.revenueChanged(existingOrder, oldPrice);
 
         return orderRepository.save(existingOrder);
     }
@@ -92,10 +140,12 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Order.OrderStatus.REFUNDED);
         order.setCancelTime(LocalDateTime.now());
         orderRepository.save(order);
+        dailyStatsRecorder.orderChanged(order, Order.OrderStatus.PAID, Order.OrderStatus.REFUNDED);
 
         // 释放座位
-        Session session = order.getSession();
-        session.setBookedSeats(session.getBookedSeats() - order.getSeatCount());
+        orderSeatRepository.releaseByOrderId(orderId);
+        seatStateIndex.release(order);
+        sessionService.updateSessionSeats(order.getSession().getId(), order.getSeatCount(), false);
     }
 
     @Override
@@ -118,6 +168,28 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository.findByUserOrderByCreateTimeDesc(user, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Order> scrollOrdersByUser(Long userId, String after, int size) {
+        User user = userService.getUserById(userId)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        int limit = CursorPage.clampSize(size);
+        List<Order> rows = orderRepository.findByUserAfter(user.getId(), KeysetCursor.timeOf(cursor),
+                KeysetCursor.idOf(cursor), CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, order -> new KeysetCursor(order.getCreateTime(), order.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Order> scrollOrders(Order.OrderStatus status, String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        int limit = CursorPage.clampSize(size);
+        List<Order> rows = orderRepository.findAllAfter(status, KeysetCursor.timeOf(cursor),
+                KeysetCursor.idOf(cursor), CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, order -> new KeysetCursor(order.getCreateTime(), order.getId()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<Order> getOrdersByUserAndStatus(Long userId, Order.OrderStatus status, Pageable pageable) {
@@ -149,7 +221,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     public List<Order> getExpiredOrders() {
-        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(15); // 获取当前时间减去15分钟的时间
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(timeoutMinutes);
         return orderRepository.findExpiredOrders(expireTime);
     }
 
@@ -218,7 +290,6 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Order updateOrderStatus(Long orderId, Order.OrderStatus status) {
         Optional<Order> orderOpt = orderRepository.findById(orderId);
         if (orderOpt.isEmpty()) {
@@ -236,6 +307,7 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("已取消的订单不能修改状态");
         }
 
+        dailyStatsRecorder.orderChanged(order, order.getStatus(), status);
         order.setStatus(status);
 
         // 设置相关时间
@@ -246,12 +318,17 @@ public class OrderServiceImpl implements OrderService {
         }
 
         order.setUpdateTime(LocalDateTime.now());
+        if (status == Order.OrderStatus.PAID) {
+            orderSeatRepository.updateStateByOrderId(orderId, OrderSeat.SeatState.LOCKED, OrderSeat.SeatState.BOOKED);
+        } else if (status == Order.OrderStatus.CANCELLED || status == Order.OrderStatus.REFUNDED) {
+            orderSeatRepository.releaseByOrderId(orderId);
+        }
+        seatStateIndex.evict(order.getSession().getId());
 
         return orderRepository.save(order);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public void deleteOrder(Long orderId) {
         Optional<Order> orderOpt = orderRepository.findById(orderId);
         if (orderOpt.isEmpty()) {
@@ -265,23 +342,27 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("已支付的订单不能删除");
         }
 
+        orderSeatRepository.deleteByOrderId(orderId);
         orderRepository.deleteById(orderId);
+        dailyStatsRecorder.orderChanged(order, order.getStatus(), null);
+        seatStateIndex.evict(order.getSession().getId());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public void batchDeleteOrders(List<Long> orderIds) {
         List<Order> orders = orderRepository.findAllById(orderIds);
         for (Order order : orders) {
             // 只有特定状态的订单可以删除
             if (order.getStatus() != Order.OrderStatus.PAID) {
+                orderSeatRepository.deleteByOrderId(order.getId());
                 orderRepository.delete(order);
+                dailyStatsRecorder.orderChanged(order, order.getStatus(), null);
+                seatStateIndex.evict(order.getSession().getId());
             }
         }
     }
 
     @Override
-    @Transactional(readOnly = true)
     public void batchUpdateOrderStatus(List<Long> orderIds, Order.OrderStatus status) {
         List<Order> orders = orderRepository.findAllById(orderIds);
         for (Order order : orders) {
@@ -342,16 +423,15 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("该场次已取消");
         }
 
-        // 检查座位可用性
-        if (!sessionService.checkSeatAvailability(sessionId, seatNumbers)) {
-            throw new RuntimeException("所选座位已被预订，请重新选择");
-        }
-
         // 检查座位数量
         if (seatNumbers.size() > 6) {
             throw new RuntimeException("一次最多只能选择6个座位");
         }
 
+        // 原子预占座位（检查与锁定在同一临界区内完成），冲突时列出被占用的座位；之后统一使用标准座位号
+        SeatHold seatHold = seatStateIndex.hold(sessionId, seatNumbers);
+        seatNumbers = seatHold.getSeats();
+
         // 创建订单
         Order order = new Order();
         order.setOrderNo(orderNoGenerator.generate());
@@ -369,6 +449,10 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Order.OrderStatus.PENDING);
 
         Order savedOrder = orderRepository.save(order);
+        saveOrderSeats(savedOrder, seatNumbers);
+        seatStateIndex.confirm(seatHold, savedOrder);
+        orderExpiryScheduler.schedule(savedOrder);
+        dailyStatsRecorder.orderChanged(savedOrder, null, Order.OrderStatus.PENDING);
 
         // 更新场次座位信息（锁定座位）
         sessionService.updateSessionSeats(sessionId, seatNumbers.size(), true);
@@ -392,52 +476,10 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("订单状态异常，无法支付");
         }
 
-        // 检查座位是否仍然可用
-        List<String> seatNumbers = null;
-        try {
-            // 尝试按 JSON 数组解析
-            seatNumbers = objectMapper.readValue(
-                    order.getSeatNumbers(),
-                    new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {
-                    });
-        } catch (Exception ex) {
-            // 解析失败时尝试容错处理：去除首尾引号并按逗号分割
-            try {
-                String raw = order.getSeatNumbers();
-                if (raw != null) {
-                    raw = raw.trim();
-                    // 去掉首尾的双引号（如果存在）
-                    if (raw.startsWith("\"") && raw.endsWith("\"")) {
-                        raw = raw.substring(1, raw.length() - 1);
-                    }
-                    // 如果看起来是逗号分隔的字符串，则分割
-                    if (!raw.startsWith("[")) {
-                        String[] parts = raw.split(",");
-                        seatNumbers = java.util.Arrays.stream(parts)
-                                .map(String::trim)
-                                .filter(s -> !s.isEmpty())
-                                .map(s -> {
-                                    // 去掉可能的引号
-                                    if (s.startsWith("\"") && s.endsWith("\"")) {
-                                        return s.substring(1, s.length() - 1);
-                                    }
-                                    return s;
-                                })
-                                .collect(java.util.stream.Collectors.toList());
-                    }
-                }
-            } catch (Exception ex2) {
-                // 记录详细日志以便排查
-                throw new RuntimeException("订单数据异常: 无法解析座位信息");
-            }
-        }
-
-        if (seatNumbers == null) {
-            throw new RuntimeException("订单数据异常: 座位信息为空或格式不正确");
-        }
-
-        // 校验座位可用性：在支付时排除当前订单本身的锁定座位
-        if (!sessionService.checkSeatAvailability(order.getSession().getId(), seatNumbers, order.getId())) {
+        // 锁定的座位转为已售；转换数量不足说明锁定已超时且座位被他人占用
+        int bookedSeats = orderSeatRepository.updateStateByOrderId(orderId,
+                OrderSeat.SeatState.LOCKED, OrderSeat.SeatState.BOOKED);
+        if (bookedSeats != order.getSeatCount()) {
             throw new RuntimeException("座位已被其他用户预订，请重新选择");
         }
 
@@ -445,7 +487,11 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Order.OrderStatus.PAID);
         order.setPayTime(LocalDateTime.now());
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        seatStateIndex.book(savedOrder);
+        dailyStatsRecorder.orderChanged(savedOrder, Order.OrderStatus.PENDING, Order.OrderStatus.PAID);
+
+        return savedOrder;
     }
 
     // 取消订单（释放座位）
@@ -469,8 +515,11 @@ public class OrderServiceImpl implements OrderService {
         order.setCancelTime(LocalDateTime.now());
 
         Order savedOrder = orderRepository.save(order);
+        dailyStatsRecorder.orderChanged(savedOrder, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
 
         // 释放座位
+        orderSeatRepository.releaseByOrderId(orderId);
+        seatStateIndex.release(savedOrder);
         sessionService.updateSessionSeats(order.getSession().getId(), order.getSeatCount(), false);
 
         return savedOrder;
@@ -479,18 +528,72 @@ public class OrderServiceImpl implements OrderService {
     // 超时取消订单（定时任务调用）
     @Transactional
     @Override
-    public void cancelExpiredOrders() {
-        LocalDateTime fifteenMinutesAgo = LocalDateTime.now().minusMinutes(15);
-        List<Order> expiredOrders = orderRepository.findByStatusAndCreateTimeBefore(
-                Order.OrderStatus.PENDING, fifteenMinutesAgo);
+    public ExpiryResult cancelExpiredOrders() {
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(timeoutMinutes);
+        return expireOrders(orderRepository.lockAllExpiredOrders(expireTime));
+    }
 
-        for (Order order : expiredOrders) {
-            order.setStatus(Order.OrderStatus.CANCELLED);
-            order.setCancelTime(LocalDateTime.now());
-            orderRepository.save(order);
+    @Override
+    public ExpiryResult cancelExpiredOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return ExpiryResult.EMPTY;
+        }
+        // 到期前已支付或已取消的订单不会被选中
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(timeoutMinutes);
+        return expireOrders(orderRepository.lockExpiredOrders(orderIds, expireTime));
+    }
 
-            // 释放座位
-            sessionService.updateSessionSeats(order.getSession().getId(), order.getSeatCount(), false);
+    // 批量取消已加锁的超时订单：一条 UPDATE 改订单状态，座位数按场次合并后每个场次更新一次
+    private ExpiryResult expireOrders(List<Object[]> expiredOrders) {
+        if (expiredOrders.isEmpty()) {
+            return ExpiryResult.EMPTY;
+        }
+        List<Long> orderIds = new ArrayList<>(expiredOrders.size());
+        // 按场次ID排序更新，并发的两批超时处理以相同顺序加锁，不会互相死锁
+        Map<Long, Integer> releasedSeats = new TreeMap<>();
+        Map<LocalDate, Integer> expiredByDate = new HashMap<>();
+        int seats = 0;
+        for (Object[] row : expiredOrders) {
+            long orderId = ((Number) row[0]).longValue();
+            Long sessionId = ((Number) row[1]).longValue();
+            int seatCount = ((Number) row[2]).intValue();
+            orderIds.add(orderId);
+            releasedSeats.merge(sessionId, seatCount, Integer::sum);
+            seats += seatCount;
+            seatStateIndex.release(sessionId, orderId, seatStateIndex.parseSeatNumbers((String) row[3]));
+            expiredByDate.merge(toLocalDateTime(row[4]).toLocalDate(), 1, Integer::sum);
+        }
+
+        int cancelled = orderRepository.cancelPendingOrders(orderIds, LocalDateTime.now());
+        orderSeatRepository.releaseByOrderIds(orderIds);
+        releasedSeats.forEach((sessionId, count) -> sessionService.updateSessionSeats(sessionId, count, false));
+        dailyStatsRecorder.ordersExpired(expiredByDate);
+        return new ExpiryResult(cancelled, seats, orderIds);
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    // 写入订单座位明细，唯一索引 (session_id, seat_no, active) 保证同一座位不会被两个有效订单同时占用
+    private void saveOrderSeats(Order order, List<String> seatNumbers) {
+        // 超时未支付的锁定先行释放，否则会与唯一索引冲突
+        orderSeatRepository.releaseExpiredLocks(order.getSession().getId(), seatNumbers,
+                LocalDateTime.now().minusMinutes(timeoutMinutes));
+
+        List<OrderSeat> orderSeats = new ArrayList<>(seatNumbers.size());
+        for (String seatNo : seatNumbers) {
+            OrderSeat orderSeat = new OrderSeat();
+            orderSeat.setOrder(order);
+            orderSeat.setSession(order.getSession());
+            orderSeat.setSeatNo(seatNo);
+            orderSeat.setState(OrderSeat.SeatState.LOCKED);
+            orderSeats.add(orderSeat);
+        }
+        try {
+            orderSeatRepository.saveAllAndFlush(orderSeats);
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException(ErrorCode.SEAT_NOT_AVAILABLE.getCode(), "所选座位已被预订，请重新选择");
         }
     }
-}
\ No newline at end of file
+}
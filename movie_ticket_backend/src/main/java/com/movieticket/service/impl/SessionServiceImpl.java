@@ -1,18 +1,20 @@
 package com.movieticket.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.movieticket.dto.response.session.SessionDetailResponse;
-import com.movieticket.entity.Order;
 import com.movieticket.entity.Session;
 import com.movieticket.entity.Movie;
 import com.movieticket.entity.Hall;
-import com.movieticket.repository.OrderRepository;
 import com.movieticket.repository.SessionRepository;
 import com.movieticket.service.SessionService;
 import com.movieticket.service.MovieService;
+import com.movieticket.service.cache.CacheNames;
 import com.movieticket.service.HallService;
+import com.movieticket.service.seat.SeatLayoutCache;
+import com.movieticket.service.seat.SeatStateIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,12 +22,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -36,9 +34,10 @@ public class SessionServiceImpl implements SessionService {
     private final SessionRepository sessionRepository;
     private final MovieService movieService;
     private final HallService hallService;
-    private final OrderRepository orderRepository;
-    private final ObjectMapper objectMapper;
+    private final SeatStateIndex seatStateIndex;
+    private final SeatLayoutCache seatLayoutCache;
 
+    @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, key = "#session.movie.id")
     @Override
     public Session createSession(Session session) {
         // 验证电影和放映厅存在
@@ -61,6 +60,7 @@ public class SessionServiceImpl implements SessionService {
         return sessionRepository.save(session);
     }
 
+    @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, allEntries = true)
     @Override
     public Session updateSession(Session session) {
         Session existingSession = sessionRepository.findById(session.getId())
@@ -88,14 +88,19 @@ public class SessionServiceImpl implements SessionService {
         existingSession.setEndTime(session.getEndTime());
         existingSession.setPrice(session.getPrice());
 
+        // 放映厅可能变化，座位表需要按新布局重建
+        seatStateIndex.evict(existingSession.getId());
+
         return sessionRepository.save(existingSession);
     }
 
+    @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, allEntries = true)
     @Override
     public void deleteSession(Long id) {
         Session session = sessionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("场次不存在"));
         sessionRepository.delete(session);
+        seatStateIndex.evict(id);
     }
 
     @Override
@@ -104,6 +109,7 @@ public class SessionServiceImpl implements SessionService {
         return sessionRepository.findById(id);
     }
 
+    @Cacheable(cacheNames = CacheNames.SESSIONS_BY_MOVIE, key = "#movieId")
     @Override
     @Transactional(readOnly = true)
     public List<Session> getSessionsByMovie(Long movieId) {
@@ -130,6 +136,7 @@ public class SessionServiceImpl implements SessionService {
         return sessionRepository.searchSessions(keyword, pageable);
     }
 
+    @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, allEntries = true)
     @Override
     public Session changeSessionStatus(Long id, Boolean status) {
         Session session = sessionRepository.findById(id)
@@ -148,16 +155,10 @@ public class SessionServiceImpl implements SessionService {
 
     @Override
     public void updateBookedSeats(Long sessionId, int seatCount) {
-        Session session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("场次不存在"));
-
-        int newBookedSeats = session.getBookedSeats() + seatCount;
-        if (newBookedSeats > session.getAvailableSeats()) {
+        // 条件更新一次完成检查和扣减，避免并发下单时读-改-写丢失更新
+        if (sessionRepository.reserveSeats(sessionId, seatCount) == 0) {
             throw new RuntimeException("座位数量不足");
         }
-
-        session.setBookedSeats(newBookedSeats);
-        sessionRepository.save(session);
     }
 
     @Override
@@ -192,6 +193,7 @@ public class SessionServiceImpl implements SessionService {
         return sessionRepository.findByStatus(status, pageable);
     }
 
+    @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, allEntries = true)
     @Override
     public void batchDeleteSessions(List<Long> sessionIds) {
         for (Long id : sessionIds) {
@@ -199,6 +201,7 @@ public class SessionServiceImpl implements SessionService {
         }
     }
 
+    @CacheEvict(cacheNames = CacheNames.SESSIONS_BY_MOVIE, allEntries = true)
     @Override
     public void batchChangeSessionStatus(List<Long> sessionIds, boolean status) {
         List<Session> sessions = sessionRepository.findAllById(sessionIds);
@@ -241,22 +244,14 @@ public class SessionServiceImpl implements SessionService {
         response.setBookedSeats(session.getBookedSeats());
         response.setStatus(session.getStatus());
 
-        // 座位布局
-        try {
-            Map<String, Object> seatLayout = objectMapper.readValue(
-                    session.getHall().getSeatLayout(),
-                    Map.class);
-            response.setSeatLayout(seatLayout);
-        } catch (Exception e) {
-            log.error("解析座位布局失败", e);
-            response.setSeatLayout(new HashMap<>());
-        }
+        // 座位布局（按放映厅缓存，不再每次解析 JSON）
+        response.setSeatLayout(seatLayoutCache.get(session.getHall()).toMap());
 
         // 获取已预订座位
         List<String> bookedSeats = getBookedSeatsForSession(sessionId);
         response.setBookedSeatNumbers(bookedSeats);
 
-        // 获取锁定座位（15分钟内未支付的订单）
+        // 获取锁定座位（超时前未支付的订单）
         List<String> lockedSeats = getLockedSeatsForSession(sessionId);
         response.setLockedSeatNumbers(lockedSeats);
 
@@ -267,120 +262,36 @@ public class SessionServiceImpl implements SessionService {
     @Transactional(readOnly = true)
     @Override
     public List<String> getBookedSeatsForSession(Long sessionId) {
-        List<Order> orders = orderRepository.findBySessionIdAndStatus(sessionId, Order.OrderStatus.PAID);
-        return orders.stream()
-                .flatMap(order -> {
-                    try {
-                        List<String> seats = objectMapper.readValue(
-                                order.getSeatNumbers(),
-                                new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {
-                                });
-                        return seats.stream();
-                    } catch (Exception e) {
-                        log.error("解析座位号失败: {}", order.getSeatNumbers(), e);
-                        return Stream.empty();
-                    }
-                })
-                .collect(Collectors.toList());
+        return seatStateIndex.getBookedSeats(sessionId);
     }
 
     // 获取锁定座位（待支付订单）
     @Transactional(readOnly = true)
     @Override
     public List<String> getLockedSeatsForSession(Long sessionId) {
-        LocalDateTime fifteenMinutesAgo = LocalDateTime.now().minusMinutes(15);
-        List<Order> orders = orderRepository.findBySessionIdAndStatusAndCreateTimeAfter(
-                sessionId, Order.OrderStatus.PENDING, fifteenMinutesAgo);
-
-        return orders.stream()
-                .flatMap(order -> {
-                    try {
-                        List<String> seats = objectMapper.readValue(
-                                order.getSeatNumbers(),
-                                new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {
-                                });
-                        return seats.stream();
-                    } catch (Exception e) {
-                        log.error("解析座位号失败: {}", order.getSeatNumbers(), e);
-                        return Stream.empty();
-                    }
-                })
-                .collect(Collectors.toList());
+        return seatStateIndex.getLockedSeats(sessionId);
     }
 
     // 检查座位是否可用
     @Transactional(readOnly = true)
     @Override
     public boolean checkSeatAvailability(Long sessionId, List<String> seatNumbers) {
-        SessionDetailResponse sessionDetail = getSessionDetail(sessionId);
-
-        // 检查座位是否已被预订
-        for (String seat : seatNumbers) {
-            if (sessionDetail.getBookedSeatNumbers().contains(seat)) {
-                return false;
-            }
-            if (sessionDetail.getLockedSeatNumbers().contains(seat)) {
-                return false;
-            }
-        }
-
-        return true;
+        return seatStateIndex.isAvailable(sessionId, seatNumbers, null);
     }
 
     @Transactional(readOnly = true)
     @Override
     public boolean checkSeatAvailability(Long sessionId, List<String> seatNumbers, Long excludePendingOrderId) {
-        // 获取已预订座位
-        List<String> bookedSeats = getBookedSeatsForSession(sessionId);
-
-        // 获取锁定座位（排除指定的待支付订单）
-        LocalDateTime fifteenMinutesAgo = LocalDateTime.now().minusMinutes(15);
-        List<Order> pendingOrders = orderRepository.findBySessionIdAndStatusAndCreateTimeAfter(
-                sessionId, Order.OrderStatus.PENDING, fifteenMinutesAgo);
-
-        List<String> lockedSeats = pendingOrders.stream()
-                .filter(o -> excludePendingOrderId == null || !o.getId().equals(excludePendingOrderId))
-                .flatMap(order -> {
-                    try {
-                        List<String> seats = objectMapper.readValue(
-                                order.getSeatNumbers(),
-                                new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {
-                                });
-                        return seats.stream();
-                    } catch (Exception e) {
-                        log.error("解析座位号失败: {}", order.getSeatNumbers(), e);
-                        return Stream.empty();
-                    }
-                })
-                .collect(Collectors.toList());
-
-        // 检查目标座位是否在 booked 或 locked 中
-        for (String seat : seatNumbers) {
-            if (bookedSeats.contains(seat)) {
-                return false;
-            }
-            if (lockedSeats.contains(seat)) {
-                return false;
-            }
-        }
-
-        return true;
+        return seatStateIndex.isAvailable(sessionId, seatNumbers, excludePendingOrderId);
     }
 
     // 更新场次座位信息
     @Override
     public void updateSessionSeats(Long sessionId, int seatCount, boolean isBooking) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isPresent()) {
-            Session session = sessionOpt.get();
-            if (isBooking) {
-                session.setBookedSeats(session.getBookedSeats() + seatCount);
-                session.setAvailableSeats(session.getAvailableSeats() - seatCount);
-            } else {
-                session.setBookedSeats(session.getBookedSeats() - seatCount);
-                session.setAvailableSeats(session.getAvailableSeats() + seatCount);
-            }
-            sessionRepository.save(session);
+        if (isBooking) {
+            updateBookedSeats(sessionId, seatCount);
+        } else if (sessionRepository.releaseSeats(sessionId, seatCount) == 0) {
+            log.warn("场次 {} 归还座位失败，已售座位数不足 {}", sessionId, seatCount);
         }
     }
 
@@ -1,5 +1,7 @@
 package com.movieticket.service.impl;
 
+import com.movieticket.dto.CursorPage;
+import com.movieticket.dto.KeysetCursor;
 import com.movieticket.dto.UserActivityResponse;
 import com.movieticket.dto.UserStatsResponse;
 import com.movieticket.entity.User;
@@ -8,12 +10,16 @@ import com.movieticket.repository.FavoriteRepository;
 import com.movieticket.repository.OrderRepository;
 import com.movieticket.repository.UserRepository;
 import com.movieticket.service.UserService;
+import com.movieticket.service.stats.DailyStatsRecorder;
+import com.movieticket.service.stats.MovieRatingRecorder;
+import com.movieticket.service.writebehind.WriteBehindBuffer;
 import com.movieticket.util.PasswordUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -33,6 +39,9 @@ public class UserServiceImpl implements UserService {
     private final OrderRepository orderRepository;
     private final CommentRepository commentRepository;
     private final FavoriteRepository favoriteRepository;
+    private final DailyStatsRecorder dailyStatsRecorder;
+    private final MovieRatingRecorder movieRatingRecorder;
+    private final WriteBehindBuffer writeBehindBuffer;
 
     @Override
     public User register(User user) {
@@ -47,7 +56,9 @@ public class UserServiceImpl implements UserService {
         //加密密码
         user.setPassword(PasswordUtil.encode(user.getPassword()));
         user.setStatus(true);
-        return userRepository.save(user);//保存至数据库
+        User savedUser = userRepository.save(user);//保存至数据库
+        dailyStatsRecorder.userRegistered(savedUser);
+        return savedUser;
         //UserRepository继承于JpaRepository，JpaRepository提供save()方法
     }
 
@@ -94,7 +105,7 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
-        userRepository.delete(user);
+        removeUser(user);
     }
     
 //    @Override
@@ -140,6 +151,16 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<User> scrollUsers(String after, int size) {
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        int limit = CursorPage.clampSize(size);
+        List<User> rows = userRepository.findAllAfter(KeysetCursor.timeOf(cursor), KeysetCursor.idOf(cursor),
+                CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, user -> new KeysetCursor(user.getCreateTime(), user.getId()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<User> searchUsers(String keyword, Pageable pageable) {
@@ -166,12 +187,12 @@ public class UserServiceImpl implements UserService {
         return userRepository.countByStatus(true);
     }
 
+    // 只记入内存缓冲，不需要事务；登录时在密码校验线程上调用，不为此开启读写事务
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateLastLoginTime(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        user.setLastLoginTime(LocalDateTime.now());
-        userRepository.save(user);
+        // 合并后由 WriteBehindBuffer 批量写库，不再加载和保存整行
+        writeBehindBuffer.recordLogin(userId, LocalDateTime.now());
     }
     
     @Override
@@ -274,7 +295,9 @@ public class UserServiceImpl implements UserService {
         int deletedCount = 0;
         for (Long userId : userIds) {
             try {
-                userRepository.deleteById(userId);
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
+                removeUser(user);
                 deletedCount++;
             } catch (Exception e) {
                 log.error("删除用户失败: {}", userId, e);
@@ -334,4 +357,15 @@ public class UserServiceImpl implements UserService {
 
         return updatedCount;
     }
-}
\ No newline at end of file
+
+    // 删除用户；评论由数据库级联删除，删除后重新统计其评论过的电影的评分汇总
+    private void removeUser(User user) {
+        List<Long> commentedMovieIds = commentRepository.findMovieIdsByUser(user.getId());
+        userRepository.delete(user);
+        dailyStatsRecorder.userRemoved(user);
+        if (!commentedMovieIds.isEmpty()) {
+            userRepository.flush();
+            movieRatingRecorder.rebuild(commentedMovieIds);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.movieticket.service.order;
+
+import java.util.List;
+
+/**
+ * 一次超时取消的结果：取消的订单数、释放的座位数和取消的订单ID
+ */
+public record ExpiryResult(int orders, int seats, List<Long> orderIds) {
+
+    public static final ExpiryResult EMPTY = new ExpiryResult(0, 0, List.of());
+}
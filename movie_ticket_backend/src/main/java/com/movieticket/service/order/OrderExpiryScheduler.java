@@ -0,0 +1,166 @@
+package com.movieticket.service.order;
+
+import com.movieticket.entity.Order;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 待支付订单超时调度
+ * 订单创建时按 app.order.timeout-minutes 登记到期时间，到期后由时间轮触发取消并释放座位；
+ * 同一 tick 内到期的订单分批在一个事务中处理。启动时从数据库中的待支付订单重建时间轮。
+ * 到期但按数据库中的创建时间尚未超时的订单（时钟偏差等）按真实的到期时间重新登记
+ */
+@Slf4j
+@Component
+public class OrderExpiryScheduler {
+
+    private static final long RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+
+    @Value("${app.order.timeout-minutes:15}")
+    private long timeoutMinutes;
+
+    @Value("${app.order.expiry-batch-size:500}")
+    private int batchSize;
+
+    private final long tickMs;
+    private final TimerWheel wheel;
+    private final ScheduledExecutorService ticker;
+    private final LongAdder expiredOrders = new LongAdder();
+    private final LongAdder releasedSeats = new LongAdder();
+
+    // OrderService 创建订单时会回调本类登记到期时间，延迟注入以避免循环依赖
+    public OrderExpiryScheduler(@Lazy OrderService orderService,
+                                OrderRepository orderRepository,
+                                @Value("${app.order.expiry-tick-ms:1000}") long tickMs) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.tickMs = tickMs;
+        this.wheel = new TimerWheel(tickMs, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 登记待支付订单的到期时间
+     */
+    public void schedule(Order order) {
+        wheel.add(order.getId(), deadline(order.getCreateTime()));
+    }
+
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Object[]> pending = orderRepository.findPendingOrderCreateTimes();
+        for (Object[] row : pending) {
+            wheel.add((Long) row[0], deadline((LocalDateTime) row[1]));
+        }
+        log.info("订单超时时间轮已重建，待支付订单 {} 个", pending.size());
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 累计取消的超时订单数
+     */
+    public long getExpiredOrderCount() {
+        return expiredOrders.sum();
+    }
+
+    /**
+     * 累计因订单超时释放的座位数
+     */
+    public long getReleasedSeatCount() {
+        return releasedSeats.sum();
+    }
+
+    public Stats stats() {
+        return new Stats(wheel.size(), expiredOrders.sum(), releasedSeats.sum());
+    }
+
+    void tick() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+        int orders = 0;
+        int seats = 0;
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Long> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            try {
+                ExpiryResult result = orderService.cancelExpiredOrders(batch);
+                orders += result.orders();
+                seats += result.seats();
+                rescheduleNotYetExpired(batch, result.orderIds());
+            } catch (Exception e) {
+                // 本批稍后重试，已支付或已取消的订单在重试时会被跳过
+                log.error("超时订单取消失败，{} 个订单稍后重试", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                batch.forEach(id -> wheel.add(id, retryAt));
+            }
+        }
+        expiredOrders.add(orders);
+        releasedSeats.add(seats);
+        log.info("超时订单处理完成：到期 {} 个，取消 {} 个，释放座位 {} 个", expired.size(), orders, seats);
+    }
+
+    // 未被取消的订单中仍待支付的，按创建时间重新登记；已支付或已取消的不再处理
+    private void rescheduleNotYetExpired(List<Long> batch, List<Long> cancelled) {
+        Set<Long> done = new HashSet<>(cancelled);
+        List<Long> remaining = batch.stream().filter(id -> !done.contains(id)).toList();
+        if (remaining.isEmpty()) {
+            return;
+        }
+        long earliest = System.currentTimeMillis() + tickMs;
+        for (Object[] row : orderRepository.findPendingOrderCreateTimes(remaining)) {
+            Long orderId = (Long) row[0];
+            LocalDateTime createTime = (LocalDateTime) row[1];
+            if (createTime == null) {
+                // 没有创建时间的订单无法按超时规则取消
+                log.warn("待支付订单 {} 缺少创建时间，不再登记超时", orderId);
+                continue;
+            }
+            wheel.add(orderId, Math.max(deadline(createTime), earliest));
+        }
+    }
+
+    private long deadline(LocalDateTime createTime) {
+        LocalDateTime base = createTime != null ? createTime : LocalDateTime.now();
+        return base.plusMinutes(timeoutMinutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 时间轮中待到期的订单数、累计取消的超时订单数和释放的座位数
+     */
+    public record Stats(int pendingOrders, long expiredOrders, long releasedSeats) {
+    }
+}
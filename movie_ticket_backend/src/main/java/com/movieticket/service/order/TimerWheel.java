@@ -0,0 +1,122 @@
+package com.movieticket.service.order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮
+ * 每层 64 个槽，第 0 层每槽一个 tick，上一层每槽覆盖下一层一整圈；
+ * 上层槽到期时把其中的任务下放到下层，任务最终在第 0 层按到期 tick 触发。
+ * 添加和推进都是 O(1)（均摊），不需要像优先队列那样维护全局排序
+ */
+final class TimerWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final List<Entry>[][] wheels;
+    private final List<Entry> overflow = new ArrayList<>(); // 超出最上层范围的任务
+    private List<Entry> due = new ArrayList<>(); // 添加时已经到期的任务
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long tickMs, long startMs) {
+        this.tickMs = tickMs;
+        this.wheels = new List[LEVELS][SLOTS];
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * 登记任务，到期时间向上取整到 tick
+     */
+    synchronized void add(long id, long deadlineMs) {
+        place(new Entry(id, Math.floorDiv(deadlineMs + tickMs - 1, tickMs)));
+        size++;
+    }
+
+    /**
+     * 推进到指定时间，返回期间到期的任务ID
+     */
+    synchronized List<Long> advance(long nowMs) {
+        List<Entry> expired = due;
+        due = new ArrayList<>();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 从高层到低层下放，保证下放到本 tick 槽位的任务能在本轮触发
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, expired);
+                }
+            }
+            if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+                List<Entry> pending = new ArrayList<>(overflow);
+                overflow.clear();
+                pending.forEach(entry -> placeOrExpire(entry, expired));
+            }
+            List<Entry> slot = take(0, (int) (currentTick & SLOT_MASK));
+            if (slot != null) {
+                expired.addAll(slot);
+            }
+        }
+
+        size -= expired.size();
+        List<Long> ids = new ArrayList<>(expired.size());
+        for (Entry entry : expired) {
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level, List<Entry> expired) {
+        List<Entry> slot = take(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+        if (slot != null) {
+            slot.forEach(entry -> placeOrExpire(entry, expired));
+        }
+    }
+
+    private void placeOrExpire(Entry entry, List<Entry> expired) {
+        if (entry.deadlineTick <= currentTick) {
+            expired.add(entry);
+        } else {
+            place(entry);
+        }
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            due.add(entry);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                int index = (int) ((entry.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                List<Entry> slot = wheels[level][index];
+                if (slot == null) {
+                    slot = wheels[level][index] = new ArrayList<>();
+                }
+                slot.add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private List<Entry> take(int level, int index) {
+        List<Entry> slot = wheels[level][index];
+        wheels[level][index] = null;
+        return slot;
+    }
+
+    private record Entry(long id, long deadlineTick) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.movieticket.service.search;
+
+import com.movieticket.entity.Movie;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.MovieSearchText;
+import com.movieticket.service.seat.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 上架电影的内存倒排索引，替代 LIKE '%关键词%' 全表扫描
+ * 标题、原名、导演、演员分词后建立 词 -> (电影ID -> 命中字段) 的倒排表，关键词的所有词都命中才算匹配，
+ * 按命中字段的权重之和排序。启动时从数据库构建，电影新增、修改、上下架、删除在事务提交后同步更新
+ */
+@Slf4j
+@Component
+public class MovieSearchIndex implements ApplicationRunner {
+
+    // 字段的位值即权重，一个词命中多个字段时得分为各位之和
+    static final int TITLE = 8;
+    static final int ORIGINAL_TITLE = 4;
+    static final int DIRECTOR = 2;
+    static final int ACTORS = 1;
+
+    private final MovieRepository movieRepository;
+    private final SwappableIndex<Postings> index = new SwappableIndex<>(new Postings(), Postings::apply);
+    private volatile boolean ready;
+
+    public MovieSearchIndex(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * 索引是否已构建完成，未完成时调用方应回退到数据库查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 已索引的电影数
+     */
+    public int size() {
+        return index.read(postings -> postings.documents.size());
+    }
+
+    /**
+     * 按相关度从高到低返回匹配的电影ID，得分相同时新电影在前
+     */
+    public List<Long> search(String keyword) {
+        Set<String> terms = SearchTokenizer.queryTerms(keyword);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return index.read(postings -> {
+            List<Map<Long, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> list = postings.terms.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            return intersect(lists);
+        });
+    }
+
+    /**
+     * 电影新增或修改后调用：上架的电影重新索引，下架的电影移出索引；当前事务提交后生效
+     */
+    public void index(Movie movie) {
+        Long id = movie.getId();
+        MovieSearchText text = Boolean.FALSE.equals(movie.getStatus()) ? null : MovieSearchText.of(movie);
+        TransactionHooks.afterCommit(() -> index.apply(id, text));
+    }
+
+    /**
+     * 电影删除后调用；当前事务提交后生效
+     */
+    public void remove(Collection<Long> movieIds) {
+        List<Long> ids = new ArrayList<>(movieIds);
+        TransactionHooks.afterCommit(() -> ids.forEach(id -> index.apply(id, null)));
+    }
+
+    /**
+     * 从数据库重新构建索引，返回索引的电影数
+     */
+    public int rebuild() {
+        int size = index.rebuild(() -> {
+            Postings fresh = new Postings();
+            for (MovieSearchText text : movieRepository.findSearchTexts()) {
+                fresh.add(text);
+            }
+            return fresh;
+        }, postings -> postings.documents.size());
+        ready = true;
+        log.info("电影搜索索引已构建，共 {} 部电影", size);
+        return size;
+    }
+
+    // 从最短的倒排表出发逐个检查其余倒排表；得分和ID合成一个 long 排序，避免装箱比较
+    private static List<Long> intersect(List<Map<Long, Integer>> lists) {
+        Map<Long, Integer> shortest = lists.get(0);
+        long[] ranked = new long[shortest.size()];
+        int count = 0;
+        outer:
+        for (Map.Entry<Long, Integer> entry : shortest.entrySet()) {
+            Long id = entry.getKey();
+            int score = entry.getValue();
+            for (int i = 1; i < lists.size(); i++) {
+                Integer mask = lists.get(i).get(id);
+                if (mask == null) {
+                    continue outer;
+                }
+                score += mask;
+            }
+            ranked[count++] = ((long) score << 40) | id;
+        }
+        Arrays.sort(ranked, 0, count);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            ids.add(ranked[i] & ((1L << 40) - 1));
+        }
+        return ids;
+    }
+
+    private static final class Postings {
+
+        private final Map<String, Map<Long, Integer>> terms = new HashMap<>(); // 词 -> (电影ID -> 命中字段)
+        private final Map<Long, Set<String>> documents = new HashMap<>(); // 电影ID -> 已索引的词，更新时据此删除旧词
+
+        void apply(Long id, MovieSearchText text) {
+            Set<String> old = documents.remove(id);
+            if (old != null) {
+                for (String term : old) {
+                    Map<Long, Integer> list = terms.get(term);
+                    if (list != null) {
+                        list.remove(id);
+                        if (list.isEmpty()) {
+                            terms.remove(term);
+                        }
+                    }
+                }
+            }
+            if (text != null) {
+                add(text);
+            }
+        }
+
+        void add(MovieSearchText text) {
+            Map<String, Integer> fields = new HashMap<>();
+            addField(fields, text.title(), TITLE);
+            addField(fields, text.originalTitle(), ORIGINAL_TITLE);
+            addField(fields, text.director(), DIRECTOR);
+            addField(fields, text.actors(), ACTORS);
+            fields.forEach((term, mask) ->
+                    terms.computeIfAbsent(term, key -> new HashMap<>()).put(text.id(), mask));
+            documents.put(text.id(), fields.keySet());
+        }
+
+        private static void addField(Map<String, Integer> fields, String value, int field) {
+            for (String term : SearchTokenizer.indexTerms(value)) {
+                fields.merge(term, field, (a, b) -> a | b);
+            }
+        }
+    }
+}
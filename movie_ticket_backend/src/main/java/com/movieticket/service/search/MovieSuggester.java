@@ -0,0 +1,489 @@
+package com.movieticket.service.search;
+
+import com.movieticket.entity.Movie;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.MovieSearchText;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.service.seat.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索框输入联想
+ * 上架电影的标题、原名、导演和演员按字符建前缀树，每个节点预先算好子树中得分最高的若干条联想，
+ * 查询只需沿前缀走到对应节点直接返回。得分综合是否热门、评分和购票量；
+ * 电影变化时在事务提交后只重算受影响的路径，购票量按 app.search.suggest-refresh-minutes 定期整体刷新
+ */
+@Slf4j
+@Component
+public class MovieSuggester implements ApplicationRunner {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    static final int MAX_KEY_LENGTH = 16; // 只取联想词的前若干字符建树，限制树的深度和内存
+    private static final double HOT_BONUS = 5.0;
+    private static final double BOOKING_WEIGHT = 2.0; // 购票量取对数，每增加一个数量级加的分
+
+    public enum Type {
+        MOVIE, PERSON
+    }
+
+    /**
+     * 一条联想结果，人名联想的 movieId 为 null
+     */
+    public record Suggestion(String text, Type type, Long movieId) {
+    }
+
+    private final MovieRepository movieRepository;
+    private final OrderRepository orderRepository;
+    private final long refreshMinutes;
+    private final ScheduledExecutorService refresher;
+    private final SwappableIndex<Tree> index = new SwappableIndex<>(new Tree(Collections.emptyMap()), Tree::apply);
+
+    public MovieSuggester(MovieRepository movieRepository,
+                          OrderRepository orderRepository,
+                          @Value("${app.search.suggest-refresh-minutes:10}") long refreshMinutes) {
+        this.movieRepository = movieRepository;
+        this.orderRepository = orderRepository;
+        this.refreshMinutes = refreshMinutes;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "suggest-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+        if (refreshMinutes > 0) {
+            refresher.scheduleAtFixedRate(this::refresh, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 以 prefix 开头的联想，按得分从高到低，最多 MAX_SUGGESTIONS 条
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return suggestLong(key, limit);
+        }
+        Entry[] top = index.read(tree -> {
+            Node node = tree.find(key);
+            return node != null ? node.top : null;
+        });
+        if (top == null) {
+            return Collections.emptyList();
+        }
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, top.length));
+        for (Entry entry : top) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            suggestions.add(entry.toSuggestion());
+        }
+        return suggestions;
+    }
+
+    // 超出建树长度的前缀按截断部分定位到最深一层的节点，该节点没有子节点，
+    // 联想词的前若干字符相同的条目都挂在它上面；预先算好的候选只有前若干条，不能只在其中筛选，要逐条核对完整前缀
+    private List<Suggestion> suggestLong(String key, int limit) {
+        List<Entry> matched = index.read(tree -> {
+            Node node = tree.find(truncate(key));
+            if (node == null || node.terminals == null) {
+                return Collections.<Entry>emptyList();
+            }
+            return node.terminals.stream()
+                    .filter(entry -> entry.keys.stream().anyMatch(k -> k.startsWith(key)))
+                    .toList();
+        });
+        return matched.stream()
+                .distinct()
+                .sorted(ORDER)
+                .limit(limit)
+                .map(Entry::toSuggestion)
+                .toList();
+    }
+
+    /**
+     * 电影新增或修改后调用：上架的电影重新挂到树上，下架的电影移除；当前事务提交后生效
+     */
+    public void index(Movie movie) {
+        Long id = movie.getId();
+        MovieSearchText text = Boolean.FALSE.equals(movie.getStatus()) ? null : MovieSearchText.of(movie);
+        TransactionHooks.afterCommit(() -> index.apply(id, text));
+    }
+
+    /**
+     * 电影删除后调用；当前事务提交后生效
+     */
+    public void remove(Collection<Long> movieIds) {
+        List<Long> ids = new ArrayList<>(movieIds);
+        TransactionHooks.afterCommit(() -> ids.forEach(id -> index.apply(id, null)));
+    }
+
+    /**
+     * 从数据库重新构建，返回联想中的电影数
+     */
+    public int rebuild() {
+        int[] sizes = index.rebuild(() -> {
+            Map<Long, Long> bookings = new HashMap<>();
+            for (Object[] row : orderRepository.countPaidOrdersByMovie()) {
+                bookings.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            Tree fresh = new Tree(bookings);
+            fresh.bulk = true;
+            movieRepository.findSearchTexts().forEach(fresh::put);
+            fresh.finishBulk();
+            return fresh;
+        }, tree -> new int[]{tree.movies.size(), tree.people.size()});
+        log.info("电影输入联想已构建，共 {} 部电影、{} 位影人", sizes[0], sizes[1]);
+        return sizes[0];
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("电影输入联想刷新失败", e);
+        }
+    }
+
+    /**
+     * 联想得分：评分为基础，热门电影加分，购票量按数量级加分
+     */
+    static double score(Boolean isHot, BigDecimal rating, long bookings) {
+        double score = rating != null ? rating.doubleValue() : 0.0;
+        if (Boolean.TRUE.equals(isHot)) {
+            score += HOT_BONUS;
+        }
+        return score + BOOKING_WEIGHT * Math.log10(1 + bookings);
+    }
+
+    // 小写、去掉首尾空白、连续空白合并为一个空格
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // 整个名称之外，名称中间每个单词或分隔符后的片段也作为联想词，如 "The Wandering Earth" 的 "earth"
+    static Set<String> keys(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = 1; i < normalized.length(); i++) {
+            if (!Character.isLetterOrDigit(normalized.charAt(i - 1)) && Character.isLetterOrDigit(normalized.charAt(i))) {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static List<String> names(String director, String actors) {
+        List<String> names = new ArrayList<>();
+        for (String field : new String[]{director, actors}) {
+            if (field != null) {
+                for (String name : field.split("[,，、/;；|]")) {
+                    if (!name.isBlank()) {
+                        names.add(name.trim());
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble((Entry entry) -> -entry.score)
+            .thenComparing(entry -> entry.text);
+
+    private static final class Entry {
+
+        final String text;
+        final Type type;
+        final Long movieId;
+        final Set<String> keys;
+        final Map<Long, Double> movieScores; // 人名所属电影的得分，人名得分取其中最高的
+        double score;
+
+        Entry(String text, Type type, Long movieId, Set<String> keys) {
+            this.text = text;
+            this.type = type;
+            this.movieId = movieId;
+            this.keys = keys;
+            this.movieScores = type == Type.PERSON ? new HashMap<>() : null;
+        }
+
+        Suggestion toSuggestion() {
+            return new Suggestion(text, type, movieId);
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        char[] labels = NO_LABELS; // 子节点字符，升序
+        Node[] children = NO_CHILDREN;
+        List<Entry> terminals; // 联想词在此结束的条目
+        Entry[] top = NO_ENTRIES; // 子树中得分最高的条目
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            Node node = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = label;
+            newChildren[at] = node;
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && (terminals == null || terminals.isEmpty());
+        }
+
+        // 由本节点的条目和各子节点的候选合并出本节点的候选，同一条目只保留一次
+        void recompute() {
+            List<Entry> candidates = new ArrayList<>();
+            if (terminals != null) {
+                candidates.addAll(terminals);
+            }
+            for (Node child : children) {
+                Collections.addAll(candidates, child.top);
+            }
+            candidates.sort(ORDER);
+            List<Entry> best = new ArrayList<>(MAX_SUGGESTIONS);
+            for (Entry entry : candidates) {
+                if (best.size() >= MAX_SUGGESTIONS) {
+                    break;
+                }
+                if (best.stream().noneMatch(chosen -> chosen == entry)) {
+                    best.add(entry);
+                }
+            }
+            top = best.toArray(NO_ENTRIES);
+        }
+    }
+
+    /**
+     * 一棵前缀树及其条目
+     */
+    private static final class Tree {
+
+        final Node root = new Node();
+        final Map<Long, Entry> movies = new HashMap<>();
+        final Map<Long, List<String>> moviePeople = new HashMap<>(); // 电影ID -> 影人名（规范化后）
+        final Map<String, Entry> people = new HashMap<>();
+        final Map<Long, Long> bookings;
+        boolean bulk; // 批量构建时只挂条目，最后统一计算各节点候选
+
+        Tree(Map<Long, Long> bookings) {
+            this.bookings = bookings;
+        }
+
+        Node find(String path) {
+            Node node = root;
+            for (int i = 0; i < path.length() && node != null; i++) {
+                node = node.child(path.charAt(i));
+            }
+            return node;
+        }
+
+        void apply(Long id, MovieSearchText text) {
+            if (text == null) {
+                remove(id);
+            } else {
+                put(text);
+            }
+        }
+
+        void put(MovieSearchText text) {
+            Long id = text.id();
+            remove(id);
+            double score = score(text.isHot(), text.rating(), bookings.getOrDefault(id, 0L));
+            Set<String> keys = keys(text.title());
+            keys.addAll(keys(text.originalTitle()));
+            Entry movie = new Entry(text.title(), Type.MOVIE, id, keys);
+            movie.score = score;
+            movies.put(id, movie);
+            attach(movie);
+
+            List<String> names = new ArrayList<>();
+            for (String name : names(text.director(), text.actors())) {
+                String normalized = normalize(name);
+                if (names.contains(normalized)) {
+                    continue;
+                }
+                names.add(normalized);
+                Entry person = people.get(normalized);
+                if (person == null) {
+                    person = new Entry(name, Type.PERSON, null, keys(name));
+                    person.movieScores.put(id, score);
+                    person.score = score;
+                    people.put(normalized, person);
+                    attach(person);
+                } else {
+                    person.movieScores.put(id, score);
+                    rescore(person);
+                }
+            }
+            moviePeople.put(id, names);
+        }
+
+        void remove(Long id) {
+            Entry movie = movies.remove(id);
+            if (movie == null) {
+                return;
+            }
+            detach(movie);
+            for (String normalized : moviePeople.remove(id)) {
+                Entry person = people.get(normalized);
+                person.movieScores.remove(id);
+                if (person.movieScores.isEmpty()) {
+                    people.remove(normalized);
+                    detach(person);
+                } else {
+                    rescore(person);
+                }
+            }
+        }
+
+        void finishBulk() {
+            bulk = false;
+            computeAll(root);
+        }
+
+        private void rescore(Entry person) {
+            double best = person.movieScores.values().stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
+            if (best != person.score) {
+                person.score = best;
+                if (!bulk) {
+                    person.keys.forEach(key -> refreshPath(truncate(key)));
+                }
+            }
+        }
+
+        private void attach(Entry entry) {
+            for (String key : entry.keys) {
+                String path = truncate(key);
+                Node node = root;
+                for (int i = 0; i < path.length(); i++) {
+                    node = node.addChild(path.charAt(i));
+                }
+                if (node.terminals == null) {
+                    node.terminals = new ArrayList<>(1);
+                }
+                node.terminals.add(entry);
+                if (!bulk) {
+                    refreshPath(path);
+                }
+            }
+        }
+
+        private void detach(Entry entry) {
+            for (String key : entry.keys) {
+                String path = truncate(key);
+                Node node = find(path);
+                if (node != null && node.terminals != null) {
+                    node.terminals.remove(entry);
+                    refreshPath(path);
+                }
+            }
+        }
+
+        // 自下而上重算路径上各节点的候选，并摘除已经空了的节点；根节点不参与查询，不计算
+        private void refreshPath(String path) {
+            Node[] nodes = new Node[path.length() + 1];
+            nodes[0] = root;
+            for (int i = 0; i < path.length(); i++) {
+                nodes[i + 1] = nodes[i].child(path.charAt(i));
+                if (nodes[i + 1] == null) {
+                    return;
+                }
+            }
+            for (int depth = path.length(); depth >= 1; depth--) {
+                Node node = nodes[depth];
+                if (node.isEmpty()) {
+                    nodes[depth - 1].removeChild(path.charAt(depth - 1));
+                } else {
+                    node.recompute();
+                }
+            }
+        }
+
+        private static void computeAll(Node node) {
+            for (Node child : node.children) {
+                computeAll(child);
+                child.recompute();
+            }
+        }
+    }
+}
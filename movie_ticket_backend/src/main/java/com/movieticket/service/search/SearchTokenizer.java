@@ -0,0 +1,98 @@
+package com.movieticket.service.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 搜索分词
+ * 字母数字按连续片段切成小写单词，建索引时另外保留单词的各个前缀，使 "nol" 这样输入了一半的关键词也能命中 "Nolan"；
+ * 汉字没有分隔符，按相邻两字切成二元词，建索引时另外保留单字，使单个汉字的关键词也能命中
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 建索引用的词：单词及其前缀、汉字二元词和汉字单字
+     */
+    static Set<String> indexTerms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(text, terms, true);
+        return terms;
+    }
+
+    /**
+     * 关键词拆出的词：连续两个以上的汉字只取二元词，单独的汉字取单字
+     */
+    static Set<String> queryTerms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(text, terms, false);
+        return terms;
+    }
+
+    private static void tokenize(String text, Set<String> terms, boolean forIndex) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder word = new StringBuilder();
+        int hanStart = -1; // 当前连续汉字片段的起点
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isHan(codePoint)) {
+                flushWord(word, terms, forIndex);
+                if (hanStart < 0) {
+                    hanStart = i;
+                }
+            } else {
+                flushHan(text, hanStart, i, terms, forIndex);
+                hanStart = -1;
+                if (Character.isLetterOrDigit(codePoint)) {
+                    word.appendCodePoint(Character.toLowerCase(codePoint));
+                } else {
+                    flushWord(word, terms, forIndex);
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        flushHan(text, hanStart, length, terms, forIndex);
+        flushWord(word, terms, forIndex);
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> terms, boolean withPrefixes) {
+        if (word.length() == 0) {
+            return;
+        }
+        String term = word.toString().toLowerCase(Locale.ROOT);
+        if (withPrefixes) {
+            // 按码点取前缀，不拆开代理对
+            for (int end = term.offsetByCodePoints(0, 1); end < term.length(); end = term.offsetByCodePoints(end, 1)) {
+                terms.add(term.substring(0, end));
+            }
+        }
+        terms.add(term);
+        word.setLength(0);
+    }
+
+    private static void flushHan(String text, int start, int end, Set<String> terms, boolean withUnigrams) {
+        if (start < 0) {
+            return;
+        }
+        int[] chars = text.substring(start, end).codePoints().toArray();
+        if (chars.length == 1 || withUnigrams) {
+            for (int c : chars) {
+                terms.add(new String(Character.toChars(c)));
+            }
+        }
+        for (int j = 0; j + 1 < chars.length; j++) {
+            terms.add(new String(chars, j, 2));
+        }
+    }
+
+    private static boolean isHan(int codePoint) {
+        return Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+    }
+}
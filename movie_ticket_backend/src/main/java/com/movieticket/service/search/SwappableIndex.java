@@ -0,0 +1,91 @@
+package com.movieticket.service.search;
+
+import com.movieticket.repository.MovieSearchText;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按电影增量维护、可整体重建的内存索引，由读写锁保护
+ * 重建在锁外进行，期间到达的增量变更先记下，替换时在新索引上补上，避免被重建开始前读到的旧数据覆盖
+ *
+ * @param <S> 索引本身，只在写锁内或重建线程内修改
+ */
+final class SwappableIndex<S> {
+
+    /**
+     * 在索引上应用一部电影的变更，text 为 null 表示移除
+     */
+    interface Change<S> {
+        void apply(S index, Long id, MovieSearchText text);
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Change<S> change;
+    private S current;
+    private Map<Long, MovieSearchText> pending; // 重建期间发生的变更，值为 null 表示删除
+
+    SwappableIndex(S initial, Change<S> change) {
+        this.current = initial;
+        this.change = change;
+    }
+
+    <R> R read(Function<S, R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void apply(Long id, MovieSearchText text) {
+        lock.writeLock().lock();
+        try {
+            change.apply(current, id, text);
+            if (pending != null) {
+                pending.put(id, text);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用 builder 构建新索引并替换当前索引，补上构建期间的变更后返回 reader 读到的结果
+     */
+    <R> R rebuild(Supplier<S> builder, Function<S, R> reader) {
+        lock.writeLock().lock();
+        try {
+            pending = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        S fresh;
+        try {
+            fresh = builder.get();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            current = fresh;
+            Map<Long, MovieSearchText> changes = pending;
+            pending = null;
+            changes.forEach((id, text) -> change.apply(fresh, id, text));
+            return reader.apply(fresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
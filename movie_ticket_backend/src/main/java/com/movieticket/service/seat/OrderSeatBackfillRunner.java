@@ -0,0 +1,85 @@
+package com.movieticket.service.seat;
+
+import com.movieticket.entity.Order;
+import com.movieticket.entity.OrderSeat;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.repository.OrderSeatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单座位表一次性迁移
+ * 启动时若 order_seats 为空而已有订单，则把待支付、已支付订单中的座位号 JSON 拆成逐座位的记录
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSeatBackfillRunner implements ApplicationRunner {
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO order_seats " +
+            "(order_id, session_id, seat_no, state, active, create_time, update_time) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final OrderRepository orderRepository;
+    private final OrderSeatRepository orderSeatRepository;
+    private final SeatStateIndex seatStateIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (orderSeatRepository.count() > 0 || orderRepository.count() == 0) {
+            return;
+        }
+
+        // 同一场次同一座位只保留一条占用记录，已支付订单优先
+        Map<Long, Set<String>> occupied = new HashMap<>();
+        int migrated = backfill(Order.OrderStatus.PAID, OrderSeat.SeatState.BOOKED, occupied);
+        migrated += backfill(Order.OrderStatus.PENDING, OrderSeat.SeatState.LOCKED, occupied);
+        log.info("订单座位迁移完成，共写入 {} 条座位记录", migrated);
+    }
+
+    private int backfill(Order.OrderStatus status, OrderSeat.SeatState state, Map<Long, Set<String>> occupied) {
+        int migrated = 0;
+        int page = 0;
+        Page<Order> orders;
+        do {
+            orders = orderRepository.findByStatus(status, PageRequest.of(page++, PAGE_SIZE, Sort.by("id")));
+            List<Object[]> rows = new ArrayList<>();
+            for (Order order : orders) {
+                Long sessionId = order.getSession().getId();
+                Set<String> seats = occupied.computeIfAbsent(sessionId, id -> new HashSet<>());
+                Timestamp createTime = Timestamp.valueOf(
+                        order.getCreateTime() != null ? order.getCreateTime() : LocalDateTime.now());
+                for (String seatNo : seatStateIndex.parseSeatNumbers(order.getSeatNumbers())) {
+                    if (!seats.add(seatNo)) {
+                        log.warn("座位 {} 在场次 {} 中已被其他订单占用，跳过订单 {}", seatNo, sessionId, order.getOrderNo());
+                        continue;
+                    }
+                    rows.add(new Object[]{order.getId(), sessionId, seatNo, state.name(), true, createTime, createTime});
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                migrated += rows.size();
+            }
+        } while (orders.hasNext());
+        return migrated;
+    }
+}
@@ -0,0 +1,27 @@
+package com.movieticket.service.seat;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 座位预占凭证
+ * 下单前先以临时持有者ID占住座位，订单保存后再转交给订单ID
+ */
+@Getter
+public final class SeatHold {
+
+    private final Long sessionId;
+    private final List<String> seats;
+    private volatile long holderId;
+
+    SeatHold(Long sessionId, List<String> seats, long holderId) {
+        this.sessionId = sessionId;
+        this.seats = seats;
+        this.holderId = holderId;
+    }
+
+    void setHolderId(long holderId) {
+        this.holderId = holderId;
+    }
+}
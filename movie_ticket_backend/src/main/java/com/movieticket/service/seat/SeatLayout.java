@@ -0,0 +1,172 @@
+package com.movieticket.service.seat;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 放映厅座位布局（由 Hall.seatLayout JSON 解析而来，解析后不再变化）
+ * 座位序号为 (行-1)*列数+(列-1)，座位号同时支持 "E7"（行字母+列）和 "5-7"（行-列）两种写法
+ */
+public final class SeatLayout {
+
+    public enum SeatType {
+        NORMAL, VIP, DISABLED
+    }
+
+    private final Long hallId;
+    private final int rows;
+    private final int cols;
+    private final String[] seatIds; // 序号 -> 标准座位号
+    private final SeatType[] types;
+    private final Map<String, Integer> ordinals; // 座位号 -> 序号
+    private final BitSet aisleRows; // 该行之后是过道
+    private final BitSet aisleCols; // 该列之后是过道
+    private final Map<String, Object> source;
+
+    private SeatLayout(Long hallId, int rows, int cols, Map<String, Object> source) {
+        this.hallId = hallId;
+        this.rows = rows;
+        this.cols = cols;
+        this.seatIds = new String[rows * cols];
+        this.types = new SeatType[rows * cols];
+        this.ordinals = new HashMap<>(rows * cols * 4);
+        this.aisleRows = new BitSet();
+        this.aisleCols = new BitSet();
+        this.source = Collections.unmodifiableMap(source);
+
+        for (int row = 1; row <= rows; row++) {
+            for (int col = 1; col <= cols; col++) {
+                int ordinal = (row - 1) * cols + (col - 1);
+                String numeric = row + "-" + col;
+                ordinals.put(numeric, ordinal);
+                if (row <= 26) {
+                    String lettered = (char) ('A' + row - 1) + String.valueOf(col);
+                    ordinals.put(lettered, ordinal);
+                    seatIds[ordinal] = lettered;
+                } else {
+                    seatIds[ordinal] = numeric;
+                }
+                types[ordinal] = SeatType.NORMAL;
+            }
+        }
+    }
+
+    static SeatLayout empty(Long hallId) {
+        return new SeatLayout(hallId, 0, 0, Collections.emptyMap());
+    }
+
+    /**
+     * 根据解析后的布局 JSON 构建，rows/cols 之外识别 vipSeats、disabledSeats、aisleRows、aisleCols
+     */
+    static SeatLayout of(Long hallId, Map<String, Object> source) {
+        int rows = Math.max(toInt(source.get("rows")), 0);
+        int cols = Math.max(toInt(source.get("cols")), 0);
+        SeatLayout layout = new SeatLayout(hallId, rows, cols, source);
+        layout.markSeats(source.get("vipSeats"), SeatType.VIP);
+        layout.markSeats(source.get("disabledSeats"), SeatType.DISABLED);
+        markLines(source.get("aisleRows"), layout.aisleRows);
+        markLines(source.get("aisleCols"), layout.aisleCols);
+        return layout;
+    }
+
+    public Long getHallId() {
+        return hallId;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * 布局中的座位位置总数（含不可用座位）
+     */
+    public int size() {
+        return seatIds.length;
+    }
+
+    public boolean isEmpty() {
+        return seatIds.length == 0;
+    }
+
+    /**
+     * 座位号对应的序号，不在布局中返回 -1
+     */
+    public int ordinalOf(String seat) {
+        if (seat == null) {
+            return -1;
+        }
+        Integer ordinal = ordinals.get(seat);
+        if (ordinal == null && !seat.isEmpty() && Character.isLowerCase(seat.charAt(0))) {
+            ordinal = ordinals.get(seat.toUpperCase());
+        }
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String seatId(int ordinal) {
+        return seatIds[ordinal];
+    }
+
+    /**
+     * 座位类型，不在布局中返回 null
+     */
+    public SeatType seatType(String seat) {
+        int ordinal = ordinalOf(seat);
+        return ordinal < 0 ? null : types[ordinal];
+    }
+
+    /**
+     * 座位存在且可以售出
+     */
+    public boolean isSellable(String seat) {
+        int ordinal = ordinalOf(seat);
+        return ordinal >= 0 && types[ordinal] != SeatType.DISABLED;
+    }
+
+    public boolean isAisleAfterRow(int row) {
+        return aisleRows.get(row);
+    }
+
+    public boolean isAisleAfterCol(int col) {
+        return aisleCols.get(col);
+    }
+
+    /**
+     * 原始布局数据，供前端渲染
+     */
+    public Map<String, Object> toMap() {
+        return source;
+    }
+
+    private void markSeats(Object seats, SeatType type) {
+        if (seats instanceof Collection<?> collection) {
+            for (Object seat : collection) {
+                int ordinal = ordinalOf(String.valueOf(seat));
+                if (ordinal >= 0) {
+                    types[ordinal] = type;
+                }
+            }
+        }
+    }
+
+    private static void markLines(Object lines, BitSet target) {
+        if (lines instanceof Collection<?> collection) {
+            for (Object line : collection) {
+                int value = toInt(line);
+                if (value > 0) {
+                    target.set(value);
+                }
+            }
+        }
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.movieticket.service.seat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticket.entity.Hall;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按放映厅缓存解析后的座位布局
+ * 放映厅很少修改，座位图页面和下单校验不再重复解析布局 JSON；放映厅修改或删除后失效
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatLayoutCache {
+
+    private static final TypeReference<Map<String, Object>> LAYOUT_MAP = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, SeatLayout> layouts = new ConcurrentHashMap<>();
+
+    public SeatLayout get(Hall hall) {
+        return layouts.computeIfAbsent(hall.getId(), id -> parse(id, hall.getSeatLayout()));
+    }
+
+    /**
+     * 放映厅变更提交后丢弃缓存的布局
+     */
+    public void evict(Long hallId) {
+        TransactionHooks.afterCommit(() -> layouts.remove(hallId));
+    }
+
+    private SeatLayout parse(Long hallId, String seatLayout) {
+        if (seatLayout == null || seatLayout.isBlank()) {
+            return SeatLayout.empty(hallId);
+        }
+        try {
+            return SeatLayout.of(hallId, objectMapper.readValue(seatLayout, LAYOUT_MAP));
+        } catch (Exception e) {
+            log.error("解析座位布局失败, hallId={}", hallId, e);
+            return SeatLayout.empty(hallId);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.movieticket.service.seat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticket.entity.Order;
+import com.movieticket.entity.OrderSeat;
+import com.movieticket.entity.Session;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.exception.ErrorCode;
+import com.movieticket.repository.OrderSeatRepository;
+import com.movieticket.repository.SessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.movieticket.service.seat.TransactionHooks.afterCommit;
+import static com.movieticket.service.seat.TransactionHooks.onRollback;
+
+/**
+ * 场次座位状态索引
+ * 首次访问某场次时从订单座位表（order_seats）构建内存座位表，之后由订单的创建、支付、取消增量维护，
+ * 避免每次查询座位都加载并解析全部订单。
+ * 每个场次的座位表各自加锁，下单时在锁内一次性检查并占住全部座位，不同场次之间互不阻塞。
+ * 座位表加载期间到达的支付、释放等变更先记下，加载完成后在快照上重放（这些变更都是幂等的）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatStateIndex {
+
+    private static final TypeReference<List<String>> SEAT_LIST = new TypeReference<>() {
+    };
+
+    private final OrderSeatRepository orderSeatRepository;
+    private final SessionRepository sessionRepository;
+    private final SeatLayoutCache seatLayoutCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.order.timeout-minutes:15}")
+    private long timeoutMinutes;
+
+    private final Map<Long, SeatMapSlot> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong provisionalIds = new AtomicLong(); // 临时持有者ID取负数，与订单ID区分
+
+    /**
+     * 检查座位是否全部可用
+     *
+     * @param excludeOrderId 忽略该订单自身的锁定（可为 null）
+     */
+    public boolean isAvailable(Long sessionId, List<String> seatNumbers, Long excludeOrderId) {
+        return seatMap(sessionId).isAvailable(seatNumbers, System.currentTimeMillis(), excludeOrderId);
+    }
+
+    public List<String> getBookedSeats(Long sessionId) {
+        return seatMap(sessionId).bookedSeats();
+    }
+
+    public List<String> getLockedSeats(Long sessionId) {
+        return seatMap(sessionId).lockedSeats(System.currentTimeMillis());
+    }
+
+    /**
+     * 原子地预占座位，任一座位已被占用时整体失败并列出冲突座位
+     * 座位号统一换成布局中的标准写法（"e7"、"5-7" 都记为 "E7"），凭证中的座位号用于写订单和订单座位明细。
+     * 所在事务回滚时自动释放
+     */
+    public SeatHold hold(Long sessionId, List<String> seatNumbers) {
+        SessionSeatMap seatMap = seatMap(sessionId);
+        List<String> seats = canonicalSeats(seatMap.layout(), seatNumbers);
+
+        long holderId = provisionalIds.decrementAndGet();
+        long now = System.currentTimeMillis();
+        long deadline = now + TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        List<String> conflicts = seatMap.tryLock(holderId, seats, now, deadline);
+        if (!conflicts.isEmpty()) {
+            throw new BusinessException(ErrorCode.SEAT_NOT_AVAILABLE.getCode(),
+                    "所选座位已被预订，请重新选择: " + String.join(", ", conflicts));
+        }
+
+        SeatHold hold = new SeatHold(sessionId, seats, holderId);
+        onRollback(() -> apply(sessionId, map -> map.release(hold.getHolderId(), hold.getSeats())));
+        return hold;
+    }
+
+    /**
+     * 订单保存后，将预占的座位转交给订单
+     */
+    public void confirm(SeatHold hold, Order order) {
+        long orderId = order.getId();
+        seatMap(hold.getSessionId()).transfer(hold.getHolderId(), orderId, hold.getSeats(),
+                lockDeadline(order.getCreateTime()));
+        hold.setHolderId(orderId);
+    }
+
+    /**
+     * 订单支付后座位转为已售（事务提交后生效）
+     */
+    public void book(Order order) {
+        Long sessionId = order.getSession().getId();
+        long orderId = order.getId();
+        List<String> seats = parseSeatNumbers(order.getSeatNumbers());
+        afterCommit(() -> apply(sessionId, map -> map.book(orderId, seats)));
+    }
+
+    /**
+     * 订单取消或退款后释放座位（事务提交后生效）
+     */
+    public void release(Order order) {
+        release(order.getSession().getId(), order.getId(), parseSeatNumbers(order.getSeatNumbers()));
+    }
+
+    public void release(Long sessionId, long orderId, List<String> seats) {
+        afterCommit(() -> apply(sessionId, map -> map.release(orderId, seats)));
+    }
+
+    // 按布局序号去重并换成标准座位号；没有布局的放映厅只能按原样比较
+    private static List<String> canonicalSeats(SeatLayout layout, List<String> seatNumbers) {
+        if (layout.isEmpty()) {
+            if (new HashSet<>(seatNumbers).size() != seatNumbers.size()) {
+                throw new BusinessException(ErrorCode.SEAT_NOT_AVAILABLE.getCode(), "所选座位存在重复");
+            }
+            return List.copyOf(seatNumbers);
+        }
+        List<String> invalid = seatNumbers.stream().filter(seat -> !layout.isSellable(seat)).toList();
+        if (!invalid.isEmpty()) {
+            throw new BusinessException(ErrorCode.SEAT_NOT_AVAILABLE.getCode(),
+                    "座位不存在或不可选: " + String.join(", ", invalid));
+        }
+        BitSet seen = new BitSet(layout.size());
+        List<String> seats = new ArrayList<>(seatNumbers.size());
+        for (String seat : seatNumbers) {
+            int ordinal = layout.ordinalOf(seat);
+            if (seen.get(ordinal)) {
+                throw new BusinessException(ErrorCode.SEAT_NOT_AVAILABLE.getCode(), "所选座位存在重复");
+            }
+            seen.set(ordinal);
+            seats.add(layout.seatId(ordinal));
+        }
+        return List.copyOf(seats);
+    }
+
+    /**
+     * 丢弃场次的座位表，下次访问时从数据库重建
+     */
+    public void evict(Long sessionId) {
+        afterCommit(() -> sessions.remove(sessionId));
+    }
+
+    /**
+     * 放映厅布局变化后丢弃该厅所有场次的座位表
+     */
+    public void evictHall(Long hallId) {
+        afterCommit(() -> sessions.values().removeIf(slot -> {
+            SessionSeatMap map = slot.map;
+            // 仍在加载的座位表可能用的是旧布局，一并丢弃
+            return map == null || hallId.equals(map.layout().getHallId());
+        }));
+    }
+
+    /**
+     * 解析订单中的座位号 JSON，兼容历史数据中逗号分隔的写法
+     */
+    public List<String> parseSeatNumbers(String seatNumbers) {
+        if (seatNumbers == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(seatNumbers, SEAT_LIST);
+        } catch (Exception e) {
+            String raw = seatNumbers.trim();
+            // 去掉首尾的双引号（如果存在）
+            if (raw.startsWith("\"") && raw.endsWith("\"") && raw.length() > 1) {
+                raw = raw.substring(1, raw.length() - 1);
+            }
+            if (raw.startsWith("[")) {
+                log.error("解析座位号失败: {}", seatNumbers, e);
+                return Collections.emptyList();
+            }
+            return Arrays.stream(raw.split(","))
+                    .map(String::trim)
+                    .map(seat -> seat.startsWith("\"") && seat.endsWith("\"") && seat.length() > 1
+                            ? seat.substring(1, seat.length() - 1) : seat)
+                    .filter(seat -> !seat.isEmpty())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private SessionSeatMap seatMap(Long sessionId) {
+        // 先放入轻量的占位，加载在占位自己的锁内进行，不阻塞同一哈希桶内的其他场次
+        return sessions.computeIfAbsent(sessionId, SeatMapSlot::new).get();
+    }
+
+    // 已加载或正在加载的座位表才需要更新，没有占位时下次加载会从数据库读到最新状态
+    private void apply(Long sessionId, Consumer<SessionSeatMap> transition) {
+        SeatMapSlot slot = sessions.get(sessionId);
+        if (slot != null) {
+            slot.apply(transition);
+        }
+    }
+
+    private SessionSeatMap load(Long sessionId) {
+        Session session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("场次不存在"));
+
+        SessionSeatMap map = new SessionSeatMap(seatLayoutCache.get(session.getHall()));
+
+        LocalDateTime lockedSince = LocalDateTime.now().minusMinutes(timeoutMinutes);
+        for (Object[] row : orderSeatRepository.findActiveSeats(sessionId)) {
+            List<String> seat = List.of((String) row[0]);
+            long orderId = (Long) row[1];
+            LocalDateTime lockTime = (LocalDateTime) row[3];
+            if (row[2] == OrderSeat.SeatState.BOOKED) {
+                map.book(orderId, seat);
+            } else if (lockTime == null || lockTime.isAfter(lockedSince)) {
+                map.lock(orderId, seat, lockDeadline(lockTime));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 场次座位表的占位：首次访问时加载，加载期间到达的变更暂存，加载完成后重放。
+     * 加载期间被 evict 时占位已从 sessions 移除，加载结果不会再被发布
+     */
+    private final class SeatMapSlot {
+
+        private final Long sessionId;
+        private final Object loadLock = new Object();
+        private volatile SessionSeatMap map;
+        private List<Consumer<SessionSeatMap>> pending = new ArrayList<>(); // 由 this 保护
+
+        SeatMapSlot(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        SessionSeatMap get() {
+            SessionSeatMap current = map;
+            if (current != null) {
+                return current;
+            }
+            synchronized (loadLock) {
+                if (map == null) {
+                    SessionSeatMap loaded;
+                    try {
+                        loaded = load(sessionId);
+                    } catch (RuntimeException e) {
+                        sessions.remove(sessionId, this);
+                        throw e;
+                    }
+                    synchronized (this) {
+                        pending.forEach(transition -> transition.accept(loaded));
+                        pending = null;
+                        map = loaded;
+                    }
+                }
+                return map;
+            }
+        }
+
+        void apply(Consumer<SessionSeatMap> transition) {
+            SessionSeatMap current = map;
+            if (current == null) {
+                synchronized (this) {
+                    if (map == null) {
+                        pending.add(transition);
+                        return;
+                    }
+                    current = map;
+                }
+            }
+            transition.accept(current);
+        }
+    }
+
+    private long lockDeadline(LocalDateTime createTime) {
+        LocalDateTime base = createTime != null ? createTime : LocalDateTime.now();
+        return base.plusMinutes(timeoutMinutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
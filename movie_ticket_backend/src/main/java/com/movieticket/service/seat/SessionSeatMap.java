@@ -0,0 +1,184 @@
+package com.movieticket.service.seat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个场次的座位状态表
+ * 座位按放映厅布局映射为序号（见 {@link SeatLayout}），用两个位图分别记录已售和锁定状态，
+ * 布局之外的座位号按出现顺序追加在布局序号之后
+ */
+final class SessionSeatMap {
+
+    static final byte FREE = 0;
+    static final byte LOCKED = 1;
+    static final byte BOOKED = 2;
+
+    private final SeatLayout layout;
+
+    private final BitSet booked = new BitSet();
+    private final BitSet locked = new BitSet();
+    private String[] labels;
+    private long[] holders; // 持有该座位的订单ID
+    private final Map<String, Integer> overflow = new HashMap<>();
+    private final Map<Long, Long> lockDeadlines = new HashMap<>(); // 订单ID -> 锁定截止时间(毫秒)
+
+    SessionSeatMap(SeatLayout layout) {
+        this.layout = layout;
+        int capacity = Math.max(layout.size(), 16);
+        this.labels = new String[capacity];
+        this.holders = new long[capacity];
+    }
+
+    SeatLayout layout() {
+        return layout;
+    }
+
+    synchronized byte state(String seat, long now, Long excludeOrderId) {
+        int ordinal = ordinalOf(seat, false);
+        return ordinal < 0 ? FREE : stateAt(ordinal, now, excludeOrderId);
+    }
+
+    synchronized boolean isAvailable(List<String> seats, long now, Long excludeOrderId) {
+        for (String seat : seats) {
+            if (state(seat, now, excludeOrderId) != FREE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 原子地锁定全部座位：任一座位不可用则一个都不锁定
+     *
+     * @return 冲突的座位号，为空表示锁定成功
+     */
+    synchronized List<String> tryLock(long holderId, List<String> seats, long now, long deadline) {
+        List<String> conflicts = new ArrayList<>();
+        for (String seat : seats) {
+            if (state(seat, now, null) != FREE) {
+                conflicts.add(seat);
+            }
+        }
+        if (conflicts.isEmpty()) {
+            lock(holderId, seats, deadline);
+        }
+        return conflicts;
+    }
+
+    /**
+     * 将临时持有者的锁定转交给正式订单
+     */
+    synchronized void transfer(long fromId, long toId, List<String> seats, long deadline) {
+        for (String seat : seats) {
+            int ordinal = ordinalOf(seat, false);
+            if (ordinal >= 0 && holders[ordinal] == fromId) {
+                holders[ordinal] = toId;
+            }
+        }
+        lockDeadlines.remove(fromId);
+        lockDeadlines.put(toId, deadline);
+    }
+
+    synchronized void lock(long orderId, List<String> seats, long deadline) {
+        for (String seat : seats) {
+            int ordinal = ordinalOf(seat, true);
+            locked.set(ordinal);
+            holders[ordinal] = orderId;
+        }
+        lockDeadlines.put(orderId, deadline);
+    }
+
+    synchronized void book(long orderId, List<String> seats) {
+        for (String seat : seats) {
+            int ordinal = ordinalOf(seat, true);
+            locked.clear(ordinal);
+            booked.set(ordinal);
+            holders[ordinal] = orderId;
+        }
+        lockDeadlines.remove(orderId);
+    }
+
+    synchronized void release(long orderId, List<String> seats) {
+        for (String seat : seats) {
+            int ordinal = ordinalOf(seat, false);
+            if (ordinal >= 0 && holders[ordinal] == orderId) {
+                locked.clear(ordinal);
+                booked.clear(ordinal);
+                holders[ordinal] = 0L;
+            }
+        }
+        lockDeadlines.remove(orderId);
+    }
+
+    synchronized List<String> bookedSeats() {
+        List<String> result = new ArrayList<>(booked.cardinality());
+        for (int i = booked.nextSetBit(0); i >= 0; i = booked.nextSetBit(i + 1)) {
+            result.add(labels[i]);
+        }
+        return result;
+    }
+
+    synchronized List<String> lockedSeats(long now) {
+        List<String> result = new ArrayList<>(locked.cardinality());
+        for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1)) {
+            if (stateAt(i, now, null) == LOCKED) {
+                result.add(labels[i]);
+            }
+        }
+        return result;
+    }
+
+    private byte stateAt(int ordinal, long now, Long excludeOrderId) {
+        if (booked.get(ordinal)) {
+            return BOOKED;
+        }
+        if (!locked.get(ordinal)) {
+            return FREE;
+        }
+        long holder = holders[ordinal];
+        if (excludeOrderId != null && holder == excludeOrderId) {
+            return FREE;
+        }
+        Long deadline = lockDeadlines.get(holder);
+        if (deadline == null || deadline <= now) {
+            // 锁定已超时，视为空闲并顺便清理
+            locked.clear(ordinal);
+            return FREE;
+        }
+        return LOCKED;
+    }
+
+    // 座位号对应的序号，布局之外的座位号（历史数据）按需追加
+    private int ordinalOf(String seat, boolean create) {
+        int ordinal = layout.ordinalOf(seat);
+        if (ordinal < 0) {
+            Integer extra = overflow.get(seat);
+            if (extra != null) {
+                ordinal = extra;
+            } else if (create) {
+                ordinal = layout.size() + overflow.size();
+                overflow.put(seat, ordinal);
+            } else {
+                return -1;
+            }
+        }
+        ensureCapacity(ordinal);
+        if (labels[ordinal] == null) {
+            labels[ordinal] = seat;
+        }
+        return ordinal;
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal >= labels.length) {
+            int size = Math.max(labels.length * 2, ordinal + 1);
+            labels = Arrays.copyOf(labels, size);
+            holders = Arrays.copyOf(holders, size);
+        }
+    }
+}
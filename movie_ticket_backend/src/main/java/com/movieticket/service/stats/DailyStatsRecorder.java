@@ -0,0 +1,430 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.entity.DailyStats;
+import com.movieticket.entity.Order;
+import com.movieticket.entity.User;
+import com.movieticket.repository.DailyStatsRepository;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.repository.RowInserter;
+import com.movieticket.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.movieticket.service.seat.TransactionHooks.afterCommit;
+
+/**
+ * 每日统计汇总的维护
+ * 订单状态变化、用户注册或删除时，在事务提交后把增量累加到内存中对应日期的计数器（LongAdder），
+ * 由后台线程定时在独立事务中写入汇总行，下单、支付、取消的事务不再更新也不再锁定当天的汇总行。
+ * 仪表盘读取汇总表并加上 pending() 中尚未写库的增量；停机前再写一次。
+ * 内存中的增量在进程异常退出时会丢失，因此启动时（汇总表为空则全量重建）和之后每隔
+ * app.dashboard.stats-reconcile-minutes 都用订单表和用户表重新统计昨天和今天的汇总行
+ */
+@Slf4j
+@Component
+public class DailyStatsRecorder implements ApplicationRunner {
+
+    private final DailyStatsRepository dailyStatsRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final RowInserter rowInserter;
+    private final PlatformTransactionManager transactionManager;
+    private final long flushSeconds;
+    private final long reconcileMinutes;
+    private final ScheduledExecutorService flusher;
+
+    private final Set<LocalDate> knownDates = ConcurrentHashMap.newKeySet(); // 已确认存在汇总行的日期
+    // 尚未写库的增量，每个日期一个条目（每天约百字节，不回收）
+    private final ConcurrentHashMap<LocalDate, DayDelta> pending = new ConcurrentHashMap<>();
+    // 已从 pending 取走、正在写库的增量，写库结束前仍计入 pending()
+    private volatile Map<LocalDate, long[]> inFlight = Map.of();
+
+    public DailyStatsRecorder(DailyStatsRepository dailyStatsRepository,
+                              OrderRepository orderRepository,
+                              UserRepository userRepository,
+                              RowInserter rowInserter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.dashboard.stats-flush-seconds:5}") long flushSeconds,
+                              @Value("${app.dashboard.stats-reconcile-minutes:10}") long reconcileMinutes) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.rowInserter = rowInserter;
+        this.transactionManager = transactionManager;
+        this.flushSeconds = flushSeconds;
+        this.reconcileMinutes = reconcileMinutes;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "daily-stats-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 订单状态变化，from 为 null 表示新建，to 为 null 表示删除
+     */
+    public void orderChanged(Order order, Order.OrderStatus from, Order.OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        BigDecimal price = order.getTotalPrice() != null ? order.getTotalPrice() : BigDecimal.ZERO;
+        BigDecimal revenue = BigDecimal.ZERO;
+        if (from != null) {
+            counts.merge(from, -1L, Long::sum);
+            if (from == Order.OrderStatus.PAID) {
+                revenue = revenue.subtract(price);
+            }
+        }
+        if (to != null) {
+            counts.merge(to, 1L, Long::sum);
+            if (to == Order.OrderStatus.PAID) {
+                revenue = revenue.add(price);
+            }
+        }
+        addOrders(dateOf(order.getCreateTime()), counts, revenue);
+    }
+
+    /**
+     * 已支付订单金额被修改
+     */
+    public void revenueChanged(Order order, BigDecimal oldPrice) {
+        if (order.getStatus() != Order.OrderStatus.PAID) {
+            return;
+        }
+        BigDecimal delta = order.getTotalPrice().subtract(oldPrice != null ? oldPrice : BigDecimal.ZERO);
+        if (delta.signum() != 0) {
+            addOrders(dateOf(order.getCreateTime()), Map.of(), delta);
+        }
+    }
+
+    /**
+     * 超时取消：各创建日期的待支付订单转为已取消
+     */
+    public void ordersExpired(Map<LocalDate, Integer> countsByDate) {
+        countsByDate.forEach((date, count) -> addOrders(date,
+                Map.of(Order.OrderStatus.PENDING, (long) -count, Order.OrderStatus.CANCELLED, (long) count),
+                BigDecimal.ZERO));
+    }
+
+    public void userRegistered(User user) {
+        addNewUsers(dateOf(user.getCreateTime()), 1);
+    }
+
+    public void userRemoved(User user) {
+        addNewUsers(dateOf(user.getCreateTime()), -1);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (dailyStatsRepository.count() == 0 && (orderRepository.count() > 0 || userRepository.count() > 0)) {
+            rebuild();
+        } else {
+            reconcileRecent();
+        }
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+        if (reconcileMinutes > 0) {
+            flusher.scheduleAtFixedRate(this::reconcileRecent, reconcileMinutes, reconcileMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    /**
+     * 把内存中的增量写入汇总表，返回写入的日期数；失败时增量放回，下次重试
+     */
+    public synchronized int flush() {
+        Map<LocalDate, long[]> drained = new HashMap<>();
+        pending.forEach((date, delta) -> {
+            long[] values = delta.sum();
+            if (values != null) {
+                drained.put(date, values);
+            }
+        });
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        // 先记入 inFlight 再从计数中减去，pending() 读到的值只会短暂偏大，不会偏小
+        inFlight = drained;
+        drained.forEach((date, values) -> pending.get(date).subtract(values));
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    drained.forEach((date, values) -> {
+                        ensureRow(date);
+                        if (values[DayDelta.NEW_USERS] != 0) {
+                            dailyStatsRepository.addNewUsers(date, values[DayDelta.NEW_USERS]);
+                        }
+                        dailyStatsRepository.addOrders(date, values[DayDelta.PENDING], values[DayDelta.PAID],
+                                values[DayDelta.CANCELLED], values[DayDelta.REFUNDED],
+                                BigDecimal.valueOf(values[DayDelta.REVENUE_CENTS], 2));
+                    }));
+        } catch (RuntimeException e) {
+            drained.forEach((date, values) -> delta(date).add(values));
+            throw e;
+        } finally {
+            inFlight = Map.of();
+        }
+        return drained.size();
+    }
+
+    /**
+     * 尚未写入汇总表的增量，按日期返回（只含有变化的日期）
+     */
+    public Map<LocalDate, DailyStats> pending() {
+        Map<LocalDate, long[]> sums = new HashMap<>();
+        pending.forEach((date, delta) -> {
+            long[] values = delta.sum();
+            if (values != null) {
+                sums.put(date, values);
+            }
+        });
+        inFlight.forEach((date, values) -> sums.merge(date, values.clone(), (a, b) -> {
+            for (int i = 0; i < DayDelta.SIZE; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        }));
+        Map<LocalDate, DailyStats> days = new HashMap<>();
+        sums.forEach((date, values) -> {
+            DailyStats day = new DailyStats(date);
+            day.setPendingOrders(values[DayDelta.PENDING]);
+            day.setPaidOrders(values[DayDelta.PAID]);
+            day.setCancelledOrders(values[DayDelta.CANCELLED]);
+            day.setRefundedOrders(values[DayDelta.REFUNDED]);
+            day.setRevenue(BigDecimal.valueOf(values[DayDelta.REVENUE_CENTS], 2));
+            day.setNewUsers(values[DayDelta.NEW_USERS]);
+            days.put(date, day);
+        });
+        return days;
+    }
+
+    /**
+     * 用订单表和用户表重新统计 [from, to] 内的汇总行，只改写不一致的行，返回修正的行数
+     * 先写入内存中的增量并锁定这些行，统计之后丢弃这期间提交的增量（已包含在统计结果中）
+     */
+    public synchronized int reconcile(LocalDate from, LocalDate to) {
+        flush();
+        Integer fixed = new TransactionTemplate(transactionManager).execute(status -> {
+            List<DailyStats> existing = dailyStatsRepository.findForUpdate(from, to);
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.plusDays(1).atStartOfDay();
+            Map<LocalDate, DailyStats> actual = collect(orderRepository.countOrdersByDay(start, end),
+                    userRepository.countUsersByDay(start, end));
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                DayDelta delta = pending.get(date);
+                if (delta != null) {
+                    delta.drain();
+                }
+            }
+            int changed = 0;
+            for (DailyStats day : existing) {
+                DailyStats expected = actual.remove(day.getStatDate());
+                if (copyCounts(expected != null ? expected : new DailyStats(day.getStatDate()), day)) {
+                    changed++;
+                }
+            }
+            for (DailyStats day : actual.values()) {
+                dailyStatsRepository.save(day);
+                knownDates.add(day.getStatDate());
+                changed++;
+            }
+            return changed;
+        });
+        int changed = fixed != null ? fixed : 0;
+        if (changed > 0) {
+            log.warn("每日统计汇总与订单表不一致，已修正 {} 天（{} 至 {}）", changed, from, to);
+        }
+        return changed;
+    }
+
+    /**
+     * 从订单表和用户表全量重建汇总；重建结果已包含尚未写库的增量，丢弃这些增量
+     */
+    public synchronized void rebuild() {
+        pending.values().forEach(DayDelta::drain);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Map<LocalDate, DailyStats> days = collect(orderRepository.countDailyOrdersByStatus(),
+                    userRepository.countDailyRegistrations());
+            dailyStatsRepository.deleteAllInBatch();
+            dailyStatsRepository.saveAll(days.values());
+            knownDates.clear();
+            knownDates.addAll(days.keySet());
+            log.info("每日统计汇总已重建，共 {} 天", days.size());
+        });
+    }
+
+    // 订单行为 日期、状态、数量、金额，用户行为 日期、数量
+    private static Map<LocalDate, DailyStats> collect(List<Object[]> orderRows, List<Object[]> userRows) {
+        Map<LocalDate, DailyStats> days = new HashMap<>();
+        for (Object[] row : orderRows) {
+            DailyStats day = days.computeIfAbsent((LocalDate) row[0], DailyStats::new);
+            long count = ((Number) row[2]).longValue();
+            switch ((Order.OrderStatus) row[1]) {
+                case PENDING -> day.setPendingOrders(count);
+                case PAID -> {
+                    day.setPaidOrders(count);
+                    day.setRevenue((BigDecimal) row[3]);
+                }
+                case CANCELLED -> day.setCancelledOrders(count);
+                case REFUNDED -> day.setRefundedOrders(count);
+            }
+        }
+        for (Object[] row : userRows) {
+            days.computeIfAbsent((LocalDate) row[0], DailyStats::new).setNewUsers(((Number) row[1]).longValue());
+        }
+        return days;
+    }
+
+    // 有不同时把 from 的计数写入 to
+    private static boolean copyCounts(DailyStats from, DailyStats to) {
+        boolean same = from.getPendingOrders().equals(to.getPendingOrders())
+                && from.getPaidOrders().equals(to.getPaidOrders())
+                && from.getCancelledOrders().equals(to.getCancelledOrders())
+                && from.getRefundedOrders().equals(to.getRefundedOrders())
+                && from.getRevenue().compareTo(to.getRevenue()) == 0
+                && from.getNewUsers().equals(to.getNewUsers());
+        if (same) {
+            return false;
+        }
+        to.setPendingOrders(from.getPendingOrders());
+        to.setPaidOrders(from.getPaidOrders());
+        to.setCancelledOrders(from.getCancelledOrders());
+        to.setRefundedOrders(from.getRefundedOrders());
+        to.setRevenue(from.getRevenue());
+        to.setNewUsers(from.getNewUsers());
+        return true;
+    }
+
+    // 调用方事务提交后才计入，回滚的订单不影响汇总
+    private void addOrders(LocalDate date, Map<Order.OrderStatus, Long> counts, BigDecimal revenue) {
+        long[] values = new long[DayDelta.SIZE];
+        values[DayDelta.PENDING] = counts.getOrDefault(Order.OrderStatus.PENDING, 0L);
+        values[DayDelta.PAID] = counts.getOrDefault(Order.OrderStatus.PAID, 0L);
+        values[DayDelta.CANCELLED] = counts.getOrDefault(Order.OrderStatus.CANCELLED, 0L);
+        values[DayDelta.REFUNDED] = counts.getOrDefault(Order.OrderStatus.REFUNDED, 0L);
+        values[DayDelta.REVENUE_CENTS] = revenue.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        afterCommit(() -> delta(date).add(values));
+    }
+
+    private void addNewUsers(LocalDate date, long count) {
+        long[] values = new long[DayDelta.SIZE];
+        values[DayDelta.NEW_USERS] = count;
+        afterCommit(() -> delta(date).add(values));
+    }
+
+    private DayDelta delta(LocalDate date) {
+        return pending.computeIfAbsent(date, key -> new DayDelta());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("每日统计汇总写入失败，稍后重试", e);
+        }
+    }
+
+    // 昨天的订单仍可能被支付、取消，一并对账
+    private void reconcileRecent() {
+        LocalDate today = LocalDate.now();
+        try {
+            reconcile(today.minusDays(1), today);
+        } catch (RuntimeException e) {
+            log.error("每日统计汇总对账失败", e);
+        }
+    }
+
+    // 汇总行在刷写事务内补齐，提交后才记为已存在
+    private void ensureRow(LocalDate date) {
+        if (!knownDates.contains(date)) {
+            rowInserter.insertIfAbsent(new DailyStats(date));
+            afterCommit(() -> knownDates.add(date));
+        }
+    }
+
+    private static LocalDate dateOf(LocalDateTime time) {
+        return time != null ? time.toLocalDate() : LocalDate.now();
+    }
+
+    /**
+     * 某一天尚未写库的增量；取走时减去读到的值，并发累加的部分留到下一次
+     */
+    private static final class DayDelta {
+
+        static final int PENDING = 0;
+        static final int PAID = 1;
+        static final int CANCELLED = 2;
+        static final int REFUNDED = 3;
+        static final int REVENUE_CENTS = 4;
+        static final int NEW_USERS = 5;
+        static final int SIZE = 6;
+
+        private final LongAdder[] adders = new LongAdder[SIZE];
+
+        DayDelta() {
+            for (int i = 0; i < SIZE; i++) {
+                adders[i] = new LongAdder();
+            }
+        }
+
+        void add(long[] values) {
+            for (int i = 0; i < SIZE; i++) {
+                if (values[i] != 0) {
+                    adders[i].add(values[i]);
+                }
+            }
+        }
+
+        void subtract(long[] values) {
+            for (int i = 0; i < SIZE; i++) {
+                if (values[i] != 0) {
+                    adders[i].add(-values[i]);
+                }
+            }
+        }
+
+        // 全部为 0 时返回 null
+        long[] sum() {
+            long[] values = new long[SIZE];
+            boolean any = false;
+            for (int i = 0; i < SIZE; i++) {
+                values[i] = adders[i].sum();
+                any |= values[i] != 0;
+            }
+            return any ? values : null;
+        }
+
+        void drain() {
+            long[] values = sum();
+            if (values != null) {
+                subtract(values);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.entity.Comment;
+import com.movieticket.entity.MovieRatingStats;
+import com.movieticket.repository.CommentRepository;
+import com.movieticket.repository.MovieRatingStatsRepository;
+import com.movieticket.repository.RatingHistogram;
+import com.movieticket.repository.RowInserter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.movieticket.service.seat.TransactionHooks.afterCommit;
+
+/**
+ * 电影评分汇总的维护
+ * 评论新增、修改评分、删除时在同一事务内累加对应电影的汇总行，评分统计直接按主键读取；
+ * 启动时若汇总表为空则从评论表重建，之后按 app.comment.rating-reconcile-hours 定期与评论表对账。
+ * 对账先锁定汇总行再统计评论表：已累加但未提交的评论写入会先提交并计入统计，
+ * 之后到达的累加等对账提交后再执行，不会被对账写入的绝对值覆盖
+ */
+@Slf4j
+@Component
+public class MovieRatingRecorder implements ApplicationRunner {
+
+    private static final BigDecimal FIVE = new BigDecimal("5.0");
+    private static final BigDecimal FOUR_AND_HALF = new BigDecimal("4.5");
+    private static final BigDecimal FOUR = new BigDecimal("4.0");
+    private static final BigDecimal THREE = new BigDecimal("3.0");
+    private static final BigDecimal TWO = new BigDecimal("2.0");
+    private static final BigDecimal ONE = new BigDecimal("1.0");
+
+    private final MovieRatingStatsRepository movieRatingStatsRepository;
+    private final CommentRepository commentRepository;
+    private final RowInserter rowInserter;
+    private final PlatformTransactionManager transactionManager;
+    private final long reconcileHours;
+    private final ScheduledExecutorService reconciler;
+
+    private final Set<Long> knownMovies = ConcurrentHashMap.newKeySet(); // 已确认存在汇总行的电影
+
+    public MovieRatingRecorder(MovieRatingStatsRepository movieRatingStatsRepository,
+                               CommentRepository commentRepository,
+                               RowInserter rowInserter,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.comment.rating-reconcile-hours:24}") long reconcileHours) {
+        this.movieRatingStatsRepository = movieRatingStatsRepository;
+        this.commentRepository = commentRepository;
+        this.rowInserter = rowInserter;
+        this.transactionManager = transactionManager;
+        this.reconcileHours = reconcileHours;
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rating-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 新增正常状态的评论
+     */
+    public void commentAdded(Comment comment) {
+        if (Boolean.TRUE.equals(comment.getStatus())) {
+            addRating(comment.getMovie().getId(), 1, comment.getRating());
+        }
+    }
+
+    /**
+     * 删除评论
+     */
+    public void commentRemoved(Comment comment) {
+        if (Boolean.TRUE.equals(comment.getStatus())) {
+            addRating(comment.getMovie().getId(), -1, comment.getRating());
+        }
+    }
+
+    /**
+     * 评论的评分被修改，按旧评分减一、新评分加一处理
+     */
+    public void ratingChanged(Comment comment, BigDecimal oldRating) {
+        if (!Boolean.TRUE.equals(comment.getStatus()) || compare(oldRating, comment.getRating()) == 0) {
+            return;
+        }
+        Long movieId = comment.getMovie().getId();
+        long[] stars = new long[6];
+        stars[starOf(oldRating)]--;
+        stars[starOf(comment.getRating())]++;
+        BigDecimal delta = orZero(comment.getRating()).subtract(orZero(oldRating));
+        ensureRow(movieId);
+        movieRatingStatsRepository.addRatings(movieId, 0, delta,
+                stars[5], stars[4], stars[3], stars[2], stars[1]);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (movieRatingStatsRepository.count() == 0 && commentRepository.count() > 0) {
+            rebuild();
+        }
+        if (reconcileHours > 0) {
+            reconciler.scheduleAtFixedRate(this::reconcileAll, reconcileHours, reconcileHours, TimeUnit.HOURS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        reconciler.shutdownNow();
+    }
+
+    /**
+     * 从评论表重新统计，只改写与评论表不一致的汇总行，返回修正的行数
+     */
+    public int rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Integer fixed = transaction.execute(status -> {
+            List<MovieRatingStats> existing = new ArrayList<>(movieRatingStatsRepository.findAllForUpdate());
+            int changed = reconcile(existing, commentRepository.findAllRatingHistograms());
+            knownMovies.clear();
+            existing.forEach(stats -> knownMovies.add(stats.getMovieId()));
+            return changed;
+        });
+        log.info("电影评分汇总已与评论表对账，修正 {} 行", fixed);
+        return fixed != null ? fixed : 0;
+    }
+
+    /**
+     * 只对指定电影重新统计，用于评论被批量删除（如删除用户时级联删除）之后；在调用方事务内执行
+     */
+    public int rebuild(Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return 0;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Integer fixed = transaction.execute(status -> {
+            List<MovieRatingStats> existing = new ArrayList<>(movieRatingStatsRepository.findAllByIdForUpdate(movieIds));
+            int changed = reconcile(existing, commentRepository.findRatingHistograms(movieIds));
+            existing.forEach(stats -> knownMovies.add(stats.getMovieId()));
+            return changed;
+        });
+        return fixed != null ? fixed : 0;
+    }
+
+    // 把评分分布写入汇总行，没有评论的电影清零；新出现的电影追加到 existing
+    private int reconcile(List<MovieRatingStats> existing, List<RatingHistogram> histograms) {
+        Map<Long, RatingHistogram> actual = new HashMap<>();
+        for (RatingHistogram histogram : histograms) {
+            actual.put(histogram.movieId(), histogram);
+        }
+        int changed = 0;
+        for (MovieRatingStats stats : existing) {
+            RatingHistogram expected = actual.remove(stats.getMovieId());
+            if (!sameCounts(stats, expected)) {
+                copyCounts(expected, stats);
+                changed++;
+            }
+        }
+        for (RatingHistogram histogram : actual.values()) {
+            MovieRatingStats stats = new MovieRatingStats(histogram.movieId());
+            copyCounts(histogram, stats);
+            existing.add(movieRatingStatsRepository.save(stats));
+            changed++;
+        }
+        return changed;
+    }
+
+    private void reconcileAll() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("电影评分汇总对账失败", e);
+        }
+    }
+
+    private void addRating(Long movieId, int count, BigDecimal rating) {
+        long[] stars = new long[6];
+        stars[starOf(rating)] += count;
+        BigDecimal sum = orZero(rating).multiply(BigDecimal.valueOf(count));
+        ensureRow(movieId);
+        movieRatingStatsRepository.addRatings(movieId, count, sum,
+                stars[5], stars[4], stars[3], stars[2], stars[1]);
+    }
+
+    // 汇总行在调用方事务内补齐，提交后才记为已存在
+    private void ensureRow(Long movieId) {
+        if (!knownMovies.contains(movieId)) {
+            rowInserter.insertIfAbsent(new MovieRatingStats(movieId));
+            afterCommit(() -> knownMovies.add(movieId));
+        }
+    }
+
+    /**
+     * 评分所属星级，与 RatingHistogram 的星级区间一致；不在任何区间时为 0
+     */
+    static int starOf(BigDecimal rating) {
+        if (rating == null || rating.compareTo(ONE) < 0 || rating.compareTo(FIVE) > 0) {
+            return 0;
+        }
+        if (rating.compareTo(FOUR_AND_HALF) >= 0) {
+            return 5;
+        }
+        if (rating.compareTo(FOUR) >= 0) {
+            return 4;
+        }
+        if (rating.compareTo(THREE) >= 0) {
+            return 3;
+        }
+        return rating.compareTo(TWO) >= 0 ? 2 : 1;
+    }
+
+    private static boolean sameCounts(MovieRatingStats stats, RatingHistogram expected) {
+        if (expected == null) {
+            return stats.getCommentCount() == 0 && compare(stats.getRatingSum(), BigDecimal.ZERO) == 0
+                    && stats.getFiveStarCount() == 0 && stats.getFourStarCount() == 0
+                    && stats.getThreeStarCount() == 0 && stats.getTwoStarCount() == 0
+                    && stats.getOneStarCount() == 0;
+        }
+        return stats.getCommentCount() == expected.count()
+                && compare(stats.getRatingSum(), expected.ratingSum()) == 0
+                && stats.getFiveStarCount() == expected.fiveStar()
+                && stats.getFourStarCount() == expected.fourStar()
+                && stats.getThreeStarCount() == expected.threeStar()
+                && stats.getTwoStarCount() == expected.twoStar()
+                && stats.getOneStarCount() == expected.oneStar();
+    }
+
+    private static void copyCounts(RatingHistogram from, MovieRatingStats to) {
+        to.setCommentCount(from != null ? from.count() : 0L);
+        to.setRatingSum(from != null ? from.ratingSum() : BigDecimal.ZERO);
+        to.setFiveStarCount(from != null ? from.fiveStar() : 0L);
+        to.setFourStarCount(from != null ? from.fourStar() : 0L);
+        to.setThreeStarCount(from != null ? from.threeStar() : 0L);
+        to.setTwoStarCount(from != null ? from.twoStar() : 0L);
+        to.setOneStarCount(from != null ? from.oneStar() : 0L);
+    }
+
+    private static int compare(BigDecimal a, BigDecimal b) {
+        return orZero(a).compareTo(orZero(b));
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,182 @@
+package com.movieticket.service.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仪表盘等聚合页面的并行查询
+ * 相互独立的统计项在固定大小的线程池中并发执行，线程数即同时占用的数据库连接上限；
+ * 每个统计项在页面的截止时间内未完成则取消并返回默认值，不拖住整个页面；
+ * 线程池队列已满时直接拒绝，该统计项返回默认值，不占用请求线程。
+ * 各统计项的耗时、超时、失败和拒绝次数按名称累计
+ */
+@Slf4j
+@Component
+public class SectionFanOut {
+
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, SectionMetrics> metrics = new ConcurrentHashMap<>();
+
+    public SectionFanOut(@Value("${app.dashboard.parallelism:4}") int parallelism,
+                         @Value("${app.dashboard.section-timeout-ms:2000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        AtomicInteger sequence = new AtomicInteger();
+        // 队列满时拒绝而不是由调用线程执行，请求再多也不会超过线程池占用的连接数，也不会阻塞请求线程
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 16), runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 开启一组并行查询，关闭时取消仍未完成的查询
+     */
+    public Scope open() {
+        return new Scope(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+    }
+
+    /**
+     * 各统计项的累计指标，按名称排序
+     */
+    public Map<String, SectionStats> getSectionStats() {
+        Map<String, SectionStats> stats = new TreeMap<>();
+        metrics.forEach((name, metric) -> stats.put(name, metric.snapshot()));
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private SectionMetrics metrics(String name) {
+        return metrics.computeIfAbsent(name, key -> new SectionMetrics());
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final long deadlineNanos;
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        private Scope(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * 提交一个统计项；线程池已满时该统计项直接使用默认值
+         */
+        public <T> Section<T> fork(String name, Callable<T> query) {
+            SectionMetrics metric = metrics(name);
+            Future<T> future;
+            try {
+                future = executor.submit(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        return query.call();
+                    } finally {
+                        metric.record(System.nanoTime() - start);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                metric.rejections.increment();
+                log.warn("仪表盘查询线程池已满，统计项 {} 使用默认值", name);
+                return new Section<>(name, null, deadlineNanos);
+            }
+            futures.add(future);
+            return new Section<>(name, future, deadlineNanos);
+        }
+
+        @Override
+        public void close() {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public final class Section<T> {
+
+        private final String name;
+        private final Future<T> future; // 被拒绝时为 null
+        private final long deadlineNanos;
+
+        private Section(String name, Future<T> future, long deadlineNanos) {
+            this.name = name;
+            this.future = future;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * 等待结果直到页面截止时间，超时或失败时返回默认值
+         */
+        public T get(T fallback) {
+            if (future == null) {
+                return fallback;
+            }
+            try {
+                return future.get(Math.max(deadlineNanos - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                metrics(name).timeouts.increment();
+                log.warn("统计项 {} 超过 {} ms 未完成，使用默认值", name, timeoutMs);
+            } catch (ExecutionException e) {
+                metrics(name).failures.increment();
+                log.error("统计项 {} 查询失败，使用默认值", name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+            }
+            return fallback;
+        }
+    }
+
+    /**
+     * 统计项指标快照，耗时单位为毫秒
+     */
+    public record SectionStats(long calls, double avgMs, double maxMs, long timeouts, long failures,
+                               long rejections) {
+    }
+
+    private static final class SectionMetrics {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+
+        void record(long nanos) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        SectionStats snapshot() {
+            long count = calls.sum();
+            double avgMs = count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+            return new SectionStats(count, avgMs, maxNanos.get() / 1_000_000.0, timeouts.sum(), failures.sum(),
+                    rejections.sum());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.exception.BusinessException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 统计时间粒度，每个桶为左闭右开区间 [truncate(t), next(truncate(t)))，周以周一为起点
+ */
+public enum TimeBucket {
+
+    HOUR {
+        @Override
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(ChronoUnit.HOURS);
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return bucketStart.plusHours(1);
+        }
+
+        @Override
+        public String label(LocalDateTime bucketStart) {
+            return bucketStart.format(HOUR_LABEL);
+        }
+    },
+
+    DAY {
+        @Override
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(ChronoUnit.DAYS);
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return bucketStart.plusDays(1);
+        }
+    },
+
+    WEEK {
+        @Override
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+
+        @Override
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return bucketStart.plusWeeks(1);
+        }
+    };
+
+    private static final DateTimeFormatter HOUR_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
+
+    /**
+     * 时间所在桶的起始时间
+     */
+    public abstract LocalDateTime truncate(LocalDateTime time);
+
+    /**
+     * 下一个桶的起始时间
+     */
+    public abstract LocalDateTime next(LocalDateTime bucketStart);
+
+    /**
+     * 图表横轴标签，按天和按周为日期，按小时为 "yyyy-MM-dd HH:00"
+     */
+    public String label(LocalDateTime bucketStart) {
+        return bucketStart.toLocalDate().toString();
+    }
+
+    /**
+     * 解析请求参数（hour/day/week，不区分大小写），为空时按天
+     */
+    public static TimeBucket of(String value) {
+        if (value == null || value.isBlank()) {
+            return DAY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("不支持的统计粒度: " + value);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.entity.DailyStats;
+import com.movieticket.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 时间序列中的一个桶：各状态订单数、已支付金额、新注册用户数
+ */
+public class TimeSeriesPoint {
+
+    private final LocalDateTime start;
+    private final Map<Order.OrderStatus, Long> orders = new EnumMap<>(Order.OrderStatus.class);
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private long newUsers;
+
+    TimeSeriesPoint(LocalDateTime start) {
+        this.start = start;
+    }
+
+    /**
+     * 由每日汇总行构造按天的桶
+     */
+    public static TimeSeriesPoint of(DailyStats day) {
+        TimeSeriesPoint point = new TimeSeriesPoint(day.getStatDate().atStartOfDay());
+        point.orders.put(Order.OrderStatus.PENDING, day.getPendingOrders());
+        point.orders.put(Order.OrderStatus.PAID, day.getPaidOrders());
+        point.orders.put(Order.OrderStatus.CANCELLED, day.getCancelledOrders());
+        point.orders.put(Order.OrderStatus.REFUNDED, day.getRefundedOrders());
+        point.revenue = day.getRevenue();
+        point.newUsers = day.getNewUsers();
+        return point;
+    }
+
+    /**
+     * 桶的起始时间，全量汇总时为 null
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public long getOrders(Order.OrderStatus status) {
+        return orders.getOrDefault(status, 0L);
+    }
+
+    public long getTotalOrders() {
+        long total = 0;
+        for (long count : orders.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 已支付订单金额
+     */
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public long getNewUsers() {
+        return newUsers;
+    }
+
+    void addOrders(Order.OrderStatus status, long count, BigDecimal amount) {
+        orders.merge(status, count, Long::sum);
+        if (status == Order.OrderStatus.PAID) {
+            revenue = revenue.add(amount);
+        }
+    }
+
+    void addNewUsers(long count) {
+        newUsers += count;
+    }
+}
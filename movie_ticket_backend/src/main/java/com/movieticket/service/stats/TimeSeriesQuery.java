@@ -0,0 +1,92 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.entity.Order;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按时间桶统计订单和注册用户
+ * 订单和用户各用一条 GROUP BY 查询取回区间内有数据的桶（按周的统计由按天的分组合并），
+ * 没有数据的桶在内存中补零，返回从 start 所在桶到 end 所在桶的连续序列
+ */
+@Component
+@RequiredArgsConstructor
+public class TimeSeriesQuery {
+
+    // 单次查询允许的最大桶数，约为两个月的小时数
+    static final int MAX_BUCKETS = 1500;
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * 统计 [start, end] 覆盖的各个桶，首尾按桶边界对齐
+     */
+    @Transactional(readOnly = true)
+    public List<TimeSeriesPoint> query(TimeBucket bucket, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            throw new BusinessException("统计时间范围不正确");
+        }
+        Map<LocalDateTime, TimeSeriesPoint> points = new LinkedHashMap<>();
+        LocalDateTime from = bucket.truncate(start);
+        LocalDateTime to = from;
+        while (!to.isAfter(end)) {
+            if (points.size() >= MAX_BUCKETS) {
+                throw new BusinessException("统计时间范围过大，请缩小范围或使用更大的统计粒度");
+            }
+            points.put(to, new TimeSeriesPoint(to));
+            to = bucket.next(to);
+        }
+
+        if (bucket == TimeBucket.HOUR) {
+            for (Object[] row : orderRepository.countOrdersByHour(from, to)) {
+                points.get(hourOf(row[0], row[1]))
+                        .addOrders((Order.OrderStatus) row[2], ((Number) row[3]).longValue(), (BigDecimal) row[4]);
+            }
+            for (Object[] row : userRepository.countUsersByHour(from, to)) {
+                points.get(hourOf(row[0], row[1])).addNewUsers(((Number) row[2]).longValue());
+            }
+        } else {
+            for (Object[] row : orderRepository.countOrdersByDay(from, to)) {
+                points.get(bucket.truncate(((LocalDate) row[0]).atStartOfDay()))
+                        .addOrders((Order.OrderStatus) row[1], ((Number) row[2]).longValue(), (BigDecimal) row[3]);
+            }
+            for (Object[] row : userRepository.countUsersByDay(from, to)) {
+                points.get(bucket.truncate(((LocalDate) row[0]).atStartOfDay()))
+                        .addNewUsers(((Number) row[1]).longValue());
+            }
+        }
+        return new ArrayList<>(points.values());
+    }
+
+    /**
+     * 区间 [start, end) 内的订单按状态汇总，start 和 end 都为空时统计全部订单
+     */
+    @Transactional(readOnly = true)
+    public TimeSeriesPoint summarize(LocalDateTime start, LocalDateTime end) {
+        List<Object[]> rows = start != null && end != null
+                ? orderRepository.countOrdersByStatus(start, end)
+                : orderRepository.countOrdersByStatus();
+        TimeSeriesPoint summary = new TimeSeriesPoint(start);
+        for (Object[] row : rows) {
+            summary.addOrders((Order.OrderStatus) row[0], ((Number) row[1]).longValue(), (BigDecimal) row[2]);
+        }
+        return summary;
+    }
+
+    private static LocalDateTime hourOf(Object date, Object hour) {
+        return ((LocalDate) date).atTime(((Number) hour).intValue(), 0);
+    }
+}
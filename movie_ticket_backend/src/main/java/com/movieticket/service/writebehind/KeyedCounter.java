@@ -0,0 +1,116 @@
+package com.movieticket.service.writebehind;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按ID累加、尚未写库的计数增量
+ * 增量分散在 16 个分片中，线程按自身ID固定写一个分片，高并发累加同一ID时落在不同分片的条目上，不互相争用。
+ * 分片内用 merge 原子累加，和为零的条目随即移除；取走时逐条原子移除，取走期间并发加上的增量进入新条目，不会丢失。
+ * 取走的增量在写库成功（commit）之前仍计入 pending，写库失败时 restore 放回；取走后必须调用二者之一
+ */
+public class KeyedCounter {
+
+    private static final int SHARDS = 16;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<Long, Long>[] shards = new ConcurrentHashMap[SHARDS];
+    // 已取走、尚未写库成功的增量
+    private final ConcurrentHashMap<Long, Long> inFlight = new ConcurrentHashMap<>();
+
+    public KeyedCounter() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    public void add(Long id, long delta) {
+        if (delta != 0) {
+            shards[(int) Thread.currentThread().getId() & (SHARDS - 1)].merge(id, delta, KeyedCounter::sum);
+        }
+    }
+
+    /**
+     * 某个ID尚未写库的增量，包括已取走、正在写库的部分
+     */
+    public long pending(Long id) {
+        long pending = 0;
+        for (ConcurrentHashMap<Long, Long> shard : shards) {
+            pending += shard.getOrDefault(id, 0L);
+        }
+        return pending + inFlight.getOrDefault(id, 0L);
+    }
+
+    /**
+     * 取走全部增量
+     */
+    public synchronized Map<Long, Long> drain() {
+        Map<Long, Long> drained = new HashMap<>();
+        for (ConcurrentHashMap<Long, Long> shard : shards) {
+            for (Long id : shard.keySet()) {
+                // 在移除条目的同一原子操作中记入 inFlight，读到的值只会短暂偏大，不会偏小
+                shard.computeIfPresent(id, (key, delta) -> {
+                    inFlight.merge(id, delta, KeyedCounter::sum);
+                    drained.merge(id, delta, Long::sum);
+                    return null;
+                });
+            }
+        }
+        drained.values().removeIf(delta -> delta == 0);
+        return drained;
+    }
+
+    /**
+     * 取走的增量已写库
+     */
+    public void commit(Map<Long, Long> drained) {
+        drained.forEach((id, delta) -> inFlight.computeIfPresent(id, (key, value) -> sum(value, -delta)));
+    }
+
+    /**
+     * 写库失败时放回取走的增量
+     */
+    public void restore(Map<Long, Long> drained) {
+        // 先放回再从 inFlight 扣除，读到的值只会短暂偏大，不会偏小
+        drained.forEach(this::add);
+        commit(drained);
+    }
+
+    /**
+     * 有待写增量的ID
+     */
+    public Set<Long> pendingIds() {
+        Set<Long> ids = new HashSet<>(inFlight.keySet());
+        for (ConcurrentHashMap<Long, Long> shard : shards) {
+            ids.addAll(shard.keySet());
+        }
+        return ids;
+    }
+
+    /**
+     * 有待写增量的ID数
+     */
+    public int pendingKeys() {
+        return pendingIds().size();
+    }
+
+    /**
+     * 各分片中的条目数
+     */
+    int entries() {
+        int entries = 0;
+        for (ConcurrentHashMap<Long, Long> shard : shards) {
+            entries += shard.size();
+        }
+        return entries;
+    }
+
+    // 和为零时返回 null，merge 随即移除条目
+    private static Long sum(Long a, Long b) {
+        long sum = a + b;
+        return sum == 0 ? null : sum;
+    }
+}
@@ -0,0 +1,274 @@
+package com.movieticket.service.writebehind;
+
+import com.movieticket.repository.CommentRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 热点字段的延迟合并写入
+ * 资讯浏览次数、评论点赞数、用户最后登录时间先在内存中按ID合并，定时批量写库：浏览次数和登录时间用
+ * UPDATE ... CASE WHEN ...，点赞数按增量分组执行 like_count = like_count + 增量，
+ * 一批 ID 只执行一条语句，不再逐条加载和保存整行。写库成功前取走的计数仍算作待写，失败时放回，停机前再写一次
+ */
+@Slf4j
+@Component
+public class WriteBehindBuffer implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 200;
+
+    private final EntityManager entityManager;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushSeconds;
+    private final ScheduledExecutorService flusher;
+
+    private final KeyedCounter newsViews = new KeyedCounter();
+    private final KeyedCounter commentLikes = new KeyedCounter();
+    private final ConcurrentHashMap<Long, LocalDateTime> lastLogins = new ConcurrentHashMap<>();
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder newsRowsWritten = new LongAdder();
+    private final LongAdder commentRowsWritten = new LongAdder();
+    private final LongAdder userRowsWritten = new LongAdder();
+    private volatile long lastFlushMillis;
+
+    public WriteBehindBuffer(EntityManager entityManager,
+                             CommentRepository commentRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.write-behind.flush-seconds:5}") long flushSeconds) {
+        this.entityManager = entityManager;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushSeconds = flushSeconds;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    /**
+     * 资讯浏览次数加一，稍后写库
+     */
+    public void incrementNewsView(Long newsId) {
+        newsViews.add(newsId, 1);
+    }
+
+    /**
+     * 资讯尚未写库的浏览次数
+     */
+    public long pendingNewsViews(Long newsId) {
+        return newsViews.pending(newsId);
+    }
+
+    /**
+     * 评论点赞数增减，稍后写库
+     */
+    public void addCommentLikes(Long commentId, long delta) {
+        commentLikes.add(commentId, delta);
+    }
+
+    /**
+     * 评论尚未写库的点赞增量
+     */
+    public long pendingCommentLikes(Long commentId) {
+        return commentLikes.pending(commentId);
+    }
+
+    /**
+     * 记录一次登录，同一用户只保留最晚的时间，稍后写库
+     */
+    public void recordLogin(Long userId, LocalDateTime loginTime) {
+        lastLogins.merge(userId, loginTime, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * 写入当前积累的数据，返回更新的行数；任一部分失败时其余部分照常写入，最后抛出异常
+     */
+    public synchronized int flush() {
+        long start = System.nanoTime();
+        int rows = 0;
+        RuntimeException failure = null;
+        for (IntSupplier part : List.<IntSupplier>of(this::flushNewsViews, this::flushCommentLikes, this::flushLastLogins)) {
+            try {
+                rows += part.getAsInt();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        flushes.increment();
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (failure != null) {
+            failures.increment();
+            throw failure;
+        }
+        return rows;
+    }
+
+    public Stats stats() {
+        return new Stats(newsViews.pendingKeys(), commentLikes.pendingKeys(), lastLogins.size(), flushes.sum(),
+                failures.sum(), newsRowsWritten.sum(), commentRowsWritten.sum(), userRowsWritten.sum(), lastFlushMillis);
+    }
+
+    private int flushNewsViews() {
+        Map<Long, Long> views = newsViews.drain();
+        if (views.isEmpty()) {
+            return 0;
+        }
+        try {
+            int rows = writeInBatches(new ArrayList<>(views.keySet()), ids -> {
+                // UPDATE News SET viewCount = viewCount + CASE id WHEN :id0 THEN :v0 ... END WHERE id IN :ids
+                StringBuilder jpql = new StringBuilder(
+                        "UPDATE News n SET n.viewCount = COALESCE(n.viewCount, 0) + CASE n.id");
+                for (int i = 0; i < ids.size(); i++) {
+                    jpql.append(" WHEN :id").append(i).append(" THEN :v").append(i);
+                }
+                jpql.append(" ELSE 0 END WHERE n.id IN :ids");
+                Query query = entityManager.createQuery(jpql.toString()).setParameter("ids", ids);
+                for (int i = 0; i < ids.size(); i++) {
+                    query.setParameter("id" + i, ids.get(i));
+                    query.setParameter("v" + i, Math.toIntExact(views.get(ids.get(i))));
+                }
+                return query.executeUpdate();
+            });
+            newsViews.commit(views);
+            newsRowsWritten.add(rows);
+            return rows;
+        } catch (RuntimeException e) {
+            newsViews.restore(views);
+            throw e;
+        }
+    }
+
+    private int flushCommentLikes() {
+        Map<Long, Long> likes = commentLikes.drain();
+        if (likes.isEmpty()) {
+            return 0;
+        }
+        // 增量大多是 1、2 这样的小数字，按增量分组后语句数很少
+        Map<Long, List<Long>> byDelta = new HashMap<>();
+        likes.forEach((id, delta) -> byDelta.computeIfAbsent(delta, key -> new ArrayList<>()).add(id));
+        try {
+            Integer rows = transactionTemplate.execute(status -> {
+                int updated = 0;
+                for (Map.Entry<Long, List<Long>> entry : byDelta.entrySet()) {
+                    int delta = Math.toIntExact(entry.getKey());
+                    updated += writeInBatches(entry.getValue(), ids -> commentRepository.addLikeCount(ids, delta));
+                }
+                return updated;
+            });
+            commentLikes.commit(likes);
+            int written = rows == null ? 0 : rows;
+            commentRowsWritten.add(written);
+            return written;
+        } catch (RuntimeException e) {
+            commentLikes.restore(likes);
+            throw e;
+        }
+    }
+
+    private int flushLastLogins() {
+        Map<Long, LocalDateTime> logins = new HashMap<>();
+        for (Long userId : lastLogins.keySet()) {
+            LocalDateTime time = lastLogins.remove(userId);
+            if (time != null) {
+                logins.put(userId, time);
+            }
+        }
+        if (logins.isEmpty()) {
+            return 0;
+        }
+        try {
+            int rows = writeInBatches(new ArrayList<>(logins.keySet()), ids -> {
+                // 只把时间往后推：多实例各自写入时以最晚的登录为准
+                StringBuilder jpql = new StringBuilder("UPDATE User u SET u.lastLoginTime = CASE");
+                for (int i = 0; i < ids.size(); i++) {
+                    jpql.append(" WHEN u.id = :id").append(i)
+                            .append(" AND (u.lastLoginTime IS NULL OR u.lastLoginTime < :t").append(i)
+                            .append(") THEN :t").append(i);
+                }
+                jpql.append(" ELSE u.lastLoginTime END WHERE u.id IN :ids");
+                Query query = entityManager.createQuery(jpql.toString()).setParameter("ids", ids);
+                for (int i = 0; i < ids.size(); i++) {
+                    query.setParameter("id" + i, ids.get(i));
+                    query.setParameter("t" + i, logins.get(ids.get(i)));
+                }
+                return query.executeUpdate();
+            });
+            userRowsWritten.add(rows);
+            return rows;
+        } catch (RuntimeException e) {
+            // 放回待写数据，期间又登录的以较晚的时间为准
+            logins.forEach(this::recordLogin);
+            throw e;
+        }
+    }
+
+    // 按 BATCH_SIZE 分批，在同一事务中执行（已在事务中时加入该事务）
+    private int writeInBatches(List<Long> ids, BatchWriter writer) {
+        Integer rows = transactionTemplate.execute(status -> {
+            int updated = 0;
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                updated += writer.write(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+            }
+            return updated;
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("延迟写入失败，待下次重试", e);
+        }
+    }
+
+    private interface BatchWriter {
+        int write(List<Long> ids);
+    }
+
+    /**
+     * 待写条目数、累计刷写次数和写入行数，lastFlushMillis 为最近一次刷写耗时
+     */
+    public record Stats(int pendingNewsViews, int pendingCommentLikes, int pendingLogins, long flushes,
+                        long failures, long newsRowsWritten, long commentRowsWritten, long userRowsWritten,
+                        long lastFlushMillis) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.movieticket.util;
+
+/**
+ * 已验证签名的令牌内容，每个请求只解析一次
+ */
+public record JwtClaims(Long userId, String username, String role, long expiresAt) {
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
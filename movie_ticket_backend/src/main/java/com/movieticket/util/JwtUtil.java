@@ -2,6 +2,7 @@ package com.movieticket.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -17,8 +18,19 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache-size:10000}")
+    private int cacheSize;
+
+    // 密钥和解析器只构建一次，JwtParser 是线程安全的
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = new VerifiedTokenCache(cacheSize, System::currentTimeMillis);
     }
 
     public String generateToken(String username, Long userId, String role) {
@@ -31,46 +43,45 @@ public class JwtUtil {
                 .claim("role", role)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * 验证令牌并取出内容；最近验证过且未过期的令牌直接从缓存返回，不再验证签名
+     * 令牌无效或已过期时抛出 JwtException / IllegalArgumentException
+     */
+    public JwtClaims parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("令牌为空");
+        }
+        JwtClaims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiresAt = claims.getExpiration();
+        JwtClaims verified = new JwtClaims(claims.get("userId", Long.class), claims.getSubject(),
+                claims.get("role", String.class), expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime());
+        verifiedTokens.put(token, verified);
+        return verified;
+    }
 
-        return claims.getSubject();
+    public String getUsernameFromToken(String token) {
+        return parseToken(token).username();
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("userId", Long.class);
+        return parseToken(token).userId();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("role", String.class);
+        return parseToken(token).role();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -78,17 +89,22 @@ public class JwtUtil {
     }
 
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getExpiration();
+        return new Date(parseToken(token).expiresAt());
     }
 
     public boolean isTokenExpired(String token) {
         Date expiration = getExpirationDateFromToken(token);
         return expiration.before(new Date());
     }
-}
\ No newline at end of file
+
+    /**
+     * 已验证令牌缓存的命中和未命中次数
+     */
+    public long getVerifiedCacheHits() {
+        return verifiedTokens.hits();
+    }
+
+    public long getVerifiedCacheMisses() {
+        return verifiedTokens.misses();
+    }
+}
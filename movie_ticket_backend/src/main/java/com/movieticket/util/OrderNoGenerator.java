@@ -1,33 +1,127 @@
 package com.movieticket.util;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.net.InetAddress;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.time.ZoneId;
+import java.util.function.LongSupplier;
 
+/**
+ * 订单号生成器（Snowflake 思路：毫秒时间 + 节点号 + 毫秒内序号）
+ * 格式为 前缀 + yyyyMMddHHmmssSSS + 4位节点号 + 4位序号，如 ORD2024100112304512300010042（节点号 1、序号 42），
+ * 不同节点的节点号不同，同一节点同一毫秒内序号递增，因此跨实例也不会重复。
+ * 序号用完或系统时钟回拨时沿用上次的毫秒并继续向后借用，不等待也不回退。
+ * 日期部分按秒缓存，每次生成只在预分配的字符数组中写入数字
+ */
+@Slf4j
 @Component
 public class OrderNoGenerator {
 
-    private static final AtomicInteger sequence = new AtomicInteger(0);
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    public static final int MAX_NODE_ID = 1023;
+    static final int MAX_SEQUENCE = 4095;
+
+    private static final int PREFIX_LENGTH = 3;
+    private static final int SECOND_LENGTH = 14; // yyyyMMddHHmmss
+    private static final int LENGTH = PREFIX_LENGTH + SECOND_LENGTH + 3 + 4 + 4;
+
+    private final int nodeId;
+    private final LongSupplier clock;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final char[] buffer = new char[LENGTH];
+
+    private long lastMillis = -1;
+    private int sequence;
+    private long cachedSecond = Long.MIN_VALUE; // buffer 中日期部分对应的秒
+
+    @Autowired
+    public OrderNoGenerator(@Value("${app.order.node-id:-1}") int nodeId) {
+        this(nodeId < 0 ? deriveNodeId() : nodeId, System::currentTimeMillis);
+    }
+
+    OrderNoGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("订单号节点号超出范围(0-" + MAX_NODE_ID + "): " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        writeDigits(PREFIX_LENGTH + SECOND_LENGTH + 3, 4, nodeId);
+    }
 
     /**
      * 生成订单号
      */
-    public static String generate() {
-        String timestamp = LocalDateTime.now().format(formatter);
-        int seq = sequence.updateAndGet(i -> i >= 9999 ? 0 : i + 1);
-        return "ORD" + timestamp + String.format("%04d", seq);
+    public String generate() {
+        return next('O', 'R', 'D');
     }
 
     /**
      * 生成退款单号
      */
-    public static String generateRefundNo() {
-        String timestamp = LocalDateTime.now().format(formatter);
-        int seq = sequence.updateAndGet(i -> i >= 9999 ? 0 : i + 1);
-        return "REF" + timestamp + String.format("%04d", seq);
+    public String generateRefundNo() {
+        return next('R', 'E', 'F');
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    private synchronized String next(char p0, char p1, char p2) {
+        long now = clock.getAsLong();
+        if (now > lastMillis) {
+            lastMillis = now;
+            sequence = 0;
+        } else if (++sequence > MAX_SEQUENCE) {
+            // 本毫秒序号用完，或时钟回拨后沿用的毫秒序号用完：借用下一毫秒
+            lastMillis++;
+            sequence = 0;
+        }
+        long second = Math.floorDiv(lastMillis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            writeSecond(second);
+        }
+        buffer[0] = p0;
+        buffer[1] = p1;
+        buffer[2] = p2;
+        writeDigits(PREFIX_LENGTH + SECOND_LENGTH, 3, (int) Math.floorMod(lastMillis, 1000));
+        writeDigits(LENGTH - 4, 4, sequence);
+        return new String(buffer);
+    }
+
+    // 每秒一次：换算本地时间写入 yyyyMMddHHmmss
+    private void writeSecond(long epochSecond) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone);
+        int offset = PREFIX_LENGTH;
+        writeDigits(offset, 4, time.getYear());
+        writeDigits(offset + 4, 2, time.getMonthValue());
+        writeDigits(offset + 6, 2, time.getDayOfMonth());
+        writeDigits(offset + 8, 2, time.getHour());
+        writeDigits(offset + 10, 2, time.getMinute());
+        writeDigits(offset + 12, 2, time.getSecond());
+    }
+
+    private void writeDigits(int offset, int width, int value) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // 未配置节点号时由主机名计算，多实例部署应通过 app.order.node-id 显式指定不同的值
+    private static int deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        int nodeId = (host.hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+        log.info("未配置 app.order.node-id，按主机名 {} 使用节点号 {}", host, nodeId);
+        return nodeId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.movieticket.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 最近验证通过的令牌，以完整令牌为键（只按签名部分做键时，换掉载荷的伪造令牌也会命中）
+ * 读写不加全局锁，命中时跳过签名验证和 JSON 解析；条目在令牌过期时失效。
+ * 超出容量时由一个线程清理：先移除过期条目，仍超出则任意移除一批，降到容量的九成，不严格按最久未使用淘汰
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, JwtClaims> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    VerifiedTokenCache(int maxEntries, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    JwtClaims get(String token) {
+        JwtClaims claims = entries.get(token);
+        if (claims != null && claims.isExpired(clock.getAsLong())) {
+            entries.remove(token, claims);
+            claims = null;
+        }
+        if (claims == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return claims;
+    }
+
+    void put(String token, JwtClaims claims) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(token, claims);
+        if (entries.size() > maxEntries && evictionLock.tryLock()) {
+            try {
+                evict(token);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    // 刚写入的令牌保留
+    private void evict(String keep) {
+        long now = clock.getAsLong();
+        entries.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<Map.Entry<String, JwtClaims>> iterator = entries.entrySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            if (!iterator.next().getKey().equals(keep)) {
+                iterator.remove();
+            }
+        }
+    }
+}
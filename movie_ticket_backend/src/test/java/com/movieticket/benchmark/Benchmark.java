@@ -0,0 +1,79 @@
+package com.movieticket.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 简易基准测试（JMH 的预热轮 + 计时轮做法，构建中没有 JMH 依赖）
+ * 操作在若干线程上循环执行，每轮固定时长，报告各计时轮的中位数，只输出数字不做断言。
+ * 基准测试类以 Benchmark 结尾，不在 surefire 默认匹配的 *Test 之列，默认的 mvn test 不运行；
+ * 需要时单独运行，如 mvn test -Dtest=OrderNoGeneratorBenchmark
+ */
+public final class Benchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+    private static final long ROUND_MILLIS = 500;
+
+    private Benchmark() {
+    }
+
+    /**
+     * 在 threads 个线程上反复执行 operation（返回值会被使用，避免被 JIT 当作无用代码消除），打印每次操作的耗时和总吞吐量，返回中位数吞吐量（次/秒）
+     */
+    public static double run(String name, int threads, Supplier<?> operation) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round(threads, operation);
+        }
+        double[] throughput = new double[MEASURE_ROUNDS];
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            throughput[i] = round(threads, operation);
+        }
+        Arrays.sort(throughput);
+        double median = throughput[MEASURE_ROUNDS / 2];
+        System.out.printf("%-40s 线程 %2d  %,14.0f 次/秒  %,10.1f ns/次（每线程）  最低 %,.0f 最高 %,.0f%n",
+                name, threads, median, threads * 1e9 / median, throughput[0], throughput[MEASURE_ROUNDS - 1]);
+        return median;
+    }
+
+    // 一轮：各线程同时开始，到点后停止，返回这一轮的总吞吐量（次/秒）
+    private static double round(int threads, Supplier<?> operation) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong total = new AtomicLong();
+        long[] deadline = new long[1];
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long count = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    // 每批 64 次检查一次时间，避免 nanoTime 本身的开销盖过被测操作
+                    for (int i = 0; i < 64; i++) {
+                        if (operation.get() != null) {
+                            count++;
+                        }
+                    }
+                }
+                total.addAndGet(count);
+            }, "benchmark-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + ROUND_MILLIS * 1_000_000;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return total.get() * 1e9 / (System.nanoTime() - begin);
+    }
+}
@@ -0,0 +1,76 @@
+package com.movieticket.config;
+
+import com.movieticket.controller.GenreController;
+import com.movieticket.entity.Genre;
+import com.movieticket.service.GenreService;
+import com.movieticket.service.cache.CatalogVersions;
+import com.movieticket.service.cache.CatalogVersions.Catalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalGetInterceptorTest {
+
+    @Mock
+    private GenreService genreService;
+
+    @Mock
+    private CatalogVersions versions;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new GenreController(genreService))
+                .addInterceptors(new ConditionalGetInterceptor(versions))
+                .build();
+    }
+
+    @Test
+    void notModifiedSkipsControllerUntilVersionChanges() throws Exception {
+        when(genreService.getAllActiveGenres()).thenReturn(List.of(new Genre()));
+        when(versions.current(Catalog.GENRES)).thenReturn(new CatalogVersions.Version("W/\"genres-1\"", 1_000L));
+
+        String etag = mockMvc.perform(get("/api/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 带着未过时的 ETag 请求：304，不进入控制器
+        mockMvc.perform(get("/api/genres").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(genreService, times(1)).getAllActiveGenres();
+
+        // 数据修改后旧的 ETag 失效
+        when(versions.current(Catalog.GENRES)).thenReturn(new CatalogVersions.Version("W/\"genres-2\"", 2_000L));
+        mockMvc.perform(get("/api/genres").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(genreService, times(2)).getAllActiveGenres();
+    }
+
+    @Test
+    void onlyEndpointsWhoseWritesBumpTheVersionAreConditional() {
+        assertEquals(Catalog.GENRES, ConditionalGetInterceptor.catalogOf("/api/genres"));
+        // 电影带评论均分，资讯带浏览量，都会在版本不变的情况下变化
+        assertNull(ConditionalGetInterceptor.catalogOf("/api/movies/12"));
+        assertNull(ConditionalGetInterceptor.catalogOf("/api/news/top"));
+        assertNull(ConditionalGetInterceptor.catalogOf("/api/news/12"));
+    }
+}
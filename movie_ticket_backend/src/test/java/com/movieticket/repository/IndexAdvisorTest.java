@@ -0,0 +1,145 @@
+package com.movieticket.repository;
+
+import com.movieticket.entity.Movie;
+import com.movieticket.entity.Order;
+import com.movieticket.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 索引检查：执行热点查询，记下 Hibernate 生成的 SQL，逐条用 EXPLAIN 查看执行计划，
+ * 出现全表扫描（H2 计划中的 tableScan）即失败，并打印 SQL 和计划。
+ * 新增热点查询时在 hotQueries 中登记
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.movieticket.repository.IndexAdvisorTest$SqlCapture")
+@ActiveProfiles("test")
+class IndexAdvisorTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderSeatRepository orderSeatRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Map<String, Runnable> hotQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        User user = new User();
+        user.setId(1L);
+        Movie movie = new Movie();
+        movie.setId(1L);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        // 订单
+        queries.put("用户订单分页", () -> orderRepository.findByUserOrderByCreateTimeDesc(user, PageRequest.of(0, 10)));
+        queries.put("用户订单键集分页", () -> orderRepository.findByUserAfter(1L, now, 1L, PageRequest.of(0, 11)));
+        queries.put("管理端按状态键集分页",
+                () -> orderRepository.findAllAfter(Order.OrderStatus.PAID, now, 1L, PageRequest.of(0, 11)));
+        queries.put("场次已支付订单", () -> orderRepository.findBySessionIdAndStatus(1L, Order.OrderStatus.PAID));
+        queries.put("场次近期待支付订单", () -> orderRepository.findBySessionIdAndStatusAndCreateTimeAfter(
+                1L, Order.OrderStatus.PENDING, now.minusMinutes(15)));
+        queries.put("超时待支付订单",
+                () -> orderRepository.findByStatusAndCreateTimeBefore(Order.OrderStatus.PENDING, now));
+        queries.put("待支付订单创建时间", () -> orderRepository.findPendingOrderCreateTimes());
+        queries.put("按天统计订单", () -> orderRepository.countOrdersByDay(now.minusDays(7), now));
+        // 场次
+        queries.put("电影场次", () -> sessionRepository.findByMovieAndStatusTrueOrderByStartTime(movie));
+        queries.put("电影未来场次", () -> sessionRepository.findUpcomingSessionsByMovie(1L, now));
+        queries.put("放映厅冲突场次",
+                () -> sessionRepository.findConflictingSessions(1L, now, now.plusHours(2), null));
+        // 座位
+        queries.put("场次占用座位", () -> orderSeatRepository.findActiveSeats(1L));
+        queries.put("订单座位", () -> orderSeatRepository.findActiveSeatNosByOrderId(1L));
+        // 评论
+        queries.put("电影评论分页",
+                () -> commentRepository.findByMovieAndStatusTrueOrderByCreateTimeDesc(movie, PageRequest.of(0, 10)));
+        queries.put("电影评论键集分页", () -> commentRepository.findByMovieAfter(1L, now, 1L, PageRequest.of(0, 11)));
+        queries.put("电影评分分布", () -> commentRepository.findRatingHistogram(1L));
+        // 用户
+        queries.put("用户键集分页", () -> userRepository.findAllAfter(now, 1L, PageRequest.of(0, 21)));
+        return queries;
+    }
+
+    @Test
+    void hotQueriesUseIndexes() throws SQLException {
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : hotQueries().entrySet()) {
+            SqlCapture.STATEMENTS.clear();
+            query.getValue().run();
+            assertTrue(!SqlCapture.STATEMENTS.isEmpty(), query.getKey() + " 没有执行 SQL");
+            for (String sql : SqlCapture.STATEMENTS) {
+                String plan = explain(sql);
+                if (plan.contains(".tableScan")) {
+                    problems.add(query.getKey() + "\n  SQL: " + sql + "\n  计划: " + plan);
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            fail("以下热点查询存在全表扫描:\n" + String.join("\n", problems));
+        }
+    }
+
+    // 参数一律绑定 null，H2 的执行计划在预编译时确定，与参数值无关
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1).replaceAll("\\s+", " "));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * 记录 Hibernate 发出的 SQL
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.trim().toLowerCase().startsWith("select")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
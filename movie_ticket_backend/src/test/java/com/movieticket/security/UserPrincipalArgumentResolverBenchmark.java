@@ -0,0 +1,63 @@
+package com.movieticket.security;
+
+import com.movieticket.benchmark.Benchmark;
+import com.movieticket.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * 每个请求取当前用户的开销：改造前过滤器和控制器共 5 次重建密钥并验签，
+ * 改造后过滤器命中已验证令牌缓存，控制器从认证信息中取主体；只报告数字
+ * 默认的 mvn test 不运行，需要时执行 mvn test -Dtest=UserPrincipalArgumentResolverBenchmark
+ */
+class UserPrincipalArgumentResolverBenchmark {
+
+    private static final String SECRET = "movie-ticket-system-secret-key-for-principal-resolver-benchmark";
+
+    private final UserPrincipalArgumentResolver resolver = new UserPrincipalArgumentResolver(new SecurityContextUtil());
+
+    @Test
+    void resolvePrincipal() throws InterruptedException {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", 100);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        String header = "Bearer " + jwtUtil.generateToken("alice", 42L, "USER");
+        // 安全上下文按线程保存，每个基准线程第一次执行时放入
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(42L, "alice", "USER"), null, List.of()));
+
+        for (int threads : new int[]{1, 8}) {
+            Benchmark.run("改造前：每请求 5 次解析令牌", threads, () -> legacyRequest(header));
+            Benchmark.run("改造后：缓存命中 + 注入主体", threads, () -> {
+                SecurityContextHolder.setContext(context);
+                return currentRequest(jwtUtil, header);
+            });
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private static Long legacyRequest(String header) {
+        String token = header.substring(7);
+        Long userId = null;
+        for (int i = 0; i < 5; i++) {
+            userId = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                    .parseClaimsJws(token).getBody().get("userId", Long.class);
+        }
+        return userId;
+    }
+
+    private Long currentRequest(JwtUtil jwtUtil, String header) {
+        jwtUtil.parseToken(header.substring(7));
+        return ((UserPrincipal) resolver.resolveArgument(null, null, null, null)).getUserId();
+    }
+}
@@ -0,0 +1,57 @@
+package com.movieticket.security;
+
+import com.movieticket.exception.AuthException;
+import com.movieticket.util.JwtClaims;
+import com.movieticket.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserPrincipalArgumentResolverTest {
+
+    private final UserPrincipalArgumentResolver resolver = new UserPrincipalArgumentResolver(new SecurityContextUtil());
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void whenAuthenticated_thenPrincipalResolvedElseAuthException() {
+        assertThrows(AuthException.class, () -> resolver.resolveArgument(null, null, null, null));
+
+        UserPrincipal principal = new UserPrincipal(42L, "alice", "USER");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+
+        assertSame(principal, resolver.resolveArgument(null, null, null, null));
+        assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    // 过滤器只解析一次令牌，之后控制器取用户不再经过 JwtUtil
+    @Test
+    void whenRequestPassesFilter_thenTokenIsParsedOnceAndResolverNeverTouchesJwtUtil() throws Exception {
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.parseToken("token")).thenReturn(new JwtClaims(42L, "alice", "USER", Long.MAX_VALUE));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer token");
+
+        new JwtAuthenticationFilter(jwtUtil).doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        verify(jwtUtil, times(1)).parseToken("token");
+
+        for (int i = 0; i < 3; i++) {
+            UserPrincipal principal = (UserPrincipal) resolver.resolveArgument(null, null, null, null);
+            assertEquals(42L, principal.getUserId());
+        }
+        verifyNoMoreInteractions(jwtUtil);
+    }
+}
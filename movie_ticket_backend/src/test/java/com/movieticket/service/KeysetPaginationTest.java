@@ -0,0 +1,84 @@
+package com.movieticket.service;
+
+import com.movieticket.dto.CursorPage;
+import com.movieticket.entity.User;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 键集分页逐页取完全部记录，不重复不遗漏，每页只有一条查询语句
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class KeysetPaginationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 25; i++) {
+            User user = new User();
+            user.setUsername("keyset" + i);
+            user.setPassword("password");
+            user.setEmail("keyset" + i + "@example.com");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void whenScrollingAllPages_thenEveryUserAppearsOnceInOrder() {
+        List<Long> expected = userRepository.findAll(Sort.by(Sort.Order.desc("createTime"), Sort.Order.desc("id")))
+                .stream().map(User::getId).toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Long> scrolled = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            CursorPage<User> page = userService.scrollUsers(after, 10);
+            assertEquals(1, statistics.getPrepareStatementCount());
+            page.getContent().forEach(user -> scrolled.add(user.getId()));
+            assertEquals(page.isHasNext(), page.getNextCursor() != null);
+            after = page.getNextCursor();
+            pages++;
+        } while (after != null);
+
+        assertEquals(expected, scrolled);
+        assertEquals((expected.size() + 9) / 10, pages);
+    }
+
+    @Test
+    void whenCursorIsMalformed_thenBusinessException() {
+        assertThrows(BusinessException.class, () -> userService.scrollUsers("not-a-cursor", 10));
+    }
+}
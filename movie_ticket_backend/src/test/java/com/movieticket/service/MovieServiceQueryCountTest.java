@@ -0,0 +1,163 @@
+package com.movieticket.service;
+
+import com.movieticket.dto.request.movie.MovieQueryRequest;
+import com.movieticket.dto.response.movie.MovieResponse;
+import com.movieticket.entity.Comment;
+import com.movieticket.entity.Genre;
+import com.movieticket.entity.Movie;
+import com.movieticket.entity.User;
+import com.movieticket.repository.CommentRepository;
+import com.movieticket.repository.GenreRepository;
+import com.movieticket.repository.MovieRatingStatsRepository;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 电影列表接口的 SQL 语句数不随每页电影数增长
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class MovieServiceQueryCountTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Genre genre;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        genre = new Genre();
+        genre.setName("查询计数");
+        genre = genreRepository.save(genre);
+
+        users = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            User user = new User();
+            user.setUsername("querycount" + i);
+            user.setPassword("password");
+            user.setEmail("querycount" + i + "@example.com");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        movieRatingStatsRepository.deleteAll();
+        movieRepository.deleteAll();
+        genreRepository.delete(genre);
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void whenPageGrows_thenStatementCountStaysConstant() {
+        createMovies(3);
+        long small = countStatements(() -> movieService.getMovies(pageRequest()));
+        createMovies(9);
+        Page<MovieResponse> page = movieService.getMovies(pageRequest());
+        long large = countStatements(() -> movieService.getMovies(pageRequest()));
+
+        assertEquals(12, page.getNumberOfElements());
+        assertEquals(small, large);
+        assertTrue(large <= 3, "每页语句数: " + large);
+        for (MovieResponse movie : page.getContent()) {
+            assertEquals(genre.getName(), movie.getGenreName());
+            assertEquals(0, new BigDecimal("4.0").compareTo(movie.getCommentAverageRating()));
+        }
+    }
+
+    @Test
+    void whenHotMoviesListed_thenStatementCountStaysConstant() {
+        createMovies(2);
+        long small = countStatements(() -> movieService.getHotMovies(20));
+        createMovies(8);
+        List<MovieResponse> movies = movieService.getHotMovies(20);
+        long large = countStatements(() -> movieService.getHotMovies(20));
+
+        assertEquals(10, movies.size());
+        assertEquals(small, large);
+    }
+
+    private MovieQueryRequest pageRequest() {
+        MovieQueryRequest request = new MovieQueryRequest();
+        request.setSize(20);
+        return request;
+    }
+
+    private void createMovies(int count) {
+        for (int i = 0; i < count; i++) {
+            Movie movie = new Movie();
+            movie.setTitle("电影" + System.nanoTime());
+            movie.setGenre(genre);
+            movie.setPrice(new BigDecimal("45.00"));
+            movie.setIsHot(true);
+            movie = movieRepository.save(movie);
+            String[] ratings = {"3.5", "4.5"};
+            for (int u = 0; u < ratings.length; u++) {
+                Comment comment = new Comment();
+                comment.setUser(users.get(u));
+                comment.setMovie(movie);
+                comment.setContent("不错");
+                comment.setRating(new BigDecimal(ratings[u]));
+                commentService.createComment(comment);
+            }
+        }
+        clearCaches();
+    }
+
+    // 电影直接写入仓库，不经过会清除缓存的服务方法
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    private long countStatements(Supplier<?> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        clearCaches();
+        statistics.clear();
+        call.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -3,6 +3,7 @@ package com.movieticket.service;
 import com.movieticket.entity.User;
 import com.movieticket.repository.UserRepository;
 import com.movieticket.service.impl.UserServiceImpl;
+import com.movieticket.service.stats.DailyStatsRecorder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -21,6 +22,9 @@ class UserServiceTest {
     @Mock//模拟行为，替代真实的 UserRepository
     private UserRepository userRepository;
 
+    @Mock
+    private DailyStatsRecorder dailyStatsRecorder;
+
     @InjectMocks//表示创建 UserServiceImpl 的实例，并自动将模拟的 UserRepository 注入到 UserServiceImpl 中
     private UserServiceImpl userService;
 
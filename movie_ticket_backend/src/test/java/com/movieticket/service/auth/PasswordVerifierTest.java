@@ -0,0 +1,56 @@
+package com.movieticket.service.auth;
+
+import com.movieticket.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PasswordVerifierTest {
+
+    @Test
+    void whenQueueIsFull_thenRejectFastAndRecoverAfterDrain() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS); // 模拟耗时的 BCrypt
+            return "right".equals(invocation.getArgument(0));
+        });
+        PasswordVerifier verifier = new PasswordVerifier(encoder, 1, 1);
+        try {
+            CompletableFuture<Boolean> running = verifier.matches("right", "hash");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> queued = verifier.matches("wrong", "hash");
+
+            // 一个在执行、一个在排队，第三个立即拒绝而不是阻塞
+            TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                    () -> verifier.matches("right", "hash"));
+            assertEquals(1, e.getRetryAfterSeconds());
+            PasswordVerifier.Stats busy = verifier.stats();
+            assertEquals(1, busy.queued());
+            assertEquals(1, busy.rejected());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            assertFalse(queued.get(5, TimeUnit.SECONDS));
+            assertTrue(verifier.matches("right", "hash").get(5, TimeUnit.SECONDS));
+
+            PasswordVerifier.Stats stats = verifier.stats();
+            assertEquals(1, stats.threads());
+            assertEquals(3, stats.verified());
+            assertEquals(1, stats.rejected());
+            assertEquals(1, stats.maxQueued());
+            assertTrue(stats.averageWaitMillis() > 0);
+        } finally {
+            verifier.stop();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.movieticket.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void whenFull_thenLeastRecentlyUsedEntryIsEvicted() {
+        BoundedCache cache = new BoundedCache("test", 2, 60, now::get);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, cache.get("a").get());
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a").get());
+        assertEquals(3, cache.get("c").get());
+        BoundedCache.CacheStats stats = cache.stats();
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.evictions());
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.75, stats.getHitRate());
+    }
+
+    @Test
+    void whenTtlPassed_thenEntryExpiresAndLoaderRuns() {
+        BoundedCache cache = new BoundedCache("test", 10, 60, now::get);
+        assertEquals("v1", cache.get("k", () -> "v1"));
+        now.addAndGet(59_000_000_000L);
+        assertEquals("v1", cache.get("k", () -> "v2"));
+        now.addAndGet(1_000_000_000L);
+        assertEquals("v2", cache.get("k", () -> "v2"));
+
+        cache.evict("k");
+        cache.evict("missing");
+        assertNull(cache.get("k"));
+        BoundedCache.CacheStats stats = cache.stats();
+        assertEquals(1, stats.expirations());
+        assertEquals(1, stats.invalidations());
+        assertEquals(0, stats.size());
+    }
+}
@@ -0,0 +1,164 @@
+package com.movieticket.service.cache;
+
+import com.movieticket.dto.response.movie.MovieResponse;
+import com.movieticket.entity.Comment;
+import com.movieticket.entity.Genre;
+import com.movieticket.entity.Movie;
+import com.movieticket.entity.User;
+import com.movieticket.repository.CommentRepository;
+import com.movieticket.repository.GenreRepository;
+import com.movieticket.repository.MovieRatingStatsRepository;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.UserRepository;
+import com.movieticket.service.CommentService;
+import com.movieticket.service.GenreService;
+import com.movieticket.service.MovieService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 目录缓存命中后不再查库，后台写操作后立即读到新数据
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogCacheTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private GenreService genreService;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CatalogCacheManager cacheManager;
+
+    private Genre genre;
+    private Movie movie;
+
+    @BeforeEach
+    void setUp() {
+        genre = new Genre();
+        genre.setName("缓存测试");
+        genre = genreRepository.save(genre);
+
+        movie = new Movie();
+        movie.setTitle("缓存前");
+        movie.setGenre(genre);
+        movie.setPrice(new BigDecimal("40.00"));
+        movie = movieRepository.save(movie);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        movieRatingStatsRepository.deleteAll();
+        userRepository.deleteAll(userRepository.findAll().stream()
+                .filter(user -> user.getUsername().startsWith("cache")).toList());
+        movieRepository.deleteAll();
+        genreRepository.deleteAll();
+    }
+
+    @Test
+    void whenMovieUpdatedByAdmin_thenDetailIsEvicted() {
+        assertEquals("缓存前", movieService.getMovieDetail(movie.getId()).map(MovieResponse::getTitle).orElse(null));
+        long hits = stats(CacheNames.MOVIE_DETAIL).hits();
+        movieService.getMovieDetail(movie.getId());
+        assertEquals(hits + 1, stats(CacheNames.MOVIE_DETAIL).hits());
+
+        movie.setTitle("缓存后");
+        movieService.updateMovie(movie);
+
+        assertEquals("缓存后", movieService.getMovieDetail(movie.getId()).map(MovieResponse::getTitle).orElse(null));
+        assertTrue(stats(CacheNames.MOVIE_DETAIL).invalidations() >= 1);
+    }
+
+    @Test
+    void whenGenreCreated_thenActiveGenresAreEvicted() {
+        int before = genreService.getAllActiveGenres().size();
+        long hits = stats(CacheNames.ACTIVE_GENRES).hits();
+        assertEquals(genreService.getAllActiveGenres(), genreService.getAllActiveGenres());
+        assertEquals(hits + 2, stats(CacheNames.ACTIVE_GENRES).hits());
+
+        Genre added = new Genre();
+        added.setName("缓存测试2");
+        genreService.createGenre(added);
+
+        List<Genre> after = genreService.getAllActiveGenres();
+        assertEquals(before + 1, after.size());
+    }
+
+    @Test
+    void whenCallerModifiesCachedValue_thenOtherCallersDoNotSeeIt() {
+        List<Genre> first = genreService.getAllActiveGenres();
+        first.get(0).setName("被调用方修改");
+        first.clear();
+
+        List<Genre> second = genreService.getAllActiveGenres();
+        assertNotSame(first, second);
+        assertTrue(second.stream().anyMatch(item -> "缓存测试".equals(item.getName())));
+
+        movieService.getMovieDetail(movie.getId()).orElseThrow().setTitle("被调用方修改");
+        assertEquals("缓存前", movieService.getMovieDetail(movie.getId()).map(MovieResponse::getTitle).orElse(null));
+    }
+
+    @Test
+    void whenCommentDeleted_thenOnlyThatMovieDetailAndListsAreEvicted() {
+        Movie other = new Movie();
+        other.setTitle("另一部");
+        other.setGenre(genre);
+        other.setPrice(new BigDecimal("40.00"));
+        other = movieRepository.save(other);
+        User user = new User();
+        user.setUsername("cache0");
+        user.setPassword("password");
+        user.setEmail("cache0@example.com");
+        user = userRepository.save(user);
+        Comment comment = new Comment();
+        comment.setUser(user);
+        comment.setMovie(movie);
+        comment.setContent("缓存");
+        comment.setRating(new BigDecimal("4.0"));
+        comment = commentService.createComment(comment);
+
+        movieService.getMovieDetail(movie.getId());
+        movieService.getMovieDetail(other.getId());
+        movieService.getHotMovies(5);
+        commentService.deleteComment(comment.getId());
+
+        assertNull(cacheManager.getCache(CacheNames.MOVIE_DETAIL).get(movie.getId()));
+        assertNotNull(cacheManager.getCache(CacheNames.MOVIE_DETAIL).get(other.getId()));
+        assertNull(cacheManager.getCache(CacheNames.MOVIE_LISTS).get("hot:5"));
+    }
+
+    private BoundedCache.CacheStats stats(String name) {
+        return cacheManager.getCacheStats().get(name);
+    }
+}
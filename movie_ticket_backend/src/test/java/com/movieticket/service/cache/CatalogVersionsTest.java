@@ -0,0 +1,62 @@
+package com.movieticket.service.cache;
+
+import com.movieticket.entity.Genre;
+import com.movieticket.repository.GenreRepository;
+import com.movieticket.service.GenreService;
+import com.movieticket.service.cache.CatalogVersions.Catalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 目录版本保存在数据库中，与修改在同一事务内推进
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogVersionsTest {
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private GenreService genreService;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        genreRepository.deleteAll();
+    }
+
+    @Test
+    void whenGenreWriteCommits_thenVersionMovesAndRollbackKeepsIt() {
+        String before = catalogVersions.current(Catalog.GENRES).etag();
+
+        Genre genre = new Genre();
+        genre.setName("版本测试");
+        genre = genreService.createGenre(genre);
+        String created = catalogVersions.current(Catalog.GENRES).etag();
+        assertNotEquals(before, created);
+        assertTrue(catalogVersions.current(Catalog.GENRES).lastModified() > 0);
+
+        Long id = genre.getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            genreService.changeGenreStatus(id, false);
+            status.setRollbackOnly();
+        });
+        assertEquals(created, catalogVersions.current(Catalog.GENRES).etag());
+
+        genreService.changeGenreStatus(id, false);
+        assertNotEquals(created, catalogVersions.current(Catalog.GENRES).etag());
+    }
+}
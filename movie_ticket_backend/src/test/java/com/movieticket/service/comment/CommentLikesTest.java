@@ -0,0 +1,241 @@
+package com.movieticket.service.comment;
+
+import com.movieticket.entity.Comment;
+import com.movieticket.entity.Genre;
+import com.movieticket.entity.Movie;
+import com.movieticket.entity.User;
+import com.movieticket.repository.CommentLikeRepository;
+import com.movieticket.repository.CommentRepository;
+import com.movieticket.repository.GenreRepository;
+import com.movieticket.repository.MovieRatingStatsRepository;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.RowInserter;
+import com.movieticket.repository.UserRepository;
+import com.movieticket.service.CommentService;
+import com.movieticket.service.writebehind.WriteBehindBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发点赞不丢失、同一用户不能重复点赞（重启后、其他实例上也不能），热门评论在写库前就按最新点赞数排序
+ */
+@SpringBootTest(properties = "app.write-behind.flush-seconds=3600")
+@ActiveProfiles("test")
+class CommentLikesTest {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private CommentLikes commentLikes;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentLikeRepository commentLikeRepository;
+
+    @Autowired
+    private RowInserter rowInserter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Genre genre;
+    private Movie movie;
+    private final List<User> users = new ArrayList<>();
+    private final List<Comment> comments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        genre = new Genre();
+        genre.setName("点赞");
+        genre = genreRepository.save(genre);
+
+        movie = new Movie();
+        movie.setTitle("点赞测试");
+        movie.setGenre(genre);
+        movie.setPrice(new BigDecimal("45.00"));
+        movie = movieRepository.save(movie);
+
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUsername("like" + i);
+            user.setPassword("password");
+            user.setEmail("like" + i + "@example.com");
+            users.add(userRepository.save(user));
+
+            Comment comment = new Comment();
+            comment.setUser(users.get(i));
+            comment.setMovie(movie);
+            comment.setContent("评论" + i);
+            comment.setRating(new BigDecimal("4.0"));
+            comments.add(commentService.createComment(comment));
+        }
+        writeBehindBuffer.flush();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehindBuffer.flush();
+        commentLikeRepository.deleteAll();
+        commentRepository.deleteAll(comments);
+        movieRatingStatsRepository.deleteAll();
+        movieRepository.delete(movie);
+        genreRepository.delete(genre);
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void whenViralCommentLikedConcurrently_thenEveryUserCountsOnce() throws Exception {
+        Long older = comments.get(0).getId();
+        Long viral = comments.get(2).getId();
+        commentService.likeComment(older, 1L);
+        commentService.likeComment(older, 2L);
+        writeBehindBuffer.flush();
+
+        // 8 个线程各自让 500 个用户点赞，每个用户都点两次
+        int threads = 8;
+        int usersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long firstUser = 1000L + (long) t * usersPerThread;
+                futures.add(executor.submit(() -> {
+                    int accepted = 0;
+                    for (long userId = firstUser; userId < firstUser + usersPerThread; userId++) {
+                        accepted += commentService.likeComment(viral, userId) ? 1 : 0;
+                        accepted += commentService.likeComment(viral, userId) ? 1 : 0;
+                    }
+                    return accepted;
+                }));
+            }
+            int accepted = 0;
+            for (Future<Integer> future : futures) {
+                accepted += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(threads * usersPerThread, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(commentService.unlikeComment(viral, 1000L));
+        assertFalse(commentService.unlikeComment(viral, 1000L));
+        assertFalse(commentService.unlikeComment(older, 99L));
+        int expected = threads * usersPerThread - 1;
+
+        // 尚未写库：数据库中仍是 0，热门评论已按内存中的增量排序
+        assertEquals(0, commentRepository.findById(viral).orElseThrow().getLikeCount());
+        List<Comment> top = commentService.getTopCommentsByMovie(movie.getId(), 2);
+        assertEquals(List.of(viral, older), top.stream().map(Comment::getId).toList());
+        assertEquals(expected, top.get(0).getLikeCount());
+        // 同一事务中已加载的评论实体不被改动
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Comment managed = commentRepository.findById(viral).orElseThrow();
+            commentService.getTopCommentsByMovie(movie.getId(), 2);
+            assertEquals(0, managed.getLikeCount());
+        });
+
+        writeBehindBuffer.flush();
+        assertEquals(expected, commentRepository.findById(viral).orElseThrow().getLikeCount());
+        assertEquals(2, commentRepository.findById(older).orElseThrow().getLikeCount());
+        assertEquals(0, writeBehindBuffer.stats().pendingCommentLikes());
+        assertEquals(List.of(viral, older), commentService.getTopCommentsByMovie(movie.getId(), 2)
+                .stream().map(Comment::getId).toList());
+    }
+
+    // 新建的 CommentLikes 相当于重启后或另一个实例：内存中没有点赞用户，以点赞表为准
+    @Test
+    void whenCacheIsEmpty_thenLikesAreStillKnownFromTheTable() {
+        Long commentId = comments.get(0).getId();
+        Long otherId = comments.get(1).getId();
+        assertTrue(commentService.likeComment(commentId, 7L));
+        assertTrue(commentService.likeComment(otherId, 7L));
+
+        CommentLikes restarted = new CommentLikes(writeBehindBuffer, rowInserter, commentLikeRepository, 1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertTrue(restarted.hasLiked(commentId, 7L));
+        assertTrue(restarted.hasLiked(otherId, 7L));
+        assertFalse(restarted.hasLiked(commentId, 8L));
+        assertEquals(1, restarted.cachedComments());
+
+        assertEquals(Boolean.FALSE, transactionTemplate.execute(status -> restarted.like(movie.getId(), commentId, 7L)));
+        assertEquals(Boolean.TRUE, transactionTemplate.execute(status -> restarted.unlike(movie.getId(), commentId, 7L)));
+        assertFalse(commentLikeRepository.existsByCommentIdAndUserId(commentId, 7L));
+        assertFalse(commentService.unlikeComment(commentId, 7L));
+        assertEquals(0, writeBehindBuffer.pendingCommentLikes(commentId));
+        assertEquals(1, writeBehindBuffer.pendingCommentLikes(otherId));
+
+        commentService.deleteComment(otherId);
+        assertFalse(commentLikeRepository.existsByCommentIdAndUserId(otherId, 7L));
+        comments.remove(1);
+    }
+
+    @Test
+    void whenLikeRemovedAndRestored_thenUserSetStaysSorted() {
+        UserIdSet set = new UserIdSet();
+        for (long id : new long[]{50, 10, 30, 20, 40, 10}) {
+            set.add(id);
+        }
+        assertEquals(5, set.size());
+        assertTrue(set.remove(30));
+        assertFalse(set.contains(30));
+        assertTrue(set.contains(20) && set.contains(40) && set.contains(50));
+        assertTrue(set.add(30));
+        assertFalse(set.add(30));
+        assertEquals(5, set.size());
+    }
+
+    @Test
+    void whenCommentDoesNotExist_thenLikeIsRejected() {
+        assertThrows(RuntimeException.class, () -> commentService.likeComment(-1L, 1L));
+    }
+
+    @Test
+    void whenLikesFlushed_thenCommentLeavesMoviePendingIds() {
+        Long commentId = comments.get(1).getId();
+        commentService.likeComment(commentId, 7L);
+        assertEquals(Set.of(commentId), commentLikes.pendingCommentIds(movie.getId()));
+        assertTrue(commentLikes.pendingCommentIds(movie.getId() + 1).isEmpty());
+
+        writeBehindBuffer.flush();
+        assertTrue(commentLikes.pendingCommentIds(movie.getId()).isEmpty());
+
+        // 点赞又取消，增量为零，不用补查
+        commentService.likeComment(commentId, 8L);
+        commentService.unlikeComment(commentId, 8L);
+        assertTrue(commentLikes.pendingCommentIds(movie.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package com.movieticket.service.order;
+
+import com.movieticket.entity.Order;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class OrderExpirySchedulerTest {
+
+    @Test
+    void whenOrderNotYetExpiredInDatabase_thenItIsRescheduledAtItsRealDeadline() {
+        OrderService orderService = mock(OrderService.class);
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        OrderExpiryScheduler scheduler = new OrderExpiryScheduler(orderService, orderRepository, 1000);
+        ReflectionTestUtils.setField(scheduler, "timeoutMinutes", 15L);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 500);
+
+        // 本地登记时已到期，但数据库中订单 2 的创建时间晚了 10 分钟（时钟偏差），订单 3 已支付
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(20);
+        for (long id = 1; id <= 3; id++) {
+            Order order = new Order();
+            order.setId(id);
+            order.setCreateTime(expired);
+            scheduler.schedule(order);
+        }
+        when(orderService.cancelExpiredOrders(anyCollection())).thenReturn(new ExpiryResult(1, 2, List.of(1L)));
+        when(orderRepository.findPendingOrderCreateTimes(anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, LocalDateTime.now().minusMinutes(10)}));
+
+        scheduler.tick();
+
+        verify(orderRepository).findPendingOrderCreateTimes(argThat(ids -> ids.size() == 2
+                && ids.containsAll(List.of(2L, 3L))));
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(1, scheduler.getExpiredOrderCount());
+        assertEquals(2, scheduler.getReleasedSeatCount());
+
+        // 约 5 分钟后才真正到期，下一次 tick 不会再处理
+        scheduler.tick();
+        verify(orderService, times(1)).cancelExpiredOrders(anyCollection());
+    }
+}
@@ -0,0 +1,54 @@
+package com.movieticket.service.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void whenDeadlinesSpanSeveralLevels_thenEachFiresAtItsTick() {
+        TimerWheel wheel = new TimerWheel(1000, START);
+        wheel.add(1L, START + 3_000);
+        wheel.add(2L, START + TimeUnit.MINUTES.toMillis(15));
+        wheel.add(3L, START + TimeUnit.HOURS.toMillis(30));
+
+        assertTrue(wheel.advance(START + 2_000).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(START + 3_000));
+        assertTrue(wheel.advance(START + TimeUnit.MINUTES.toMillis(15) - 1_000).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(START + TimeUnit.MINUTES.toMillis(15)));
+        assertTrue(wheel.advance(START + TimeUnit.HOURS.toMillis(30) - 1_000).isEmpty());
+        assertEquals(List.of(3L), wheel.advance(START + TimeUnit.HOURS.toMillis(30)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void whenDeadlineAlreadyPassed_thenFiresOnNextAdvance() {
+        TimerWheel wheel = new TimerWheel(1000, START);
+        wheel.add(1L, START - 60_000);
+
+        assertEquals(List.of(1L), wheel.advance(START));
+    }
+
+    @Test
+    void whenManyOrdersExpireTogether_thenTheyComeOutInOneBatch() {
+        TimerWheel wheel = new TimerWheel(1000, START);
+        long deadline = START + TimeUnit.MINUTES.toMillis(15);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            wheel.add(id, deadline - (id % 1000)); // 同一秒内的不同毫秒
+            ids.add(id);
+        }
+
+        assertTrue(wheel.advance(deadline - 1_000).isEmpty());
+        List<Long> expired = wheel.advance(deadline);
+        assertEquals(ids.size(), expired.size());
+        assertTrue(expired.containsAll(ids));
+    }
+}
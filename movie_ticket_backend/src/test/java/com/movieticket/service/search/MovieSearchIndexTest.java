@@ -0,0 +1,122 @@
+package com.movieticket.service.search;
+
+import com.movieticket.entity.Movie;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.MovieSearchText;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSearchIndexTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @InjectMocks
+    private MovieSearchIndex movieSearchIndex;
+
+    @Test
+    void whenChineseKeyword_thenMatchedByBigramsAndRankedByField() {
+        when(movieRepository.findSearchTexts()).thenReturn(List.of(
+                new MovieSearchText(1L, "流浪地球", "The Wandering Earth", "郭帆", "吴京,屈楚萧", true, null),
+                new MovieSearchText(2L, "地球最后的夜晚", null, "毕赣", "汤唯,黄觉", false, null),
+                new MovieSearchText(3L, "战狼2", "Wolf Warrior 2", "吴京", "吴京,弗兰克·格里罗", true, null)));
+        movieSearchIndex.rebuild();
+
+        assertEquals(List.of(1L), movieSearchIndex.search("流浪"));
+        assertEquals(List.of(2L, 1L), movieSearchIndex.search("地球"));
+        assertEquals(List.of(), movieSearchIndex.search("地流"));
+        // 导演加演员命中高于只有演员命中
+        assertEquals(List.of(3L, 1L), movieSearchIndex.search("吴京"));
+        assertEquals(List.of(2L), movieSearchIndex.search("赣"));
+        assertEquals(List.of(1L), movieSearchIndex.search("wandering EARTH"));
+        assertEquals(List.of(3L), movieSearchIndex.search("战狼 2"));
+        assertEquals(List.of(), movieSearchIndex.search("  "));
+    }
+
+    @Test
+    void whenLatinKeywordIsPartial_thenMatchedByWordPrefix() {
+        when(movieRepository.findSearchTexts()).thenReturn(List.of(
+                new MovieSearchText(1L, "星际穿越", "Interstellar", "Christopher Nolan", "马修·麦康纳", true, null),
+                new MovieSearchText(2L, "奥本海默", "Oppenheimer", "Christopher Nolan", "Cillian Murphy", true, null),
+                new MovieSearchText(3L, "沙丘", "Dune", "Denis Villeneuve", "Timothée Chalamet", true, null)));
+        movieSearchIndex.rebuild();
+
+        assertEquals(List.of(2L, 1L), movieSearchIndex.search("nol"));
+        assertEquals(List.of(2L, 1L), movieSearchIndex.search("Nolan"));
+        assertEquals(List.of(1L), movieSearchIndex.search("inter NOL"));
+        assertEquals(List.of(3L), movieSearchIndex.search("timoth"));
+        // 只按单词前缀匹配，不匹配单词中间的片段
+        assertEquals(List.of(), movieSearchIndex.search("olan"));
+        assertEquals(List.of(), movieSearchIndex.search("nolans"));
+    }
+
+    @Test
+    void whenMovieChanges_thenIndexFollows() {
+        when(movieRepository.findSearchTexts()).thenReturn(List.of(
+                new MovieSearchText(1L, "你好，李焕英", null, "贾玲", "贾玲,张小斐", false, null)));
+        movieSearchIndex.rebuild();
+
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("热辣滚烫");
+        movie.setDirector("贾玲");
+        movieSearchIndex.index(movie);
+        assertEquals(List.of(), movieSearchIndex.search("李焕英"));
+        assertEquals(List.of(1L), movieSearchIndex.search("滚烫"));
+
+        movie.setStatus(false);
+        movieSearchIndex.index(movie);
+        assertEquals(List.of(), movieSearchIndex.search("贾玲"));
+
+        movie.setStatus(true);
+        movieSearchIndex.index(movie);
+        movieSearchIndex.remove(List.of(1L));
+        assertEquals(0, movieSearchIndex.size());
+    }
+
+    @Test
+    void whenHundredThousandMovies_thenSearchIsSubMillisecond() {
+        Random random = new Random(42);
+        String pool = "爱情战争海洋星空城市少年时光英雄归来秘密花园夜晚故事世界末日传奇";
+        List<MovieSearchText> texts = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            StringBuilder title = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                title.append(pool.charAt(random.nextInt(pool.length())));
+            }
+            texts.add(new MovieSearchText(id, title.toString(), "Movie " + id, "导演" + (id % 500),
+                    "演员" + (id % 997) + ",演员" + (id % 1009), false, null));
+        }
+        when(movieRepository.findSearchTexts()).thenReturn(texts);
+        assertEquals(100_000, movieSearchIndex.rebuild());
+
+        for (int i = 0; i < 2000; i++) {
+            movieSearchIndex.search("爱情");
+        }
+        // 取单次耗时的中位数，不受其他测试的 GC 停顿影响
+        long[] nanos = new long[1000];
+        int matched = 0;
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            matched = movieSearchIndex.search("爱情").size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double medianMs = nanos[nanos.length / 2] / 1_000_000.0;
+
+        assertTrue(matched > 0);
+        assertTrue(medianMs < 1.0, "耗时中位数: " + medianMs + " ms");
+    }
+}
@@ -0,0 +1,131 @@
+package com.movieticket.service.search;
+
+import com.movieticket.entity.Movie;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.MovieSearchText;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.service.search.MovieSuggester.Suggestion;
+import com.movieticket.service.search.MovieSuggester.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MovieSuggesterTest {
+
+    private MovieRepository movieRepository;
+    private OrderRepository orderRepository;
+    private MovieSuggester movieSuggester;
+
+    @BeforeEach
+    void setUp() {
+        movieRepository = mock(MovieRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        movieSuggester = new MovieSuggester(movieRepository, orderRepository, 0);
+    }
+
+    @Test
+    void whenPrefixTyped_thenSuggestionsRankedByHotRatingAndBookings() {
+        when(movieRepository.findSearchTexts()).thenReturn(List.of(
+                text(1L, "流浪地球", "The Wandering Earth", "郭帆", "吴京,屈楚萧", false, "8.0"),
+                text(2L, "流浪地球2", "The Wandering Earth II", "郭帆", "吴京,刘德华", true, "8.0"),
+                text(3L, "流浪猫鲍勃", "A Street Cat Named Bob", "罗杰·斯波蒂伍德", "卢克·崔德威", false, "8.0"),
+                text(4L, "战狼2", "Wolf Warrior 2", "吴京", "吴京", false, "7.0")));
+        when(orderRepository.countPaidOrdersByMovie()).thenReturn(List.<Object[]>of(new Object[]{3L, 99L}));
+        assertEquals(4, movieSuggester.rebuild());
+
+        assertEquals(List.of("流浪地球2", "流浪猫鲍勃", "流浪地球"), texts(movieSuggester.suggest("流浪", 10)));
+        assertEquals(List.of("流浪地球2"), texts(movieSuggester.suggest("流浪", 1)));
+        assertEquals(List.of("流浪地球2", "流浪地球"), texts(movieSuggester.suggest(" The  WAND", 10)));
+        assertEquals(List.of("流浪地球2", "流浪地球"), texts(movieSuggester.suggest("earth", 10)));
+        assertEquals(List.of(), movieSuggester.suggest("地球", 10));
+
+        List<Suggestion> people = movieSuggester.suggest("吴", 10);
+        assertEquals(1, people.size());
+        assertEquals(new Suggestion("吴京", Type.PERSON, null), people.get(0));
+        assertEquals(new Suggestion("战狼2", Type.MOVIE, 4L), movieSuggester.suggest("战", 10).get(0));
+    }
+
+    @Test
+    void whenMovieChanges_thenSuggestionsFollow() {
+        when(movieRepository.findSearchTexts()).thenReturn(List.of(
+                text(1L, "你好，李焕英", null, "贾玲", "贾玲,张小斐", false, "7.5"),
+                text(2L, "热辣滚烫", null, "贾玲", "贾玲,雷佳音", false, "7.0")));
+        movieSuggester.rebuild();
+        assertEquals(List.of("你好，李焕英"), texts(movieSuggester.suggest("李焕", 10)));
+
+        Movie movie = new Movie();
+        movie.setId(2L);
+        movie.setTitle("热辣滚烫");
+        movie.setDirector("贾玲");
+        movie.setActors("贾玲,雷佳音");
+        movie.setIsHot(true);
+        movie.setRating(new BigDecimal("7.0"));
+        movieSuggester.index(movie);
+        assertEquals(List.of("热辣滚烫"), texts(movieSuggester.suggest("热", 10)));
+
+        movieSuggester.remove(List.of(1L));
+        assertEquals(List.of(), movieSuggester.suggest("李焕", 10));
+        assertEquals(List.of(), movieSuggester.suggest("张小", 10));
+        assertEquals(List.of("贾玲"), texts(movieSuggester.suggest("贾", 10)));
+
+        movie.setStatus(false);
+        movieSuggester.index(movie);
+        assertEquals(List.of(), movieSuggester.suggest("贾", 10));
+        assertEquals(List.of(), movieSuggester.suggest("热", 10));
+    }
+
+    @Test
+    void whenPrefixLongerThanTree_thenLowRankedMatchesAreStillFound() {
+        List<MovieSearchText> texts = new ArrayList<>();
+        for (long id = 1; id <= 12; id++) {
+            texts.add(text(id, "Harry Potter and Part " + id, null, null, null, true, "9.0"));
+        }
+        texts.add(text(13L, "Harry Potter and the Chamber of Secrets", null, null, null, false, "1.0"));
+        when(movieRepository.findSearchTexts()).thenReturn(texts);
+        movieSuggester.rebuild();
+
+        assertEquals(List.of("Harry Potter and the Chamber of Secrets"),
+                texts(movieSuggester.suggest("harry potter and the c", 10)));
+        assertEquals(List.of("Harry Potter and Part 1", "Harry Potter and Part 10"),
+                texts(movieSuggester.suggest("harry potter and part 1", 2)));
+    }
+
+    @Test
+    void whenTwentyThousandMovies_thenSuggestIsMicroseconds() {
+        List<MovieSearchText> texts = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            texts.add(text(id, "星际穿越" + id, "Interstellar " + id, "导演" + (id % 300),
+                    "演员" + (id % 997), id % 7 == 0, String.valueOf(id % 10)));
+        }
+        when(movieRepository.findSearchTexts()).thenReturn(texts);
+        movieSuggester.rebuild();
+
+        for (int i = 0; i < 2000; i++) {
+            movieSuggester.suggest("星际", 10);
+        }
+        long[] nanos = new long[1000];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            assertEquals(10, movieSuggester.suggest("星际", 10).size());
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        assertTrue(nanos[nanos.length / 2] < 100_000, "耗时中位数: " + nanos[nanos.length / 2] + " ns");
+    }
+
+    private static MovieSearchText text(Long id, String title, String originalTitle, String director,
+                                        String actors, boolean hot, String rating) {
+        return new MovieSearchText(id, title, originalTitle, director, actors, hot, new BigDecimal(rating));
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.movieticket.service.seat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticket.entity.Hall;
+import com.movieticket.entity.Session;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.repository.OrderSeatRepository;
+import com.movieticket.repository.SessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 大量买家并发抢同一场次的座位，验证不会出现重复售出
+ */
+class SeatHoldConcurrencyTest {
+
+    private static final int ROWS = 10;
+    private static final int COLS = 30;
+    private static final int BUYERS = 5000;
+
+    @Test
+    void whenThousandsOfBuyersRaceForOneSession_thenNoSeatIsSoldTwice() throws Exception {
+        SeatStateIndex seatStateIndex = newIndex();
+        seatStateIndex.getBookedSeats(1L);
+
+        Queue<SeatHold> holds = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+
+        for (int i = 0; i < BUYERS; i++) {
+            executor.submit(() -> {
+                List<String> seats = randomSeats();
+                start.await();
+                try {
+                    holds.add(seatStateIndex.hold(1L, seats));
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        Set<String> sold = new HashSet<>();
+        for (SeatHold hold : holds) {
+            for (String seat : hold.getSeats()) {
+                assertTrue(sold.add(seat), "座位被重复售出: " + seat);
+            }
+        }
+        assertEquals(BUYERS, holds.size() + rejected.get());
+        assertEquals(sold, new HashSet<>(seatStateIndex.getLockedSeats(1L)));
+    }
+
+    private static List<String> randomSeats() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int row = random.nextInt(ROWS) + 1;
+        int col = random.nextInt(COLS - 3) + 1;
+        int count = random.nextInt(4) + 1;
+        List<String> seats = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            seats.add(row + "-" + (col + i));
+        }
+        return seats;
+    }
+
+    private static SeatStateIndex newIndex() {
+        Hall hall = new Hall();
+        hall.setId(1L);
+        hall.setSeatLayout("{\"rows\":" + ROWS + ",\"cols\":" + COLS + "}");
+        Session session = new Session();
+        session.setId(1L);
+        session.setHall(hall);
+
+        SessionRepository sessionRepository = mock(SessionRepository.class);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+
+        SeatStateIndex seatStateIndex = new SeatStateIndex(mock(OrderSeatRepository.class), sessionRepository,
+                new SeatLayoutCache(new ObjectMapper()), new ObjectMapper());
+        ReflectionTestUtils.setField(seatStateIndex, "timeoutMinutes", 15L);
+        return seatStateIndex;
+    }
+}
@@ -0,0 +1,45 @@
+package com.movieticket.service.seat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatLayoutTest {
+
+    private final SeatLayout layout = SeatLayout.of(1L, Map.of(
+            "rows", 10,
+            "cols", 12,
+            "disabledSeats", List.of("A1", "A12"),
+            "vipSeats", List.of("D5", "D6"),
+            "aisleCols", List.of(4, 8)));
+
+    @Test
+    void whenLabelInEitherFormat_thenResolvesToSameOrdinal() {
+        assertEquals(4 * 12 + 6, layout.ordinalOf("E7"));
+        assertEquals(4 * 12 + 6, layout.ordinalOf("5-7"));
+        assertEquals(4 * 12 + 6, layout.ordinalOf("e7"));
+        assertEquals("E7", layout.seatId(layout.ordinalOf("5-7")));
+    }
+
+    @Test
+    void whenLabelOutsideLayout_thenNotSellable() {
+        assertEquals(-1, layout.ordinalOf("K1"));
+        assertEquals(-1, layout.ordinalOf("1-13"));
+        assertEquals(-1, layout.ordinalOf("A"));
+        assertFalse(layout.isSellable("A1"));
+        assertTrue(layout.isSellable("A2"));
+    }
+
+    @Test
+    void whenLayoutHasTypesAndAisles_thenExposesThem() {
+        assertEquals(SeatLayout.SeatType.VIP, layout.seatType("D5"));
+        assertEquals(SeatLayout.SeatType.DISABLED, layout.seatType("1-12"));
+        assertEquals(SeatLayout.SeatType.NORMAL, layout.seatType("B2"));
+        assertNull(layout.seatType("Z9"));
+        assertTrue(layout.isAisleAfterCol(4));
+        assertFalse(layout.isAisleAfterCol(5));
+    }
+}
@@ -0,0 +1,200 @@
+package com.movieticket.service.seat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieticket.entity.Hall;
+import com.movieticket.entity.Order;
+import com.movieticket.entity.OrderSeat;
+import com.movieticket.entity.Session;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.repository.OrderSeatRepository;
+import com.movieticket.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatStateIndexTest {
+
+    @Mock
+    private OrderSeatRepository orderSeatRepository;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    private SeatStateIndex seatStateIndex;
+
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        seatStateIndex = new SeatStateIndex(orderSeatRepository, sessionRepository,
+                new SeatLayoutCache(new ObjectMapper()), new ObjectMapper());
+        ReflectionTestUtils.setField(seatStateIndex, "timeoutMinutes", 15L);
+
+        Hall hall = new Hall();
+        hall.setId(1L);
+        hall.setSeatLayout("{\"rows\":10,\"cols\":12}");
+        session = new Session();
+        session.setId(1L);
+        session.setHall(hall);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+    }
+
+    @Test
+    void whenBuiltFromOrderSeats_thenReportsBookedAndLockedSeats() {
+        LocalDateTime now = LocalDateTime.now();
+        when(orderSeatRepository.findActiveSeats(1L)).thenReturn(List.of(
+                new Object[]{"5-7", 1L, OrderSeat.SeatState.BOOKED, now.minusHours(1)},
+                new Object[]{"5-8", 1L, OrderSeat.SeatState.BOOKED, now.minusHours(1)},
+                new Object[]{"6-1", 2L, OrderSeat.SeatState.LOCKED, now},
+                new Object[]{"7-1", 3L, OrderSeat.SeatState.LOCKED, now.minusMinutes(30)}));
+
+        assertEquals(List.of("5-7", "5-8"), seatStateIndex.getBookedSeats(1L));
+        assertEquals(List.of("6-1"), seatStateIndex.getLockedSeats(1L));
+        assertFalse(seatStateIndex.isAvailable(1L, List.of("5-7"), null));
+        assertFalse(seatStateIndex.isAvailable(1L, List.of("6-1"), null));
+        assertTrue(seatStateIndex.isAvailable(1L, List.of("6-1"), 2L));
+        assertTrue(seatStateIndex.isAvailable(1L, List.of("1-1", "10-12"), null));
+        // 超时未支付的锁定不再占用座位
+        assertTrue(seatStateIndex.isAvailable(1L, List.of("7-1"), null));
+
+        // 索引只构建一次
+        seatStateIndex.isAvailable(1L, List.of("1-1"), null);
+        verify(sessionRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void whenOrderLockedPaidAndCancelled_thenIndexFollows() {
+        seatStateIndex.getBookedSeats(1L);
+
+        Order pending = order(3L, "[\"3-3\",\"3-4\"]", LocalDateTime.now());
+        SeatHold hold = seatStateIndex.hold(1L, List.of("3-3", "3-4"));
+        assertEquals(List.of("C3", "C4"), hold.getSeats());
+        seatStateIndex.confirm(hold, pending);
+        assertEquals(List.of("C3", "C4"), seatStateIndex.getLockedSeats(1L));
+
+        seatStateIndex.book(pending);
+        assertTrue(seatStateIndex.getLockedSeats(1L).isEmpty());
+        assertEquals(List.of("C3", "C4"), seatStateIndex.getBookedSeats(1L));
+
+        seatStateIndex.release(pending);
+        assertTrue(seatStateIndex.getBookedSeats(1L).isEmpty());
+        assertTrue(seatStateIndex.isAvailable(1L, List.of("3-3", "3-4"), null));
+    }
+
+    @Test
+    void whenLockExpired_thenSeatIsFree() {
+        seatStateIndex.getBookedSeats(1L);
+
+        seatStateIndex.confirm(seatStateIndex.hold(1L, List.of("2-2")),
+                order(4L, "[\"2-2\"]", LocalDateTime.now().minusMinutes(16)));
+
+        assertTrue(seatStateIndex.getLockedSeats(1L).isEmpty());
+        assertTrue(seatStateIndex.isAvailable(1L, List.of("2-2"), null));
+    }
+
+    @Test
+    void whenSeatsAlreadyHeld_thenHoldFailsWithConflicts() {
+        seatStateIndex.hold(1L, List.of("4-4", "4-5"));
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> seatStateIndex.hold(1L, List.of("4-3", "4-4", "4-5")));
+
+        assertTrue(e.getMessage().endsWith("D4, D5"));
+        // 失败的预占不会留下任何锁定
+        assertEquals(List.of("D4", "D5"), seatStateIndex.getLockedSeats(1L));
+    }
+
+    @Test
+    void whenSameSeatWrittenTwoWays_thenHoldIsRejected() {
+        for (List<String> seats : List.of(List.of("E7", "5-7"), List.of("e7", "E7"), List.of("5-7", "e7"))) {
+            BusinessException e = assertThrows(BusinessException.class, () -> seatStateIndex.hold(1L, seats));
+            assertTrue(e.getMessage().contains("重复"));
+        }
+        assertTrue(seatStateIndex.getLockedSeats(1L).isEmpty());
+
+        // 其他写法占住后，同一座位的标准写法视为冲突
+        assertEquals(List.of("E7"), seatStateIndex.hold(1L, List.of("e7")).getSeats());
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> seatStateIndex.hold(1L, List.of("5-7")));
+        assertTrue(e.getMessage().endsWith("E7"));
+    }
+
+    @Test
+    void whenSeatNotInLayout_thenHoldIsRejected() {
+        session.getHall().setSeatLayout("{\"rows\":10,\"cols\":12,\"disabledSeats\":[\"A1\"]}");
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> seatStateIndex.hold(1L, List.of("A2", "A1", "11-1", "K3")));
+
+        assertTrue(e.getMessage().endsWith("A1, 11-1, K3"));
+        assertTrue(seatStateIndex.getLockedSeats(1L).isEmpty());
+    }
+
+    @Test
+    void whenTransitionsArriveWhileLoading_thenTheyAreReplayedOntoTheSnapshot() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LocalDateTime now = LocalDateTime.now();
+        // 加载读到的快照早于订单 5 的支付和订单 6 的取消
+        when(orderSeatRepository.findActiveSeats(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(new Object[]{"8-1", 5L, OrderSeat.SeatState.LOCKED, now},
+                    new Object[]{"8-2", 6L, OrderSeat.SeatState.LOCKED, now});
+        });
+
+        CompletableFuture<List<String>> booked = CompletableFuture.supplyAsync(() -> seatStateIndex.getBookedSeats(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        seatStateIndex.book(order(5L, "[\"8-1\"]", now));
+        seatStateIndex.release(order(6L, "[\"8-2\"]", now));
+        release.countDown();
+
+        assertEquals(List.of("8-1"), booked.get(5, TimeUnit.SECONDS));
+        assertTrue(seatStateIndex.getLockedSeats(1L).isEmpty());
+        verify(orderSeatRepository, times(1)).findActiveSeats(1L);
+    }
+
+    @Test
+    void whenEvictedWhileLoading_thenStaleMapIsNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderSeatRepository.findActiveSeats(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of();
+        }).thenReturn(List.<Object[]>of(new Object[]{"9-9", 7L, OrderSeat.SeatState.BOOKED, LocalDateTime.now()}));
+
+        CompletableFuture<List<String>> stale = CompletableFuture.supplyAsync(() -> seatStateIndex.getBookedSeats(1L));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        seatStateIndex.evict(1L);
+        release.countDown();
+        assertEquals(List.of(), stale.get(5, TimeUnit.SECONDS));
+
+        // 被丢弃的加载结果不会发布，下次访问重新加载
+        assertEquals(List.of("9-9"), seatStateIndex.getBookedSeats(1L));
+        verify(orderSeatRepository, times(2)).findActiveSeats(1L);
+    }
+
+    private Order order(Long id, String seats, LocalDateTime createTime) {
+        Order order = new Order();
+        order.setId(id);
+        order.setSession(session);
+        order.setSeatNumbers(seats);
+        order.setCreateTime(createTime);
+        return order;
+    }
+}
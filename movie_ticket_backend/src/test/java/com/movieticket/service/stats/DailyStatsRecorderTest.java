@@ -0,0 +1,180 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.entity.DailyStats;
+import com.movieticket.entity.Order;
+import com.movieticket.entity.User;
+import com.movieticket.repository.DailyStatsRepository;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DailyStatsRecorderTest {
+
+    @Autowired
+    private DailyStatsRecorder dailyStatsRecorder;
+
+    @Autowired
+    private DailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        dailyStatsRepository.deleteAll();
+        dailyStatsRecorder.rebuild();
+    }
+
+    @Test
+    void whenOrderMovesThroughStates_thenDailyRowFollows() {
+        LocalDate date = LocalDate.of(2024, 5, 1);
+        Order order = new Order();
+        order.setCreateTime(date.atTime(20, 30));
+        order.setTotalPrice(new BigDecimal("90.00"));
+
+        inTransaction(() -> dailyStatsRecorder.orderChanged(order, null, Order.OrderStatus.PENDING));
+        inTransaction(() -> dailyStatsRecorder.orderChanged(order, Order.OrderStatus.PENDING, Order.OrderStatus.PAID));
+        dailyStatsRecorder.flush();
+        DailyStats paid = dailyStatsRepository.findById(date).orElseThrow();
+        assertEquals(0L, paid.getPendingOrders());
+        assertEquals(1L, paid.getPaidOrders());
+        assertEquals(0, new BigDecimal("90.00").compareTo(paid.getRevenue()));
+
+        inTransaction(() -> dailyStatsRecorder.orderChanged(order, Order.OrderStatus.PAID, Order.OrderStatus.REFUNDED));
+        dailyStatsRecorder.flush();
+        DailyStats refunded = dailyStatsRepository.findById(date).orElseThrow();
+        assertEquals(0L, refunded.getPaidOrders());
+        assertEquals(1L, refunded.getRefundedOrders());
+        assertEquals(0, BigDecimal.ZERO.compareTo(refunded.getRevenue()));
+    }
+
+    @Test
+    void whenOrdersExpire_thenPendingMovesToCancelledPerDay() {
+        LocalDate date = LocalDate.of(2024, 5, 2);
+        Order order = new Order();
+        order.setCreateTime(LocalDateTime.of(2024, 5, 2, 9, 0));
+        order.setTotalPrice(new BigDecimal("45.00"));
+
+        inTransaction(() -> {
+            dailyStatsRecorder.orderChanged(order, null, Order.OrderStatus.PENDING);
+            dailyStatsRecorder.orderChanged(order, null, Order.OrderStatus.PENDING);
+        });
+        inTransaction(() -> dailyStatsRecorder.ordersExpired(Map.of(date, 2)));
+        dailyStatsRecorder.flush();
+
+        DailyStats day = dailyStatsRepository.findById(date).orElseThrow();
+        assertEquals(0L, day.getPendingOrders());
+        assertEquals(2L, day.getCancelledOrders());
+    }
+
+    @Test
+    void whenOrderTransactionRuns_thenDailyRowIsNotTouchedUntilFlush() {
+        LocalDate date = LocalDate.of(2024, 5, 3);
+        Order order = new Order();
+        order.setCreateTime(date.atTime(10, 0));
+        order.setTotalPrice(new BigDecimal("30.00"));
+
+        inTransaction(() -> {
+            dailyStatsRecorder.orderChanged(order, null, Order.OrderStatus.PENDING);
+            assertTrue(dailyStatsRepository.findById(date).isEmpty());
+        });
+        assertTrue(dailyStatsRepository.findById(date).isEmpty());
+
+        assertEquals(1, dailyStatsRecorder.flush());
+        assertEquals(1L, dailyStatsRepository.findById(date).orElseThrow().getPendingOrders());
+        assertEquals(0, dailyStatsRecorder.flush());
+    }
+
+    @Test
+    void whenOrderTransactionRollsBack_thenNothingIsCounted() {
+        LocalDate date = LocalDate.of(2024, 5, 4);
+        Order order = new Order();
+        order.setCreateTime(date.atTime(10, 0));
+        order.setTotalPrice(new BigDecimal("30.00"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dailyStatsRecorder.orderChanged(order, null, Order.OrderStatus.PENDING);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, dailyStatsRecorder.flush());
+        assertTrue(dailyStatsRepository.findById(date).isEmpty());
+    }
+
+    @Test
+    void whenChangeNotYetFlushed_thenPendingIncludesIt() {
+        LocalDate date = LocalDate.of(2024, 5, 5);
+        Order order = new Order();
+        order.setCreateTime(date.atTime(10, 0));
+        order.setTotalPrice(new BigDecimal("30.00"));
+
+        inTransaction(() -> dailyStatsRecorder.orderChanged(order, null, Order.OrderStatus.PENDING));
+        inTransaction(() -> dailyStatsRecorder.orderChanged(order, Order.OrderStatus.PENDING, Order.OrderStatus.PAID));
+        DailyStats pending = dailyStatsRecorder.pending().get(date);
+        assertEquals(0L, pending.getPendingOrders());
+        assertEquals(1L, pending.getPaidOrders());
+        assertEquals(0, new BigDecimal("30.00").compareTo(pending.getRevenue()));
+
+        dailyStatsRecorder.flush();
+        assertFalse(dailyStatsRecorder.pending().containsKey(date));
+        assertEquals(1L, dailyStatsRepository.findById(date).orElseThrow().getPaidOrders());
+    }
+
+    @Test
+    void whenDeltasWereLost_thenReconcileRestoresRecentDays() {
+        LocalDate today = LocalDate.now();
+        // 直接写用户表、改写汇总行，相当于进程异常退出丢失了内存中的增量
+        User user = new User();
+        user.setUsername("reconcile");
+        user.setPassword("password");
+        user.setEmail("reconcile@example.com");
+        user = userRepository.save(user);
+        try {
+            DailyStats stale = new DailyStats(today);
+            stale.setPaidOrders(99L);
+            dailyStatsRepository.save(stale);
+
+            assertTrue(dailyStatsRecorder.reconcile(today.minusDays(1), today) >= 1);
+
+            LocalDateTime start = today.atStartOfDay();
+            LocalDateTime end = start.plusDays(1);
+            long paid = orderRepository.countOrdersByDay(start, end).stream()
+                    .filter(row -> row[1] == Order.OrderStatus.PAID)
+                    .mapToLong(row -> ((Number) row[2]).longValue()).sum();
+            long newUsers = userRepository.countUsersByDay(start, end).stream()
+                    .mapToLong(row -> ((Number) row[1]).longValue()).sum();
+            DailyStats day = dailyStatsRepository.findById(today).orElseThrow();
+            assertEquals(paid, day.getPaidOrders());
+            assertTrue(newUsers >= 1);
+            assertEquals(newUsers, day.getNewUsers());
+            assertEquals(0, dailyStatsRecorder.reconcile(today.minusDays(1), today));
+        } finally {
+            userRepository.delete(user);
+        }
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+}
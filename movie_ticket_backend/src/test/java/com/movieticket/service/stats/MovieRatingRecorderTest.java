@@ -0,0 +1,208 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.dto.response.comment.CommentStatsResponse;
+import com.movieticket.entity.Comment;
+import com.movieticket.entity.Genre;
+import com.movieticket.entity.Movie;
+import com.movieticket.entity.MovieRatingStats;
+import com.movieticket.entity.User;
+import com.movieticket.repository.CommentRepository;
+import com.movieticket.repository.GenreRepository;
+import com.movieticket.repository.MovieRatingStatsRepository;
+import com.movieticket.repository.MovieRepository;
+import com.movieticket.repository.RatingHistogram;
+import com.movieticket.repository.UserRepository;
+import com.movieticket.service.CommentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MovieRatingRecorderTest {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private MovieRatingRecorder movieRatingRecorder;
+
+    @Autowired
+    private MovieRatingStatsRepository movieRatingStatsRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private GenreRepository genreRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Genre genre;
+    private Movie movie;
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        genre = new Genre();
+        genre.setName("评分汇总");
+        genre = genreRepository.save(genre);
+
+        movie = new Movie();
+        movie.setTitle("评分汇总测试");
+        movie.setGenre(genre);
+        movie.setPrice(new BigDecimal("45.00"));
+        movie = movieRepository.save(movie);
+
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUsername("rating" + i);
+            user.setPassword("password");
+            user.setEmail("rating" + i + "@example.com");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        movieRatingStatsRepository.deleteAll();
+        movieRepository.delete(movie);
+        genreRepository.delete(genre);
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void whenCommentsAreWritten_thenStatsFollowWithoutRescanning() {
+        Comment first = comment(users.get(0), "5.0");
+        Comment second = comment(users.get(1), "3.5");
+        Comment third = comment(users.get(2), "1.0");
+
+        CommentStatsResponse stats = commentService.getCommentStatsByMovie(movie.getId());
+        assertEquals(3L, stats.getTotalComments());
+        assertEquals(0, new BigDecimal("3.1666666666666665").compareTo(stats.getAverageRating()));
+        assertEquals(1L, stats.getFiveStarCount());
+        assertEquals(1L, stats.getThreeStarCount());
+        assertEquals(1L, stats.getOneStarCount());
+
+        Comment update = new Comment();
+        update.setId(second.getId());
+        update.setContent("改评分");
+        update.setRating(new BigDecimal("4.0"));
+        commentService.updateComment(update);
+        commentService.deleteComment(third.getId());
+
+        stats = commentService.getCommentStatsByMovie(movie.getId());
+        assertEquals(2L, stats.getTotalComments());
+        assertEquals(0, new BigDecimal("4.5").compareTo(stats.getAverageRating()));
+        assertEquals(1L, stats.getFiveStarCount());
+        assertEquals(1L, stats.getFourStarCount());
+        assertEquals(0L, stats.getThreeStarCount());
+        assertEquals(0L, stats.getOneStarCount());
+        assertEquals(first.getMovie().getId(), stats.getMovieId());
+    }
+
+    @Test
+    void whenAggregateDrifts_thenRebuildReconcilesFromComments() {
+        comment(users.get(0), "4.5");
+        comment(users.get(1), "2.5");
+        MovieRatingStats stats = movieRatingStatsRepository.findById(movie.getId()).orElseThrow();
+        stats.setCommentCount(10L);
+        stats.setTwoStarCount(0L);
+        movieRatingStatsRepository.save(stats);
+
+        assertEquals(1, movieRatingRecorder.rebuild());
+        MovieRatingStats rebuilt = movieRatingStatsRepository.findById(movie.getId()).orElseThrow();
+        assertEquals(2L, rebuilt.getCommentCount());
+        assertEquals(1L, rebuilt.getTwoStarCount());
+        assertEquals(0, new BigDecimal("7.0").compareTo(rebuilt.getRatingSum()));
+        assertEquals(0, movieRatingRecorder.rebuild());
+    }
+
+    @Test
+    void whenHistogramQueried_thenItMatchesAggregateAndRepairsSelectedMovies() {
+        comment(users.get(0), "4.8");
+        comment(users.get(1), "4.2");
+        comment(users.get(2), "0.5");
+
+        RatingHistogram histogram = commentRepository.findRatingHistogram(movie.getId()).orElseThrow();
+        assertEquals(3, histogram.count());
+        assertEquals(1, histogram.fiveStar());
+        assertEquals(1, histogram.fourStar());
+        assertEquals(0, histogram.threeStar() + histogram.twoStar() + histogram.oneStar());
+        assertEquals(List.of(histogram), commentRepository.findRatingHistograms(List.of(movie.getId(), -1L)));
+        assertEquals(histogram.average(), commentService.getAverageRatingByMovie(movie.getId()));
+
+        movieRatingStatsRepository.deleteAll();
+        Integer repaired = transactionTemplate.execute(status -> movieRatingRecorder.rebuild(List.of(movie.getId())));
+        assertEquals(1, repaired);
+        CommentStatsResponse stats = commentService.getCommentStatsByMovies(List.of(movie.getId())).get(movie.getId());
+        assertEquals(3L, stats.getTotalComments());
+        assertEquals(1L, stats.getFourStarCount());
+    }
+
+    @Test
+    void whenCommentArrivesDuringReconcile_thenItsDeltaIsNotOverwritten() throws Exception {
+        comment(users.get(0), "4.5");
+
+        CompletableFuture<Comment> writer = transactionTemplate.execute(status -> {
+            movieRatingRecorder.rebuild(List.of(movie.getId()));
+            // 对账事务持有汇总行锁，评论写入的累加要等对账提交
+            CompletableFuture<Comment> pending = CompletableFuture.supplyAsync(() -> comment(users.get(1), "2.0"));
+            assertThrows(TimeoutException.class, () -> pending.get(200, TimeUnit.MILLISECONDS));
+            return pending;
+        });
+        writer.get(5, TimeUnit.SECONDS);
+
+        MovieRatingStats stats = movieRatingStatsRepository.findById(movie.getId()).orElseThrow();
+        assertEquals(2L, stats.getCommentCount());
+        assertEquals(1L, stats.getTwoStarCount());
+        assertEquals(0, movieRatingRecorder.rebuild());
+    }
+
+    @Test
+    void whenFirstCommentRollsBack_thenRowIsCreatedAgainByTheNextOne() {
+        transactionTemplate.executeWithoutResult(status -> {
+            comment(users.get(0), "4.0");
+            assertTrue(movieRatingStatsRepository.existsById(movie.getId()));
+            status.setRollbackOnly();
+        });
+        assertFalse(movieRatingStatsRepository.existsById(movie.getId()));
+
+        comment(users.get(1), "3.0");
+        assertEquals(1L, movieRatingStatsRepository.findById(movie.getId()).orElseThrow().getCommentCount());
+    }
+
+    private Comment comment(User user, String rating) {
+        Comment comment = new Comment();
+        comment.setUser(user);
+        comment.setMovie(movie);
+        comment.setContent("评论");
+        comment.setRating(new BigDecimal(rating));
+        return commentService.createComment(comment);
+    }
+}
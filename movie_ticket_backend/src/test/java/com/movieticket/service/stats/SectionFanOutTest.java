@@ -0,0 +1,85 @@
+package com.movieticket.service.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectionFanOutTest {
+
+    private final SectionFanOut fanOut = new SectionFanOut(4, 300);
+
+    @AfterEach
+    void tearDown() {
+        fanOut.stop();
+    }
+
+    @Test
+    void whenOneSectionIsSlow_thenOnlyThatSectionFallsBack() {
+        CountDownLatch release = new CountDownLatch(1);
+        long start = System.nanoTime();
+        try (SectionFanOut.Scope scope = fanOut.open()) {
+            SectionFanOut.Section<Long> slow = scope.fork("slow", () -> {
+                release.await();
+                return 1L;
+            });
+            SectionFanOut.Section<Long> fast = scope.fork("fast", () -> 42L);
+            SectionFanOut.Section<Long> broken = scope.fork("broken", () -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertEquals(42L, fast.get(0L));
+            assertEquals(0L, slow.get(0L));
+            assertEquals(-1L, broken.get(-1L));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+
+        Map<String, SectionFanOut.SectionStats> stats = fanOut.getSectionStats();
+        assertEquals(1, stats.get("fast").calls());
+        assertEquals(1, stats.get("slow").timeouts());
+        assertEquals(1, stats.get("broken").failures());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSectionsRunTogether_thenTheyOverlap() {
+        CountDownLatch started = new CountDownLatch(3);
+        try (SectionFanOut.Scope scope = fanOut.open()) {
+            SectionFanOut.Section<?>[] sections = new SectionFanOut.Section<?>[3];
+            for (int i = 0; i < sections.length; i++) {
+                // 三个统计项都开始后才能返回，串行执行必然超时
+                sections[i] = scope.fork("section" + i, () -> {
+                    started.countDown();
+                    return started.await(1, TimeUnit.SECONDS);
+                });
+            }
+            for (SectionFanOut.Section<?> section : sections) {
+                assertEquals(Boolean.TRUE, ((SectionFanOut.Section<Object>) section).get(Boolean.FALSE));
+            }
+        }
+    }
+
+    @Test
+    void whenPoolIsFull_thenSectionIsRejectedAndFallsBack() {
+        SectionFanOut single = new SectionFanOut(1, 300);
+        CountDownLatch release = new CountDownLatch(1);
+        try (SectionFanOut.Scope scope = single.open()) {
+            // 1 个执行中 + 16 个排队占满线程池
+            for (int i = 0; i < 17; i++) {
+                scope.fork("blocked", () -> release.await(1, TimeUnit.SECONDS));
+            }
+            SectionFanOut.Section<Long> rejected = scope.fork("rejected", () -> 1L);
+
+            assertEquals(-1L, rejected.get(-1L));
+            assertEquals(1, single.getSectionStats().get("rejected").rejections());
+            assertEquals(0, single.getSectionStats().get("rejected").calls());
+        } finally {
+            release.countDown();
+            single.stop();
+        }
+    }
+}
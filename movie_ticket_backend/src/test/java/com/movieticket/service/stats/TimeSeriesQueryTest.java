@@ -0,0 +1,88 @@
+package com.movieticket.service.stats;
+
+import com.movieticket.entity.Order;
+import com.movieticket.exception.BusinessException;
+import com.movieticket.repository.OrderRepository;
+import com.movieticket.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimeSeriesQueryTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private TimeSeriesQuery timeSeriesQuery;
+
+    @Test
+    void whenHourlyRangeHasGaps_thenMissingHoursAreZero() {
+        LocalDate day = LocalDate.of(2024, 5, 1);
+        when(orderRepository.countOrdersByHour(day.atStartOfDay(), day.atTime(4, 0))).thenReturn(List.of(
+                new Object[]{day, 1, Order.OrderStatus.PAID, 3L, new BigDecimal("150.00")},
+                new Object[]{day, 1, Order.OrderStatus.PENDING, 2L, new BigDecimal("100.00")},
+                new Object[]{day, 3, Order.OrderStatus.PAID, 1L, new BigDecimal("45.00")}));
+        when(userRepository.countUsersByHour(day.atStartOfDay(), day.atTime(4, 0)))
+                .thenReturn(List.<Object[]>of(new Object[]{day, 2, 5L}));
+
+        List<TimeSeriesPoint> points = timeSeriesQuery.query(TimeBucket.HOUR, day.atStartOfDay(), day.atTime(3, 30));
+
+        assertEquals(4, points.size());
+        assertEquals(day.atTime(0, 0), points.get(0).getStart());
+        assertEquals(0, points.get(0).getTotalOrders());
+        assertEquals(5, points.get(1).getTotalOrders());
+        assertEquals(3, points.get(1).getOrders(Order.OrderStatus.PAID));
+        assertEquals(0, new BigDecimal("150.00").compareTo(points.get(1).getRevenue()));
+        assertEquals(5, points.get(2).getNewUsers());
+        assertEquals(0, new BigDecimal("45.00").compareTo(points.get(3).getRevenue()));
+        verify(orderRepository, never()).countOrdersByDay(any(), any());
+    }
+
+    @Test
+    void whenBucketIsWeek_thenDailyGroupsRollUpFromMonday() {
+        // 2024-05-06 和 2024-05-13 都是周一
+        LocalDateTime start = LocalDate.of(2024, 5, 8).atStartOfDay();
+        LocalDateTime end = LocalDate.of(2024, 5, 14).atTime(12, 0);
+        LocalDateTime from = LocalDate.of(2024, 5, 6).atStartOfDay();
+        LocalDateTime to = LocalDate.of(2024, 5, 20).atStartOfDay();
+        when(orderRepository.countOrdersByDay(from, to)).thenReturn(List.of(
+                new Object[]{LocalDate.of(2024, 5, 7), Order.OrderStatus.PAID, 1L, new BigDecimal("40.00")},
+                new Object[]{LocalDate.of(2024, 5, 12), Order.OrderStatus.PAID, 2L, new BigDecimal("80.00")},
+                new Object[]{LocalDate.of(2024, 5, 13), Order.OrderStatus.CANCELLED, 1L, new BigDecimal("40.00")}));
+        when(userRepository.countUsersByDay(from, to)).thenReturn(List.of());
+
+        List<TimeSeriesPoint> points = timeSeriesQuery.query(TimeBucket.WEEK, start, end);
+
+        assertEquals(2, points.size());
+        assertEquals(3, points.get(0).getOrders(Order.OrderStatus.PAID));
+        assertEquals(0, new BigDecimal("120.00").compareTo(points.get(0).getRevenue()));
+        assertEquals(1, points.get(1).getOrders(Order.OrderStatus.CANCELLED));
+        assertEquals(0, BigDecimal.ZERO.compareTo(points.get(1).getRevenue()));
+        assertEquals("2024-05-13", TimeBucket.WEEK.label(points.get(1).getStart()));
+    }
+
+    @Test
+    void whenRangeNeedsTooManyBuckets_thenRejectedBeforeQuerying() {
+        LocalDateTime start = LocalDate.of(2024, 1, 1).atStartOfDay();
+
+        assertThrows(BusinessException.class,
+                () -> timeSeriesQuery.query(TimeBucket.HOUR, start, start.plusHours(TimeSeriesQuery.MAX_BUCKETS)));
+        verifyNoInteractions(orderRepository, userRepository);
+    }
+}
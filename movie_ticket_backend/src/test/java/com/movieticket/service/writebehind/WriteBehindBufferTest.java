@@ -0,0 +1,191 @@
+package com.movieticket.service.writebehind;
+
+import com.movieticket.entity.News;
+import com.movieticket.entity.User;
+import com.movieticket.repository.NewsRepository;
+import com.movieticket.repository.UserRepository;
+import com.movieticket.service.NewsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 浏览次数和最后登录时间在内存中合并，批量写库后与逐条写入的结果一致
+ */
+@SpringBootTest(properties = "app.write-behind.flush-seconds=3600")
+@ActiveProfiles("test")
+class WriteBehindBufferTest {
+
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    private NewsService newsService;
+
+    @Autowired
+    private NewsRepository newsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<News> news = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        newsRepository.deleteAll(news);
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void whenViewsAndLoginsFlushed_thenDatabaseMatchesEveryEvent() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            News item = new News();
+            item.setTitle("资讯" + i);
+            item.setContent("内容" + i);
+            news.add(newsRepository.save(item));
+        }
+        for (int i = 0; i < WriteBehindBuffer.BATCH_SIZE + 5; i++) {
+            User user = new User();
+            user.setUsername("writebehind" + i);
+            user.setPassword("password");
+            user.setEmail("writebehind" + i + "@example.com");
+            users.add(userRepository.save(user));
+        }
+        writeBehindBuffer.flush();
+
+        // 8 个线程并发浏览，第一篇资讯每轮多浏览一次
+        int threads = 8;
+        int rounds = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < rounds; r++) {
+                        newsService.incrementViewCount(news.get(0).getId());
+                        newsService.incrementViewCount(news.get(r % 2).getId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        int pending = threads * rounds + threads * rounds / 2;
+        assertEquals(pending, newsService.getNewsById(news.get(0).getId()).orElseThrow().getViewCount() - 1);
+        assertEquals(0, newsRepository.findById(news.get(0).getId()).orElseThrow().getViewCount());
+
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < users.size(); i++) {
+            writeBehindBuffer.recordLogin(users.get(i).getId(), base.plusSeconds(i));
+            writeBehindBuffer.recordLogin(users.get(i).getId(), base.minusDays(1)); // 较早的登录不覆盖
+        }
+        assertEquals(2, writeBehindBuffer.stats().pendingNewsViews());
+        assertEquals(users.size(), writeBehindBuffer.stats().pendingLogins());
+
+        assertEquals(2 + users.size(), writeBehindBuffer.flush());
+
+        assertEquals(pending + 1, newsRepository.findById(news.get(0).getId()).orElseThrow().getViewCount());
+        assertEquals(threads * rounds / 2, newsRepository.findById(news.get(1).getId()).orElseThrow().getViewCount());
+        assertEquals(0, newsRepository.findById(news.get(2).getId()).orElseThrow().getViewCount());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(base.plusSeconds(i), userRepository.findById(users.get(i).getId()).orElseThrow().getLastLoginTime());
+        }
+
+        // 数据库中已是更晚的时间时不回退
+        writeBehindBuffer.recordLogin(users.get(0).getId(), base.minusHours(1));
+        writeBehindBuffer.flush();
+        assertEquals(base, userRepository.findById(users.get(0).getId()).orElseThrow().getLastLoginTime());
+        assertEquals(0, writeBehindBuffer.stats().pendingLogins());
+    }
+
+    @Test
+    void whenDrainedWhileCounting_thenNoIncrementIsLost() throws Exception {
+        KeyedCounter counter = new KeyedCounter();
+        int threads = 4;
+        int perThread = 200_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicLong drained = new AtomicLong();
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counter.add((long) (i % 3), 1);
+                    }
+                    done.countDown();
+                });
+            }
+            while (done.getCount() > 0) {
+                Map<Long, Long> batch = counter.drain();
+                batch.values().forEach(drained::addAndGet);
+                counter.commit(batch);
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Map<Long, Long> rest = counter.drain();
+        rest.values().forEach(drained::addAndGet);
+        counter.commit(rest);
+        assertEquals((long) threads * perThread, drained.get());
+        assertEquals(0, counter.pendingKeys());
+        assertEquals(0, counter.entries());
+    }
+
+    @Test
+    void whenDrainedButNotCommitted_thenStillPending() {
+        KeyedCounter counter = new KeyedCounter();
+        counter.add(1L, 3);
+        counter.add(2L, 1);
+
+        Map<Long, Long> failed = counter.drain();
+        assertEquals(3, counter.pending(1L));
+        counter.add(1L, 1);
+        assertEquals(4, counter.pending(1L));
+        counter.restore(failed);
+        assertEquals(4, counter.pending(1L));
+        assertEquals(1, counter.pending(2L));
+
+        Map<Long, Long> written = counter.drain();
+        assertEquals(Map.of(1L, 4L, 2L, 1L), written);
+        assertEquals(4, counter.pending(1L));
+        counter.commit(written);
+        assertEquals(0, counter.pending(1L));
+        assertEquals(0, counter.pendingKeys());
+    }
+
+    @Test
+    void whenDrainedOrCancelledOut_thenEntryIsRemoved() {
+        KeyedCounter counter = new KeyedCounter();
+        counter.add(1L, 1);
+        counter.add(2L, 1);
+        counter.add(2L, -1);
+        assertEquals(1, counter.entries());
+
+        counter.commit(counter.drain());
+        assertEquals(0, counter.entries());
+        assertTrue(counter.drain().isEmpty());
+        counter.add(1L, 2);
+        assertEquals(Map.of(1L, 2L), counter.drain());
+    }
+}
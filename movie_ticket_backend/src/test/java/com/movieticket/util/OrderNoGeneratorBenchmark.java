@@ -0,0 +1,38 @@
+package com.movieticket.util;
+
+import com.movieticket.benchmark.Benchmark;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单号生成的吞吐量：当前实现与改造前的 String.format + DateTimeFormatter 实现对比，只报告数字
+ * 默认的 mvn test 不运行，需要时执行 mvn test -Dtest=OrderNoGeneratorBenchmark
+ */
+class OrderNoGeneratorBenchmark {
+
+    @Test
+    void generate() throws InterruptedException {
+        OrderNoGenerator generator = new OrderNoGenerator(1, System::currentTimeMillis);
+        LegacyOrderNoGenerator legacy = new LegacyOrderNoGenerator();
+        for (int threads : new int[]{1, 8}) {
+            Benchmark.run("旧实现 String.format", threads, legacy::generate);
+            Benchmark.run("OrderNoGenerator.generate", threads, generator::generate);
+        }
+    }
+
+    // 改造前的实现，作为对比基线
+    private static final class LegacyOrderNoGenerator {
+
+        private final AtomicInteger sequence = new AtomicInteger(0);
+        private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+        String generate() {
+            String timestamp = LocalDateTime.now().format(formatter);
+            int seq = sequence.updateAndGet(i -> i >= 9999 ? 0 : i + 1);
+            return "ORD" + timestamp + String.format("%04d", seq);
+        }
+    }
+}
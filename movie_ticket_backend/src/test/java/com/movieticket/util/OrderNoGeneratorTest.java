@@ -0,0 +1,70 @@
+package com.movieticket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNoGeneratorTest {
+
+    @Test
+    void whenGeneratedConcurrentlyOnSeveralNodes_thenAllUnique() throws Exception {
+        // 固定时钟：所有订单号落在同一毫秒，只能靠节点号和序号（及借用的后续毫秒）区分
+        long millis = LocalDateTime.of(2024, 10, 1, 12, 30, 45, 123_000_000)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<OrderNoGenerator> nodes = List.of(new OrderNoGenerator(1, () -> millis),
+                new OrderNoGenerator(2, () -> millis));
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                OrderNoGenerator generator = nodes.get(t % nodes.size());
+                Callable<List<String>> task = () -> {
+                    List<String> numbers = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        numbers.add(generator.generate());
+                    }
+                    return numbers;
+                };
+                futures.add(executor.submit(task));
+            }
+            Set<String> unique = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                unique.addAll(future.get());
+            }
+            assertEquals(threads * perThread, unique.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("ORD2024100112304512300010000", new OrderNoGenerator(1, () -> millis).generate());
+    }
+
+    @Test
+    void whenClockMovesBackwards_thenNumbersKeepIncreasing() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_500L);
+        OrderNoGenerator generator = new OrderNoGenerator(7, clock::get);
+
+        String before = generator.generate();
+        clock.addAndGet(-2_000); // 时钟回拨两秒
+        String after = generator.generate();
+        String refund = generator.generateRefundNo();
+
+        assertTrue(after.compareTo(before) > 0, before + " -> " + after);
+        assertEquals(before.substring(3, 24), after.substring(3, 24)); // 沿用回拨前的毫秒和节点号
+        assertTrue(refund.startsWith("REF"));
+        assertThrows(IllegalArgumentException.class, () -> new OrderNoGenerator(OrderNoGenerator.MAX_NODE_ID + 1, clock::get));
+    }
+}
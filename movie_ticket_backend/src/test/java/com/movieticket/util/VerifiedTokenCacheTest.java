@@ -0,0 +1,84 @@
+package com.movieticket.util;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "movie-ticket-system-secret-key-for-verified-token-cache-test");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", 100);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Test
+    void whenTokenSeenAgain_thenClaimsComeFromCache() {
+        JwtUtil jwtUtil = jwtUtil();
+        String token = jwtUtil.generateToken("alice", 42L, "USER");
+
+        JwtClaims first = jwtUtil.parseToken(token);
+        assertEquals(42L, jwtUtil.getUserIdFromToken(token));
+        assertEquals("alice", jwtUtil.getUsernameFromToken(token));
+        assertEquals("USER", jwtUtil.getRoleFromToken(token));
+
+        assertSame(first, jwtUtil.parseToken(token));
+        assertEquals(1, jwtUtil.getVerifiedCacheMisses());
+        assertEquals(4, jwtUtil.getVerifiedCacheHits());
+    }
+
+    @Test
+    void whenTokenTampered_thenRejectedAndNotCached() {
+        JwtUtil jwtUtil = jwtUtil();
+        String token = jwtUtil.generateToken("alice", 42L, "USER");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+        assertFalse(jwtUtil.validateToken(tampered));
+        assertFalse(jwtUtil.validateToken(null));
+        assertTrue(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void whenTokenExpires_thenEntryIsDroppedAndCapacityIsBounded() {
+        AtomicLong now = new AtomicLong(1_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, now::get);
+        JwtClaims claims = new JwtClaims(1L, "alice", "USER", 2_000);
+        cache.put("a", claims);
+        assertSame(claims, cache.get("a"));
+
+        now.set(2_000);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+
+        cache.put("a", new JwtClaims(1L, "a", "USER", 9_000));
+        cache.put("b", new JwtClaims(2L, "b", "USER", 9_000));
+        cache.put("c", new JwtClaims(3L, "c", "USER", 9_000));
+        assertTrue(cache.size() <= 2);
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void whenCacheOverflows_thenExpiredEntriesGoFirst() {
+        AtomicLong now = new AtomicLong(1_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(3, now::get);
+        cache.put("old", new JwtClaims(1L, "old", "USER", 2_000));
+        cache.put("a", new JwtClaims(2L, "a", "USER", 9_000));
+        cache.put("b", new JwtClaims(3L, "b", "USER", 9_000));
+
+        now.set(3_000);
+        cache.put("c", new JwtClaims(4L, "c", "USER", 9_000));
+        assertEquals(3, cache.size());
+        assertNull(cache.get("old"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+}
@@ -5,9 +5,14 @@ CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 USE movie_ticket_system;
 
 -- 删除已存在的表（按依赖关系逆序）
+DROP TABLE IF EXISTS catalog_versions;
+DROP TABLE IF EXISTS movie_rating_stats;
+DROP TABLE IF EXISTS daily_stats;
 DROP TABLE IF EXISTS system_config;
 DROP TABLE IF EXISTS favorites;
+DROP TABLE IF EXISTS comment_likes;
 DROP TABLE IF EXISTS comments;
+DROP TABLE IF EXISTS order_seats;
 DROP TABLE IF EXISTS orders;
 DROP TABLE IF EXISTS sessions;
 DROP TABLE IF EXISTS halls;
@@ -29,7 +34,8 @@ CREATE TABLE users (
     status TINYINT DEFAULT 1 COMMENT '状态(0:禁用,1:正常)',
     last_login_time DATETIME COMMENT '最后登录时间',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_users_create_time (create_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户表';
 
 -- 电影类型表
@@ -105,8 +111,11 @@ CREATE TABLE sessions (
     available_seats INT NOT NULL COMMENT '可用座位数',
     booked_seats INT DEFAULT 0 COMMENT '已预订座位数',
     status TINYINT DEFAULT 1 COMMENT '状态(0:取消,1:正常)',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_sessions_hall_start (hall_id, start_time),
+    INDEX idx_sessions_movie_status_start (movie_id, status, start_time),
     FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE,
     FOREIGN KEY (hall_id) REFERENCES halls(id) ON DELETE RESTRICT
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='场次表';
@@ -125,10 +134,44 @@ CREATE TABLE orders (
     cancel_time DATETIME COMMENT '取消时间',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_orders_session_status_time (session_id, status, create_time),
+    INDEX idx_orders_status_time (status, create_time),
+    INDEX idx_orders_user_time (user_id, create_time),
+    INDEX idx_orders_create_time (create_time),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (session_id) REFERENCES sessions(id) ON DELETE RESTRICT
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表';
 
+-- 订单座位表（每个座位一行，唯一索引保证同一场次同一座位只有一个有效占用）
+CREATE TABLE order_seats (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '记录ID',
+    order_id BIGINT NOT NULL COMMENT '订单ID',
+    session_id BIGINT NOT NULL COMMENT '场次ID',
+    seat_no VARCHAR(20) NOT NULL COMMENT '座位号',
+    state ENUM('LOCKED', 'BOOKED', 'RELEASED') DEFAULT 'LOCKED' COMMENT '座位状态',
+    active TINYINT(1) DEFAULT 1 COMMENT '占用中为1，释放后为NULL',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '锁定时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_order_seats_session_seat_active (session_id, seat_no, active),
+    INDEX idx_order_seats_session_state (session_id, state, create_time, seat_no, order_id),
+    INDEX idx_order_seats_order (order_id),
+    FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE,
+    FOREIGN KEY (session_id) REFERENCES sessions(id) ON DELETE RESTRICT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单座位表';
+
+-- 每日统计汇总表（订单按创建日期归档，随订单状态变化和用户注册增量维护）
+CREATE TABLE daily_stats (
+    stat_date DATE PRIMARY KEY COMMENT '统计日期',
+    pending_orders BIGINT NOT NULL DEFAULT 0 COMMENT '待支付订单数',
+    paid_orders BIGINT NOT NULL DEFAULT 0 COMMENT '已支付订单数',
+    cancelled_orders BIGINT NOT NULL DEFAULT 0 COMMENT '已取消订单数',
+    refunded_orders BIGINT NOT NULL DEFAULT 0 COMMENT '已退款订单数',
+    revenue DECIMAL(12,2) NOT NULL DEFAULT 0 COMMENT '营收',
+    new_users BIGINT NOT NULL DEFAULT 0 COMMENT '新增用户数',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每日统计汇总表';
+
 -- 评论表
 CREATE TABLE comments (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '评论ID',
@@ -140,10 +183,37 @@ CREATE TABLE comments (
     status TINYINT DEFAULT 1 COMMENT '状态(0:删除,1:正常)',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_comments_movie_status_time (movie_id, status, create_time),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='评论表';
 
+-- 评论点赞表（同一用户对同一评论只有一行，是否点过赞以此为准）
+CREATE TABLE comment_likes (
+    comment_id BIGINT NOT NULL COMMENT '评论ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (comment_id, user_id),
+    FOREIGN KEY (comment_id) REFERENCES comments(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='评论点赞表';
+
+-- 电影评分汇总表（只统计正常状态的评论，随评论新增、修改、删除增量维护）
+CREATE TABLE movie_rating_stats (
+    movie_id BIGINT PRIMARY KEY COMMENT '电影ID',
+    comment_count BIGINT NOT NULL DEFAULT 0 COMMENT '评论数',
+    rating_sum DECIMAL(12,1) NOT NULL DEFAULT 0 COMMENT '评分和',
+    five_star_count BIGINT NOT NULL DEFAULT 0 COMMENT '五星评论数[4.5,5.0]',
+    four_star_count BIGINT NOT NULL DEFAULT 0 COMMENT '四星评论数[4.0,4.5)',
+    three_star_count BIGINT NOT NULL DEFAULT 0 COMMENT '三星评论数[3.0,4.0)',
+    two_star_count BIGINT NOT NULL DEFAULT 0 COMMENT '二星评论数[2.0,3.0)',
+    one_star_count BIGINT NOT NULL DEFAULT 0 COMMENT '一星评论数[1.0,2.0)',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='电影评分汇总表';
+
 -- 收藏表
 CREATE TABLE favorites (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '收藏ID',
@@ -163,4 +233,12 @@ CREATE TABLE system_config (
     description VARCHAR(200) COMMENT '配置描述',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='系统配置表';
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='系统配置表';
+
+-- 目录版本表
+CREATE TABLE catalog_versions (
+    name VARCHAR(32) PRIMARY KEY COMMENT '目录名称',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '版本号，后台修改目录数据时加一',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='目录版本表';